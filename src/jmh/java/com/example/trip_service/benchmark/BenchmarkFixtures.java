@@ -0,0 +1,275 @@
+package com.example.trip_service.benchmark;
+
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.DTO.UserDTO;
+import com.example.trip_service.DTO.UserDriverNameDTO;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.cache.TripCache;
+import com.example.trip_service.client.UserClient;
+import com.example.trip_service.client.UserClientGuard;
+import com.example.trip_service.client.UserNameResolver;
+import com.example.trip_service.codec.TripEventCodecs;
+import com.example.trip_service.expiry.PendingTripExpirer;
+import com.example.trip_service.idempotency.TripIdempotencyStore;
+import com.example.trip_service.location.TripLocationTracker;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.example.trip_service.matching.OpenTripIndex;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.notification.TripMessageFanout;
+import com.example.trip_service.notification.TripStatusNotifier;
+import com.example.trip_service.properties.JwtProperties;
+import com.example.trip_service.properties.TripEventProperties;
+import com.example.trip_service.properties.TripExpiryProperties;
+import com.example.trip_service.properties.TripFanoutProperties;
+import com.example.trip_service.properties.TripIdempotencyProperties;
+import com.example.trip_service.properties.TripLocationProperties;
+import com.example.trip_service.properties.TripLogProperties;
+import com.example.trip_service.properties.TripNotifyProperties;
+import com.example.trip_service.properties.UserClientProperties;
+import com.example.trip_service.properties.UserNameCacheProperties;
+import com.example.trip_service.repository.TripRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import javax.crypto.SecretKey;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory stand-ins for Mongo, Kafka and the user service, so the JMH benchmarks measure the
+ * trip service's own per-request cost rather than network round trips. Every properties bean is
+ * bound by {@link TripTestFixtures}, so benchmarks run with the deployed settings.
+ */
+final class BenchmarkFixtures {
+    private BenchmarkFixtures() {
+    }
+
+    static <T> T properties(Class<T> type) {
+        return TripTestFixtures.properties(type);
+    }
+
+    /**
+     * The {@code spring.cloud.openfeign.httpclient} settings that size the auth-service
+     * connection pool.
+     */
+    static FeignHttpClientProperties feignHttpClientProperties() {
+        return Binder.get(TripTestFixtures.environment(Map.of()))
+                .bindOrCreate("spring.cloud.openfeign.httpclient", FeignHttpClientProperties.class);
+    }
+
+    static SecretKey signingKey() {
+        return Keys.hmacShaKeyFor(properties(JwtProperties.class).getSecretKey().getBytes());
+    }
+
+    static String token(String userId) {
+        return Jwts.builder()
+                .claim("userId", userId)
+                .claim("authorities", "ROLE_USER")
+                .setExpiration(new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis()))
+                .signWith(signingKey())
+                .compact();
+    }
+
+    /**
+     * Without Redis the store hands out no-op claims, as in production when Redis is unavailable.
+     */
+    static TripIdempotencyStore tripIdempotencyStore(MeterRegistry meterRegistry) {
+        return new TripIdempotencyStore(properties(TripIdempotencyProperties.class), null, new ObjectMapper(), meterRegistry);
+    }
+
+    /**
+     * Files created trips in its timing wheel as in production. Nothing turns the wheel here, so
+     * once {@code maxScheduled} trips are filed further ones are only counted as deferred.
+     */
+    static PendingTripExpirer pendingTripExpirer(TripRepository tripRepository, TripCache tripCache, OpenTripIndex openTripIndex,
+                                                 TripStatusNotifier tripStatusNotifier, TripLogPipeline tripLogPipeline,
+                                                 TripLocationTracker tripLocationTracker, MeterRegistry meterRegistry) {
+        return new PendingTripExpirer(properties(TripExpiryProperties.class), tripRepository, tripCache, openTripIndex, tripStatusNotifier,
+                tripLogPipeline, tripEventCodecs(), tripLocationTracker, meterRegistry);
+    }
+
+    /**
+     * No location pings reach it here, so status changes find no track to close and it never
+     * writes points or pushes positions.
+     */
+    static TripLocationTracker tripLocationTracker(TripRepository tripRepository, TripCache tripCache, MeterRegistry meterRegistry) {
+        return new TripLocationTracker(properties(TripLocationProperties.class), null, tripCache, tripRepository, null, meterRegistry);
+    }
+
+    static TripEventCodecs tripEventCodecs() {
+        return TripTestFixtures.tripEventCodecs(properties(TripEventProperties.class).getFormat());
+    }
+
+    static UserNameResolver userNameResolver(MeterRegistry meterRegistry) {
+        return new UserNameResolver(stubUserClient(), new UserClientGuard(properties(UserClientProperties.class), meterRegistry),
+                properties(UserNameCacheProperties.class), meterRegistry);
+    }
+
+    static TripStatusNotifier tripStatusNotifier(MeterRegistry meterRegistry) {
+        // no subscribers: the broker channel accepts and discards every frame
+        SimpMessagingTemplate simpMessagingTemplate = new SimpMessagingTemplate(new ExecutorSubscribableChannel());
+        TripMessageFanout fanout = new TripMessageFanout(properties(TripFanoutProperties.class), simpMessagingTemplate, null, null,
+                new ObjectMapper(), meterRegistry);
+        return new TripStatusNotifier(fanout, properties(TripNotifyProperties.class), meterRegistry);
+    }
+
+    /**
+     * A started pipeline whose drainer formats every record and hands it to a producer that
+     * acknowledges immediately and keeps nothing.
+     */
+    static TripLogPipeline tripLogPipeline(MeterRegistry meterRegistry) {
+        DiscardingProducer producer = new DiscardingProducer();
+        TripLogPipeline pipeline = new TripLogPipeline(properties(TripLogProperties.class), new MockProducerFactory<>((transactional, id) -> producer, null), meterRegistry);
+        pipeline.start();
+        return pipeline;
+    }
+
+    static UserClient stubUserClient() {
+        return new UserClient() {
+            @Override
+            public UserDTO getUserInfo() {
+                throw new UnsupportedOperationException("getUserInfo");
+            }
+
+            @Override
+            public UserDriverNameDTO getUserDriverName(String userId, String driverId) {
+                UserDriverNameDTO dto = new UserDriverNameDTO();
+                dto.setUserName("name-" + userId);
+                dto.setDriverName(driverId == null ? null : "name-" + driverId);
+                return dto;
+            }
+        };
+    }
+
+    /**
+     * A {@link TripRepository} over a map that implements the calls {@code TripServiceImpl} makes,
+     * with the same status guards as the Mongo implementation. Stored trips are copied on the way
+     * in and out, as a round trip through the driver would.
+     */
+    static TripRepository inMemoryTripRepository(Map<String, Trip> trips) {
+        return (TripRepository) Proxy.newProxyInstance(TripRepository.class.getClassLoader(), new Class<?>[]{TripRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(trips.get((String) args[0])).map(BenchmarkFixtures::copy);
+                    case "findAllById" -> {
+                        List<Trip> found = new ArrayList<>();
+                        for (Object id : (Iterable<?>) args[0]) {
+                            Trip trip = trips.get((String) id);
+                            if (trip != null) {
+                                found.add(copy(trip));
+                            }
+                        }
+                        yield found;
+                    }
+                    case "save", "insertWithOutbox" -> {
+                        Trip trip = (Trip) args[0];
+                        trips.put(trip.getId(), copy(trip));
+                        yield trip;
+                    }
+                    case "transitionStatus" -> transition(trips, (String) args[0], (TripStatus) args[1]);
+                    case "toString" -> "InMemoryTripRepository";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static Map<String, Trip> newTripStore() {
+        return new ConcurrentHashMap<>();
+    }
+
+    static Trip trip(String id, TripStatus status) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setUserId("user-" + id);
+        trip.setDriverId("driver-" + id);
+        trip.setOrigin("Ben Thanh Market");
+        trip.setDestination("Tan Son Nhat Airport");
+        trip.setStatus(status);
+        return trip;
+    }
+
+    static List<String> ids(String prefix, int count) {
+        return IntStream.range(0, count).mapToObj(i -> prefix + i).toList();
+    }
+
+
+    private static Optional<Trip> transition(Map<String, Trip> trips, String tripId, TripStatus target) {
+        Trip[] updated = new Trip[1];
+        trips.computeIfPresent(tripId, (id, current) -> {
+            if (!target.allowedPredecessors().contains(current.getStatus())) {
+                return current;
+            }
+            Trip next = copy(current);
+            next.setStatus(target);
+            next.setUpdatedAt(Instant.now());
+            updated[0] = next;
+            return next;
+        });
+        return Optional.ofNullable(updated[0]).map(BenchmarkFixtures::copy);
+    }
+
+    private static Trip copy(Trip trip) {
+        Trip copy = new Trip();
+        copy.setId(trip.getId());
+        copy.setUserId(trip.getUserId());
+        copy.setDriverId(trip.getDriverId());
+        copy.setOrigin(trip.getOrigin());
+        copy.setDestination(trip.getDestination());
+        copy.setStatus(trip.getStatus());
+        copy.setPickupLocation(trip.getPickupLocation());
+        copy.setCreatedAt(trip.getCreatedAt());
+        copy.setUpdatedAt(trip.getUpdatedAt());
+        return copy;
+    }
+
+    /**
+     * Completes every send immediately without keeping a history, and survives the
+     * {@code close()} that {@code KafkaTemplate} issues after each non-transactional send.
+     */
+    private static final class DiscardingProducer extends MockProducer<String, String> {
+        DiscardingProducer() {
+            super(true, new StringSerializer(), new StringSerializer());
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+            RecordMetadata metadata = new RecordMetadata(new TopicPartition(record.topic(), 0), 0, 0, 0, 0, 0);
+            if (callback != null) {
+                callback.onCompletion(metadata, null);
+            }
+            return CompletableFuture.completedFuture(metadata);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.example.trip_service.benchmark;
+
+import com.example.trip_service.event.AcceptTripEvent;
+import com.example.trip_service.event.CreateTripEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON cost of the Kafka trip events: a fresh {@link ObjectMapper} per message, as the service
+ * originally did, against the shared Spring mapper and pre-bound readers and writers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ObjectWriter createTripWriter;
+    private ObjectReader acceptTripReader;
+    private CreateTripEvent createTripEvent;
+    private AcceptTripEvent acceptTripEvent;
+    private String acceptTripJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        createTripEvent = new CreateTripEvent();
+        createTripEvent.setTripId("665f1c2e8b3e4a1d2c3b4a59");
+        createTripEvent.setUserId("user1");
+        createTripEvent.setOrigin("Ben Thanh Market");
+        createTripEvent.setDestination("Tan Son Nhat Airport");
+        createTripEvent.setLatitude("10.772");
+        createTripEvent.setLongitude("106.698");
+        acceptTripEvent = new AcceptTripEvent();
+        acceptTripEvent.setTripId("665f1c2e8b3e4a1d2c3b4a59");
+        acceptTripEvent.setDriverId("driver1");
+        acceptTripJson = objectMapper.writeValueAsString(acceptTripEvent);
+        createTripWriter = objectMapper.writerFor(CreateTripEvent.class);
+        acceptTripReader = objectMapper.readerFor(AcceptTripEvent.class);
+    }
+
+    @Benchmark
+    public String createTripNewMapper() throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsString(createTripEvent);
+    }
+
+    @Benchmark
+    public String createTripSharedMapper() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(createTripEvent);
+    }
+
+    @Benchmark
+    public String createTripBoundWriter() throws JsonProcessingException {
+        return createTripWriter.writeValueAsString(createTripEvent);
+    }
+
+    @Benchmark
+    public String acceptTripWrite() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(acceptTripEvent);
+    }
+
+    @Benchmark
+    public AcceptTripEvent acceptTripReadNewMapper() throws JsonProcessingException {
+        return new ObjectMapper().readValue(acceptTripJson, AcceptTripEvent.class);
+    }
+
+    @Benchmark
+    public AcceptTripEvent acceptTripBoundReader() throws JsonProcessingException {
+        return acceptTripReader.readValue(acceptTripJson);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.trip_service.benchmark;
+
+import com.example.trip_service.config.JwtTokenVerifier;
+import com.example.trip_service.properties.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import javax.crypto.SecretKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token in {@code SecurityContextFilter}: the original
+ * build-the-key-and-parser-every-time path, a parser built once, and {@link JwtTokenVerifier} with
+ * its verified-token cache warm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+    private String secret;
+    private String token;
+    private JwtParser sharedParser;
+    private JwtTokenVerifier verifier;
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = BenchmarkFixtures.properties(JwtProperties.class);
+        secret = properties.getSecretKey();
+        token = BenchmarkFixtures.token("user1");
+        sharedParser = Jwts.parserBuilder()
+                .setSigningKey(BenchmarkFixtures.signingKey())
+                .build();
+        verifier = new JwtTokenVerifier(properties, new SimpleMeterRegistry());
+        verifier.verify(token);
+    }
+
+    @Benchmark
+    public Authentication parserPerRequest() {
+        SecretKey secretKey = Keys.hmacShaKeyFor(secret.getBytes());
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return authentication(claims);
+    }
+
+    @Benchmark
+    public Authentication sharedParser() {
+        return authentication(sharedParser.parseClaimsJws(token).getBody());
+    }
+
+    @Benchmark
+    public Authentication cachedVerifier() {
+        return verifier.verify(token);
+    }
+
+    private Authentication authentication(Claims claims) {
+        String userId = String.valueOf(claims.get("userId"));
+        String authorities = String.valueOf(claims.get("authorities"));
+        return new UsernamePasswordAuthenticationToken(userId, token, AuthorityUtils.commaSeparatedStringToAuthorityList(authorities));
+    }
+}
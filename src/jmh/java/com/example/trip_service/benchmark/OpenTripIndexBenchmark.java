@@ -0,0 +1,92 @@
+package com.example.trip_service.benchmark;
+
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.matching.OpenTripIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearest-open-trip lookups against {@link OpenTripIndex} with {@code openTrips} trips spread
+ * over a 45 km square around Ho Chi Minh City. {@code mixed} runs three matching threads
+ * against one thread that keeps creating and closing trips, to show the cost of the stripe locks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenTripIndexBenchmark {
+    private static final double MIN_LATITUDE = 10.60;
+    private static final double MIN_LONGITUDE = 106.50;
+    private static final double SPAN_DEGREES = 0.40;
+
+    @Param({"100000"})
+    private int openTrips;
+    @Param({"3000"})
+    private double radiusMeters;
+
+    private OpenTripIndex index;
+    private String[] churnIds;
+
+    @State(Scope.Thread)
+    public static class Driver {
+        private final SplittableRandom random = new SplittableRandom();
+        private final String[] tripIds = new String[10];
+        private final double[] distances = new double[10];
+        private int churn;
+    }
+
+    @Setup
+    public void setUp() {
+        index = TripTestFixtures.openTripIndex(new SimpleMeterRegistry());
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < openTrips; i++) {
+            index.put("trip-" + i, MIN_LATITUDE + random.nextDouble() * SPAN_DEGREES, MIN_LONGITUDE + random.nextDouble() * SPAN_DEGREES);
+        }
+        churnIds = BenchmarkFixtures.ids("churn-", 4096).toArray(new String[0]);
+    }
+
+    @Benchmark
+    public int nearest(Driver driver) {
+        return lookup(driver);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public int mixedNearest(Driver driver) {
+        return lookup(driver);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedChurn(Driver driver) {
+        String tripId = churnIds[driver.churn];
+        driver.churn = (driver.churn + 1) & (churnIds.length - 1);
+        index.put(tripId, MIN_LATITUDE + driver.random.nextDouble() * SPAN_DEGREES, MIN_LONGITUDE + driver.random.nextDouble() * SPAN_DEGREES);
+        index.remove(churnIds[driver.churn]);
+    }
+
+    private int lookup(Driver driver) {
+        double latitude = MIN_LATITUDE + driver.random.nextDouble() * SPAN_DEGREES;
+        double longitude = MIN_LONGITUDE + driver.random.nextDouble() * SPAN_DEGREES;
+        return index.nearest(latitude, longitude, radiusMeters, driver.tripIds, driver.distances);
+    }
+}
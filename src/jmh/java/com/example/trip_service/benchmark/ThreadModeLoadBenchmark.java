@@ -0,0 +1,104 @@
+package com.example.trip_service.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load comparison of platform-thread, virtual-thread and reactive request execution against a
+ * running instance. Each concurrent caller holds one HTTP/1.1 connection and sends requests back
+ * to back for the given number of seconds. Run it once against the default build, once against
+ * {@code -Pjava21} with {@code --spring.profiles.active=virtual-threads} and once with
+ * {@code --spring.profiles.active=reactive}, on the same hardware and at the same concurrency:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=com.example.trip_service.benchmark.ThreadModeLoadBenchmark \
+ *     -Dexec.args="http://localhost:3032/api/trips/TRIP_ID/status JWT 1000 30"
+ * </pre>
+ */
+public class ThreadModeLoadBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        http(args[0], args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+    }
+
+    private static void http(String url, String token, int concurrency, int seconds) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).header("Authorization", "Bearer " + token).GET().build();
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(concurrency);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        int capacity = 1 << 22;
+        long[] latencies = new long[capacity];
+        AtomicInteger recorded = new AtomicInteger();
+        LongAdder errors = new LongAdder();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.increment();
+                            }
+                        } catch (Exception e) {
+                            errors.increment();
+                        }
+                        int slot = recorded.getAndIncrement();
+                        if (slot < capacity) {
+                            latencies[slot] = System.nanoTime() - sent;
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        int count = Math.min(recorded.get(), capacity);
+        report("http " + url, new Result(Arrays.copyOf(latencies, count), elapsed, errors.sum()), count);
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static void report(String label, Result result, int requests) {
+        long[] sorted = result.latencies().clone();
+        Arrays.sort(sorted);
+        double seconds = result.elapsedNanos() / 1e9;
+        System.out.printf("%-24s requests=%d throughput=%.0f/s p50=%.1fms p99=%.1fms max=%.1fms errors=%d%n",
+                label, requests, requests / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6,
+                result.errors());
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+
+    private record Result(long[] latencies, long elapsedNanos, long errors) {
+    }
+}
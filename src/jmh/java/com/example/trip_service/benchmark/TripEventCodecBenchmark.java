@@ -0,0 +1,102 @@
+package com.example.trip_service.benchmark;
+
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.codec.EncodedTripEvent;
+import com.example.trip_service.codec.TripEventCodecs;
+import com.example.trip_service.event.AcceptTripEvent;
+import com.example.trip_service.event.CreateTripEvent;
+import com.example.trip_service.event.DriverLocationEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of the trip events through {@link TripEventCodecs}, as the outbox and
+ * the listeners use them, for each {@code trip.events.format}. The encoded size of each event is
+ * printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TripEventCodecBenchmark {
+    @Param({"json", "binary"})
+    private String format;
+
+    private TripEventCodecs codecs;
+    private CreateTripEvent createTripEvent;
+    private DriverLocationEvent driverLocationEvent;
+    private Headers headers;
+    private byte[] createTripPayload;
+    private byte[] acceptTripPayload;
+    private byte[] driverLocationPayload;
+
+    @Setup
+    public void setUp() {
+        codecs = TripTestFixtures.tripEventCodecs(format);
+        createTripEvent = new CreateTripEvent();
+        createTripEvent.setTripId("665f1c2e8b3e4a1d2c3b4a59");
+        createTripEvent.setUserId("665f1c2e8b3e4a1d2c3b4a5a");
+        createTripEvent.setOrigin("Ben Thanh Market");
+        createTripEvent.setDestination("Tan Son Nhat Airport");
+        createTripEvent.setLatitude("10.772");
+        createTripEvent.setLongitude("106.698");
+        AcceptTripEvent acceptTripEvent = new AcceptTripEvent();
+        acceptTripEvent.setTripId("665f1c2e8b3e4a1d2c3b4a59");
+        acceptTripEvent.setDriverId("665f1c2e8b3e4a1d2c3b4a5b");
+        driverLocationEvent = new DriverLocationEvent();
+        driverLocationEvent.setTripId("665f1c2e8b3e4a1d2c3b4a59");
+        driverLocationEvent.setDriverId("665f1c2e8b3e4a1d2c3b4a5b");
+        driverLocationEvent.setLatitude(10.7769);
+        driverLocationEvent.setLongitude(106.7009);
+        driverLocationEvent.setRecordedAt(1_718_000_000_000L);
+
+        EncodedTripEvent createTrip = codecs.encode(createTripEvent);
+        headers = new RecordHeaders();
+        TripEventCodecs.addHeaders(headers, createTrip.format(), createTrip.version());
+        createTripPayload = createTrip.payload();
+        acceptTripPayload = codecs.encode(acceptTripEvent).payload();
+        driverLocationPayload = codecs.encode(driverLocationEvent).payload();
+        System.out.printf("%n%s: CreateTripEvent %d bytes, AcceptTripEvent %d bytes, DriverLocationEvent %d bytes%n",
+                format, createTripPayload.length, acceptTripPayload.length, driverLocationPayload.length);
+    }
+
+    @Benchmark
+    public byte[] createTripEncode() {
+        return codecs.encode(createTripEvent).payload();
+    }
+
+    @Benchmark
+    public CreateTripEvent createTripDecode() {
+        return codecs.decode(headers, createTripPayload, CreateTripEvent.class);
+    }
+
+    @Benchmark
+    public AcceptTripEvent acceptTripDecode() {
+        return codecs.decode(headers, acceptTripPayload, AcceptTripEvent.class);
+    }
+
+    @Benchmark
+    public byte[] driverLocationEncode() {
+        return codecs.encode(driverLocationEvent).payload();
+    }
+
+    @Benchmark
+    public DriverLocationEvent driverLocationDecode() {
+        return codecs.decode(headers, driverLocationPayload, DriverLocationEvent.class);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.trip_service.benchmark;
+
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.logging.TripLogEvent;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-thread cost of one trip log line: the original {@code logToKafka} formatting (a new
+ * {@link ObjectMapper}, {@code String.format} and {@link Instant#toString()} per call, before the
+ * send) against {@link TripLogPipeline#log}, whose drainer runs against an in-memory producer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TripLogBenchmark {
+    private static final String TRIP_ID = "665f1c2e8b3e4a1d2c3b4a59";
+
+    private TripLogPipeline pipeline;
+
+    @Setup
+    public void setUp() {
+        pipeline = BenchmarkFixtures.tripLogPipeline(new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        pipeline.stop();
+    }
+
+    @Benchmark
+    public String logToKafkaFormatting() {
+        String message = String.format("Trip status updated: id=%s status=%s", TRIP_ID, TripStatus.ACCEPTED);
+        return String.format("{\"message\":%s, \"service_name\":\"driver-service\", \"timestamp\":\"%s\"}",
+                new ObjectMapper().valueToTree(message).toString(),
+                Instant.now().toString());
+    }
+
+    @Benchmark
+    public void pipelineLog() {
+        pipeline.log(TripLogEvent.TRIP_STATUS_UPDATED, TRIP_ID, TripStatus.ACCEPTED);
+    }
+}
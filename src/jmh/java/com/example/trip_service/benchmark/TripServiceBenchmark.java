@@ -0,0 +1,152 @@
+package com.example.trip_service.benchmark;
+
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.cache.TripCache;
+import com.example.trip_service.location.TripLocationTracker;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.example.trip_service.matching.OpenTripIndex;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.notification.TripStatusNotifier;
+import com.example.trip_service.properties.TripHistoryProperties;
+import com.example.trip_service.properties.TripNearbyProperties;
+import com.example.trip_service.properties.TripStatusBatchProperties;
+import com.example.trip_service.repository.TripRepository;
+import com.example.trip_service.request.TripRequest;
+import com.example.trip_service.response.CreateTripResponse;
+import com.example.trip_service.response.TripResponse;
+import com.example.trip_service.service.TripServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TripServiceImpl} end to end over the in-memory stand-ins in {@link BenchmarkFixtures}:
+ * a map-backed repository, a discarding Kafka producer behind the log pipeline and a stub user
+ * service. Reads cycle over {@code trips} ids so the near cache sees a realistic working set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TripServiceBenchmark {
+    @Param({"1000"})
+    private int trips;
+
+    private Map<String, Trip> store;
+    private TripStatusNotifier notifier;
+    private TripLogPipeline pipeline;
+    private TripServiceImpl tripService;
+    private List<String> tripIds;
+    private TripRequest tripRequest;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        store = BenchmarkFixtures.newTripStore();
+        notifier = BenchmarkFixtures.tripStatusNotifier(meterRegistry);
+        pipeline = BenchmarkFixtures.tripLogPipeline(meterRegistry);
+        TripRepository repository = BenchmarkFixtures.inMemoryTripRepository(store);
+        TripCache tripCache = TripTestFixtures.nearOnlyTripCache(meterRegistry);
+        OpenTripIndex openTripIndex = TripTestFixtures.openTripIndex(meterRegistry);
+        TripLocationTracker tripLocationTracker = BenchmarkFixtures.tripLocationTracker(repository, tripCache, meterRegistry);
+        tripService = new TripServiceImpl(repository, BenchmarkFixtures.tripEventCodecs(),
+                BenchmarkFixtures.userNameResolver(meterRegistry), tripCache,
+                notifier, pipeline, BenchmarkFixtures.properties(TripNearbyProperties.class),
+                openTripIndex, BenchmarkFixtures.properties(TripHistoryProperties.class),
+                BenchmarkFixtures.properties(TripStatusBatchProperties.class), BenchmarkFixtures.tripIdempotencyStore(meterRegistry),
+                BenchmarkFixtures.pendingTripExpirer(repository, tripCache, openTripIndex, notifier, pipeline, tripLocationTracker, meterRegistry),
+                tripLocationTracker);
+        tripRequest = new TripRequest();
+        tripRequest.setUserId("user1");
+        tripRequest.setOrigin("Ben Thanh Market");
+        tripRequest.setDestination("Tan Son Nhat Airport");
+        tripRequest.setLatitude("10.772");
+        tripRequest.setLongitude("106.698");
+        tripIds = BenchmarkFixtures.ids("trip-", trips);
+        resetTrips();
+    }
+
+    @TearDown(Level.Iteration)
+    public void afterIteration() {
+        notifier.flush();
+        resetTrips();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        pipeline.stop();
+    }
+
+    private void resetTrips() {
+        store.clear();
+        tripIds.forEach(id -> store.put(id, BenchmarkFixtures.trip(id, TripStatus.PENDING)));
+    }
+
+    private String nextTripId() {
+        String tripId = tripIds.get(next);
+        next = next + 1 == tripIds.size() ? 0 : next + 1;
+        return tripId;
+    }
+
+    private List<String> nextTripIds(int count) {
+        int from = next % (tripIds.size() - count);
+        next = from + count;
+        return tripIds.subList(from, from + count);
+    }
+
+    @Benchmark
+    public CreateTripResponse createTrip() {
+        return tripService.createTrip(tripRequest, "user1", null);
+    }
+
+    @Benchmark
+    public String getTripStatus() {
+        return tripService.getTripStatus(nextTripId());
+    }
+
+    /**
+     * Fifty statuses through the batch call, to compare with fifty {@link #getTripStatus} calls.
+     */
+    @Benchmark
+    public Map<String, String> getTripStatuses50() {
+        return tripService.getTripStatuses(nextTripIds(50));
+    }
+
+    @Benchmark
+    public TripResponse getTripDetails() {
+        return tripService.getTripDetails(nextTripId());
+    }
+
+    /**
+     * One full lifecycle, three guarded transitions, then the trip is put back to PENDING
+     * directly in the store so the next pass can repeat it.
+     */
+    @Benchmark
+    public String updateTripStatusLifecycle() {
+        String tripId = nextTripId();
+        tripService.updateTripStatus(tripId, TripStatus.ACCEPTED);
+        tripService.updateTripStatus(tripId, TripStatus.IN_PROGRESS);
+        String result = tripService.updateTripStatus(tripId, TripStatus.COMPLETED);
+        store.put(tripId, BenchmarkFixtures.trip(tripId, TripStatus.PENDING));
+        return result;
+    }
+}
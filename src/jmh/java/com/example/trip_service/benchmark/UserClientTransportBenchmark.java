@@ -0,0 +1,162 @@
+package com.example.trip_service.benchmark;
+
+import com.example.trip_service.DTO.UserDriverNameDTO;
+import com.example.trip_service.client.UserClient;
+import com.example.trip_service.config.FeignConfig;
+import com.example.trip_service.properties.UserClientProperties;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Feign;
+import feign.Retryer;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput of {@code UserClient.getUserDriverName} against a stub auth-service on loopback,
+ * with 16 callers, for each Feign transport:
+ * <ul>
+ *     <li>{@code default}: Feign's {@code HttpURLConnection} client, whose JDK keep-alive cache
+ *     holds 5 idle connections per host, so most concurrent calls open a new one</li>
+ *     <li>{@code hc5}: Apache HttpClient 5 with the {@code spring.cloud.openfeign.httpclient} pool
+ *     sizes bound from {@code application.properties} and the service's own keep-alive and idle
+ *     eviction customizer</li>
+ *     <li>{@code http2}: the JDK {@code HttpClient}, which negotiates HTTP/2 where auth-service
+ *     supports it and pools HTTP/1.1 connections otherwise</li>
+ * </ul>
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.include=UserClientTransportBenchmark
+ * </pre>
+ * Each trial prints how many connections the stub accepted for how many calls. Loopback
+ * connects are cheap, so on a real network the gap from reusing connections grows with the
+ * round trip time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class UserClientTransportBenchmark {
+    private static final byte[] NAMES = "{\"userName\":\"Rider\",\"driverName\":\"Driver\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"default", "hc5", "http2"})
+    public String transport;
+
+    private HttpServer authService;
+    private ExecutorService authServiceThreads;
+    private CloseableHttpClient httpClient;
+    private UserClient userClient;
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+    private final LongAdder calls = new LongAdder();
+
+    @Setup
+    public void setUp() throws IOException {
+        // without it the stub's small responses wait out delayed ACKs and every transport measures 40ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        authServiceThreads = Executors.newFixedThreadPool(32);
+        authService = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        authService.createContext("/api/users/", exchange -> {
+            try (InputStream body = exchange.getRequestBody(); OutputStream out = exchange.getResponseBody()) {
+                body.readAllBytes();
+                connections.add(exchange.getRemoteAddress());
+                calls.increment();
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, NAMES.length);
+                out.write(NAMES);
+            }
+        });
+        authService.setExecutor(authServiceThreads);
+        authService.start();
+
+        UserClientProperties properties = BenchmarkFixtures.properties(UserClientProperties.class);
+        FeignConfig feignConfig = new FeignConfig();
+        HttpMessageConverters messageConverters = new HttpMessageConverters(new MappingJackson2HttpMessageConverter());
+        ObjectFactory<HttpMessageConverters> converters = () -> messageConverters;
+        userClient = Feign.builder()
+                .client(client(feignConfig, properties))
+                .contract(new SpringMvcContract())
+                .encoder(new SpringEncoder(converters))
+                .decoder(new ResponseEntityDecoder(new SpringDecoder(converters)))
+                .options(feignConfig.userClientOptions(properties))
+                .retryer(Retryer.NEVER_RETRY)
+                .target(UserClient.class, "http://127.0.0.1:" + authService.getAddress().getPort() + "/api/users");
+    }
+
+    private Client client(FeignConfig feignConfig, UserClientProperties properties) {
+        switch (transport) {
+            case "hc5" -> {
+                FeignHttpClientProperties pool = BenchmarkFixtures.feignHttpClientProperties();
+                HttpClientBuilder builder = HttpClients.custom()
+                        .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                                .setMaxConnTotal(pool.getMaxConnections())
+                                .setMaxConnPerRoute(pool.getMaxConnectionsPerRoute())
+                                .build())
+                        .disableCookieManagement()
+                        .evictExpiredConnections();
+                feignConfig.userClientPoolCustomizer(properties).customize(builder);
+                httpClient = builder.build();
+                return new ApacheHttp5Client(httpClient);
+            }
+            case "http2" -> {
+                return new Http2Client();
+            }
+            default -> {
+                return new Client.Default(null, null);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.out.printf("%n%s: %d connections for %d calls%n", transport, connections.size(), calls.sum());
+        if (httpClient != null) {
+            httpClient.close();
+        }
+        authService.stop(0);
+        authServiceThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public UserDriverNameDTO getUserDriverName() {
+        return userClient.getUserDriverName("user1", "driver1");
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.trip_service.DTO;
+
+import com.example.trip_service.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position after the last trip of a history page: its {@code createdAt} and id, the sort key of
+ * the listing. Clients get it as an opaque URL-safe token. {@code createdAt} is null for trips
+ * stored before the field existed, which sort after all others.
+ */
+public record TripHistoryCursor(Instant createdAt, String id) {
+    public String encode() {
+        String raw = (createdAt == null ? "" : String.valueOf(createdAt.toEpochMilli())) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TripHistoryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            String millis = raw.substring(0, separator);
+            String id = raw.substring(separator + 1);
+            if (id.isEmpty()) {
+                throw new InvalidCursorException(token);
+            }
+            return new TripHistoryCursor(millis.isEmpty() ? null : Instant.ofEpochMilli(Long.parseLong(millis)), id);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException(token);
+        }
+    }
+}
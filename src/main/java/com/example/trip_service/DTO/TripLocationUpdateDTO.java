@@ -0,0 +1,12 @@
+package com.example.trip_service.DTO;
+
+import lombok.Data;
+
+@Data
+public class TripLocationUpdateDTO {
+    private String tripId;
+    private String driverId;
+    private double latitude;
+    private double longitude;
+    private long timestamp;
+}
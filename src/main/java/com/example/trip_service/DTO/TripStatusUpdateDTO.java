@@ -0,0 +1,12 @@
+package com.example.trip_service.DTO;
+
+import lombok.Data;
+
+@Data
+public class TripStatusUpdateDTO {
+    private String tripId;
+    private String userId;
+    private String driverId;
+    private String status;
+    private long timestamp;
+}
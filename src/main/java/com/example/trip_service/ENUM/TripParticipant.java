@@ -0,0 +1,19 @@
+package com.example.trip_service.ENUM;
+
+/**
+ * Side of a trip a history listing is for, with the {@code Trip} field that identifies it.
+ */
+public enum TripParticipant {
+    USER("userId"),
+    DRIVER("driverId");
+
+    private final String field;
+
+    TripParticipant(String field) {
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+}
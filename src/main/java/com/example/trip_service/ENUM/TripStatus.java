@@ -1,9 +1,52 @@
 package com.example.trip_service.ENUM;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum TripStatus {
     PENDING,
     ACCEPTED,
     IN_PROGRESS,
     COMPLETED,
-    CANCELLED
+    CANCELLED;
+
+    private Set<TripStatus> next;
+    private Set<TripStatus> previous;
+
+    static {
+        PENDING.next = EnumSet.of(ACCEPTED, CANCELLED);
+        ACCEPTED.next = EnumSet.of(IN_PROGRESS, CANCELLED);
+        IN_PROGRESS.next = EnumSet.of(COMPLETED, CANCELLED);
+        COMPLETED.next = EnumSet.noneOf(TripStatus.class);
+        CANCELLED.next = EnumSet.noneOf(TripStatus.class);
+
+        for (TripStatus status : values()) {
+            status.previous = EnumSet.noneOf(TripStatus.class);
+        }
+        for (TripStatus status : values()) {
+            for (TripStatus target : status.next) {
+                target.previous.add(status);
+            }
+        }
+        for (TripStatus status : values()) {
+            status.next = Collections.unmodifiableSet(status.next);
+            status.previous = Collections.unmodifiableSet(status.previous);
+        }
+    }
+
+    public boolean canTransitionTo(TripStatus target) {
+        return next.contains(target);
+    }
+
+    /**
+     * The statuses a trip may be in for a transition to this status to be legal.
+     */
+    public Set<TripStatus> allowedPredecessors() {
+        return previous;
+    }
+
+    public boolean isTerminal() {
+        return next.isEmpty();
+    }
 }
@@ -0,0 +1,129 @@
+package com.example.trip_service.admission;
+
+import com.example.trip_service.properties.TripAdmissionProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the trip API requests in flight. Every {@code trip.admission.sample-interval-ms} the mean
+ * latency of Mongo commands, Kafka sends and auth-service calls over the interval is read from
+ * their Micrometer timers. When any of them is above its threshold the limit is cut by
+ * {@code trip.admission.backoff-ratio}, otherwise it grows by {@code trip.admission.increase-step},
+ * within {@code trip.admission.min-limit} and {@code trip.admission.max-limit}.
+ * <p>
+ * Low and normal priority requests may only use their share of the limit, so as it shrinks
+ * listings and exports are refused first and trip creation and status changes last.
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyLimiter {
+    private final MeterRegistry meterRegistry;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int increaseStep;
+    private final double backoffRatio;
+    private final Map<RequestPriority, Double> shares = new EnumMap<>(RequestPriority.class);
+    private final Map<String, Dependency> dependencies = new LinkedHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    public AdaptiveConcurrencyLimiter(TripAdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.minLimit = Math.max(1, properties.getMinLimit());
+        this.maxLimit = Math.max(minLimit, properties.getMaxLimit());
+        this.increaseStep = Math.max(1, properties.getIncreaseStep());
+        this.backoffRatio = properties.getBackoffRatio();
+        this.limit = Math.min(maxLimit, Math.max(minLimit, properties.getInitialLimit()));
+        shares.put(RequestPriority.LOW, properties.getLowPriorityShare());
+        shares.put(RequestPriority.NORMAL, properties.getNormalPriorityShare());
+        shares.put(RequestPriority.CRITICAL, 1.0);
+        dependencies.put("mongodb.driver.commands", new Dependency(properties.getMongoLatencyThresholdMs()));
+        dependencies.put("spring.kafka.template", new Dependency(properties.getKafkaLatencyThresholdMs()));
+        dependencies.put("http.client.requests", new Dependency(properties.getAuthServiceLatencyThresholdMs()));
+        meterRegistry.gauge("trip.admission.limit", this, AdaptiveConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("trip.admission.in-flight", inFlight);
+    }
+
+    /**
+     * Takes a slot for a request of {@code priority}; a caller that gets true must
+     * {@link #release()} it.
+     */
+    public boolean tryAcquire(RequestPriority priority) {
+        int allowed = Math.max(1, (int) Math.ceil(limit * shares.get(priority)));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Scheduled(fixedDelayString = "${trip.admission.sample-interval-ms:1000}")
+    public void adjust() {
+        String slow = null;
+        for (Map.Entry<String, Dependency> entry : dependencies.entrySet()) {
+            if (entry.getValue().sample(meterRegistry.find(entry.getKey()).timers()) && slow == null) {
+                slow = entry.getKey();
+            }
+        }
+        int previous = limit;
+        if (slow != null) {
+            limit = Math.max(minLimit, (int) (previous * backoffRatio));
+            if (limit != previous) {
+                log.info("Lowering trip API concurrency limit to {}, {} is slow", limit, slow);
+            }
+        } else {
+            limit = Math.min(maxLimit, previous + increaseStep);
+        }
+    }
+
+    /**
+     * The cumulative count and total time of a dependency's timers at the previous sample.
+     */
+    private static final class Dependency {
+        private final double thresholdMs;
+        private long count;
+        private double totalMs;
+
+        Dependency(double thresholdMs) {
+            this.thresholdMs = thresholdMs;
+        }
+
+        /**
+         * Returns true when calls completed since the previous sample averaged above the threshold.
+         */
+        boolean sample(Iterable<Timer> timers) {
+            long sampleCount = 0;
+            double sampleTotalMs = 0;
+            for (Timer timer : timers) {
+                sampleCount += timer.count();
+                sampleTotalMs += timer.totalTime(TimeUnit.MILLISECONDS);
+            }
+            long calls = sampleCount - count;
+            double spentMs = sampleTotalMs - totalMs;
+            count = sampleCount;
+            totalMs = sampleTotalMs;
+            return calls > 0 && spentMs / calls > thresholdMs;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.trip_service.admission;
+
+import com.example.trip_service.properties.TripAdmissionProperties;
+import com.example.trip_service.properties.TripRateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Admits trip API requests after {@code SecurityContextFilter} has identified the caller. A user
+ * over their {@link UserRateLimiter} budget gets {@code 429}, and a request beyond its priority's
+ * share of the {@link AdaptiveConcurrencyLimiter} limit gets {@code 503}, both with
+ * {@code Retry-After}. A streamed export holds its slot only until the response is handed to
+ * the async writer.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private static final String API_PREFIX = "/api/";
+
+    private final UserRateLimiter userRateLimiter;
+    private final AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter;
+    private final boolean rateLimitEnabled;
+    private final boolean admissionEnabled;
+    private final Counter rateLimited;
+    private final Map<RequestPriority, Counter> shed = new EnumMap<>(RequestPriority.class);
+
+    public AdmissionControlFilter(UserRateLimiter userRateLimiter, AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter,
+                                  TripRateLimitProperties rateLimitProperties, TripAdmissionProperties admissionProperties,
+                                  MeterRegistry meterRegistry) {
+        this.userRateLimiter = userRateLimiter;
+        this.adaptiveConcurrencyLimiter = adaptiveConcurrencyLimiter;
+        this.rateLimitEnabled = rateLimitProperties.isEnabled();
+        this.admissionEnabled = admissionProperties.isEnabled();
+        this.rateLimited = meterRegistry.counter("trip.admission.rejected", "reason", "rate_limited", "priority", "any");
+        for (RequestPriority priority : RequestPriority.values()) {
+            shed.put(priority, meterRegistry.counter("trip.admission.rejected", "reason", "shed", "priority", priority.name()));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getServletPath().startsWith(API_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (rateLimitEnabled && authentication != null && !userRateLimiter.tryAcquire(authentication.getName())) {
+            rateLimited.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, userRateLimiter.retryAfterSeconds());
+            return;
+        }
+        if (!admissionEnabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestPriority priority = RequestPriority.of(request.getMethod(), request.getServletPath());
+        if (!adaptiveConcurrencyLimiter.tryAcquire(priority)) {
+            shed.get(priority).increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            adaptiveConcurrencyLimiter.release();
+        }
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.sendError(status.value());
+    }
+}
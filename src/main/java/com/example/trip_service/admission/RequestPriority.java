@@ -0,0 +1,36 @@
+package com.example.trip_service.admission;
+
+import java.util.Set;
+
+/**
+ * How important a trip API call is to keep serving under load. Creating a trip and moving it
+ * through its lifecycle come first, single-trip reads next, and listings, searches, batch
+ * lookups and exports are shed first.
+ */
+public enum RequestPriority {
+    LOW,
+    NORMAL,
+    CRITICAL;
+
+    private static final String TRIPS = "/api/trips";
+    private static final Set<String> COLLECTION_PATHS = Set.of("nearby", "nearest", "export", "users", "drivers", "status");
+
+    static RequestPriority of(String method, String path) {
+        if (!path.startsWith(TRIPS)) {
+            return NORMAL;
+        }
+        String[] segments = path.substring(TRIPS.length()).split("/");
+        return switch (method) {
+            case "POST" -> segments.length <= 1 ? CRITICAL : LOW;
+            case "PUT" -> CRITICAL;
+            case "GET" -> isSingleTrip(segments) ? NORMAL : LOW;
+            default -> NORMAL;
+        };
+    }
+
+    // "/{tripId}" or "/{tripId}/status"
+    private static boolean isSingleTrip(String[] segments) {
+        return segments.length >= 2 && segments.length <= 3 && !COLLECTION_PATHS.contains(segments[1])
+                && (segments.length == 2 || "status".equals(segments[2]));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.trip_service.admission;
+
+import com.example.trip_service.properties.TripRateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket per user: {@code trip.rate-limit.burst} requests at once, refilled at
+ * {@code trip.rate-limit.requests-per-second}. Buckets live in a fixed number of lock stripes so
+ * unrelated users rarely contend, and full buckets are swept so memory follows the number of
+ * recently active users.
+ * <p>
+ * With {@code trip.rate-limit.mode=redis} the bucket is kept in Redis and updated by one script
+ * call, so a user gets the same budget however requests are spread over instances. When Redis
+ * cannot be reached the local bucket is used instead.
+ */
+@Slf4j
+@Component
+public class UserRateLimiter {
+    private static final String KEY_PREFIX = "trip-rate:";
+    private static final RedisScript<Long> TAKE_TOKEN = new DefaultRedisScript<>("""
+            local rate = tonumber(ARGV[1])
+            local capacity = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'at')
+            local tokens = tonumber(state[1]) or capacity
+            local at = tonumber(state[2]) or now
+            tokens = math.min(capacity, tokens + math.max(0, now - at) * rate / 1000)
+            local taken = 0
+            if tokens >= 1 then
+                tokens = tokens - 1
+                taken = 1
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'at', now)
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate * 1000) + 1000)
+            return taken
+            """, Long.class);
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private final Stripe[] stripes;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final List<String> rateArgs;
+
+    public UserRateLimiter(TripRateLimitProperties properties, @Nullable StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry) {
+        this.tokensPerNano = properties.getRequestsPerSecond() / 1_000_000_000d;
+        this.capacity = Math.max(1, properties.getBurst());
+        int stripeCount = Integer.highestOneBit(Math.max(1, properties.getStripes() - 1) << 1);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stringRedisTemplate = properties.isRedis() ? stringRedisTemplate : null;
+        this.rateArgs = List.of(String.valueOf(properties.getRequestsPerSecond()), String.valueOf(capacity));
+        meterRegistry.gauge("trip.rate-limit.buckets", this, UserRateLimiter::bucketCount);
+    }
+
+    public boolean tryAcquire(String userId) {
+        if (stringRedisTemplate != null) {
+            try {
+                Long taken = stringRedisTemplate.execute(TAKE_TOKEN, List.of(KEY_PREFIX + userId), rateArgs.toArray());
+                return taken != null && taken == 1;
+            } catch (RuntimeException e) {
+                log.debug("Rate limiting user {} locally, Redis is unavailable", userId, e);
+            }
+        }
+        return tryAcquire(userId, System.nanoTime());
+    }
+
+    boolean tryAcquire(String userId, long now) {
+        Stripe stripe = stripes[mix(userId.hashCode()) & (stripes.length - 1)];
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.computeIfAbsent(userId, id -> new Bucket(capacity, now));
+            bucket.refill(now, tokensPerNano, capacity);
+            if (bucket.tokens < 1) {
+                return false;
+            }
+            bucket.tokens--;
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Seconds until a limited user has a token again.
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(1 / (tokensPerNano * 1_000_000_000d)));
+    }
+
+    /**
+     * Drops the buckets that have refilled completely; a new bucket starts full, so they are
+     * indistinguishable from no bucket at all.
+     */
+    @Scheduled(fixedDelayString = "${trip.rate-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Bucket> buckets = stripe.buckets.values().iterator();
+                while (buckets.hasNext()) {
+                    Bucket bucket = buckets.next();
+                    bucket.refill(now, tokensPerNano, capacity);
+                    if (bucket.tokens >= capacity) {
+                        buckets.remove();
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    int bucketCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                count += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, Bucket> buckets = new HashMap<>();
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long refilledAt;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        void refill(long now, double tokensPerNano, double capacity) {
+            if (now > refilledAt) {
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+                refilledAt = now;
+            }
+        }
+    }
+}
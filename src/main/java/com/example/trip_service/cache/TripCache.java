@@ -0,0 +1,324 @@
+package com.example.trip_service.cache;
+
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.properties.TripCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Two-tier read-through cache for {@link Trip} documents: a per-instance Caffeine near cache in
+ * front of Redis. Writers must call {@link #put(Trip)} or {@link #evict(String)} after every
+ * persisted change; the change is broadcast on {@link #INVALIDATION_CHANNEL} so other instances
+ * drop their near copy. Cached instances are shared and must be treated as read-only.
+ * <p>
+ * A reader can load a trip just before a writer changes it, so fills never overwrite a change
+ * made after the read began: Redis is filled with {@code SET NX} while writers overwrite, and a
+ * near fill is dropped when the trip was put or invalidated since the reader took its
+ * {@link #generation()}.
+ * <p>
+ * Writers are not ordered either: two transitions of one trip can reach {@link #put(Trip)} in
+ * the opposite order to their writes. Both tiers therefore keep the trip with the later
+ * {@code updatedAt}; Redis tracks it under a companion key that one script compares and sets
+ * together with the trip.
+ */
+@Slf4j
+@Component
+public class TripCache implements MessageListener {
+    public static final String INVALIDATION_CHANNEL = "trip-cache:invalidate";
+    private static final String KEY_PREFIX = "trip:";
+    private static final String UPDATED_AT_PREFIX = "trip-updated:";
+    private static final RedisScript<Long> PUT_IF_NEWER = new DefaultRedisScript<>("""
+            local current = tonumber(redis.call('GET', KEYS[2]))
+            if current and current > tonumber(ARGV[2]) then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[3])
+            redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+    private static final RedisSerializer<Long> SCRIPT_RESULT = new GenericToStringSerializer<>(Long.class);
+    private static final int STRIPES = 1024;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Cache<String, Trip> nearCache;
+    private final RedisTemplate<String, Trip> tripRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Duration redisTtl;
+    private final AtomicLong generation = new AtomicLong();
+    // the generation at which a trip of each stripe was last put or invalidated
+    private final AtomicLongArray changedAt = new AtomicLongArray(STRIPES);
+
+    public TripCache(TripCacheProperties properties,
+                     @Nullable RedisTemplate<String, Trip> tripRedisTemplate,
+                     @Nullable StringRedisTemplate stringRedisTemplate,
+                     MeterRegistry meterRegistry) {
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(properties.getNearMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getNearTtlSeconds()))
+                .recordStats()
+                .build();
+        boolean redisEnabled = properties.isRedisEnabled() && tripRedisTemplate != null && stringRedisTemplate != null;
+        this.tripRedisTemplate = redisEnabled ? tripRedisTemplate : null;
+        this.stringRedisTemplate = redisEnabled ? stringRedisTemplate : null;
+        this.redisTtl = Duration.ofSeconds(properties.getRedisTtlSeconds());
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "trips.near");
+    }
+
+    public Optional<Trip> get(String tripId, Function<String, Optional<Trip>> loader) {
+        Trip trip = nearCache.getIfPresent(tripId);
+        if (trip != null) {
+            return Optional.of(trip);
+        }
+
+        long since = generation();
+        trip = getFromRedis(tripId);
+        if (trip != null) {
+            fillNear(tripId, trip, since);
+            return Optional.of(trip);
+        }
+
+        Optional<Trip> loaded = loader.apply(tripId);
+        loaded.ifPresent(value -> {
+            fillNear(tripId, value, since);
+            fillRedis(Map.of(tripId, value));
+        });
+        return loaded;
+    }
+
+    /**
+     * Batch form of {@link #get}: looks the ids up in the near cache, then in Redis with one
+     * {@code MGET}, and hands only the remaining ids to {@code loader} in a single call. Ids that
+     * are not found anywhere are absent from the result.
+     */
+    public Map<String, Trip> getAll(Collection<String> tripIds, Function<Collection<String>, Map<String, Trip>> loader) {
+        Map<String, Trip> trips = new HashMap<>(nearCache.getAllPresent(tripIds));
+        List<String> missing = tripIds.stream().filter(id -> !trips.containsKey(id)).toList();
+        if (missing.isEmpty()) {
+            return trips;
+        }
+
+        long since = generation();
+        List<String> stillMissing = new ArrayList<>();
+        List<Trip> fromRedis = getAllFromRedis(missing);
+        for (int i = 0; i < missing.size(); i++) {
+            Trip trip = fromRedis == null ? null : fromRedis.get(i);
+            if (trip != null) {
+                fillNear(missing.get(i), trip, since);
+                trips.put(missing.get(i), trip);
+            } else {
+                stillMissing.add(missing.get(i));
+            }
+        }
+        if (stillMissing.isEmpty()) {
+            return trips;
+        }
+
+        Map<String, Trip> loaded = loader.apply(stillMissing);
+        loaded.forEach((tripId, trip) -> fillNear(tripId, trip, since));
+        fillRedis(loaded);
+        trips.putAll(loaded);
+        return trips;
+    }
+
+    /**
+     * Near-cache lookups only, for callers that must not block on Redis. On a miss they take the
+     * {@link #generation()}, read Mongo themselves and keep the result with
+     * {@link #putNear(Trip, long)}.
+     */
+    public Optional<Trip> getNear(String tripId) {
+        return Optional.ofNullable(nearCache.getIfPresent(tripId));
+    }
+
+    public Map<String, Trip> getAllNear(Collection<String> tripIds) {
+        return nearCache.getAllPresent(tripIds);
+    }
+
+    /**
+     * Keeps a trip read from Mongo after {@code since} was taken from {@link #generation()} in the
+     * near cache, unless it has been put or invalidated since. Unlike {@link #put(Trip)} it is not
+     * a change, so Redis and the other instances are left alone.
+     */
+    public void putNear(Trip trip, long since) {
+        if (trip != null && trip.getId() != null) {
+            fillNear(trip.getId(), trip, since);
+        }
+    }
+
+    /**
+     * A counter that moves on every put and invalidation, taken by readers before they read.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(Trip trip) {
+        if (trip == null || trip.getId() == null) {
+            return;
+        }
+        if (tripRedisTemplate != null) {
+            try {
+                @SuppressWarnings("unchecked")
+                RedisSerializer<Trip> valueSerializer = (RedisSerializer<Trip>) tripRedisTemplate.getValueSerializer();
+                tripRedisTemplate.execute(PUT_IF_NEWER, RedisSerializer.byteArray(), SCRIPT_RESULT,
+                        List.of(KEY_PREFIX + trip.getId(), UPDATED_AT_PREFIX + trip.getId()),
+                        valueSerializer.serialize(trip), ascii(updatedAtMillis(trip)), ascii(redisTtl.toMillis()));
+            } catch (RuntimeException e) {
+                log.warn("Failed to write trip {} to Redis", trip.getId(), e);
+            }
+        }
+        // after Redis, so a reader that starts after this generation reads the new trip there
+        nearCache.asMap().compute(trip.getId(), (tripId, cached) -> {
+            changed(tripId);
+            return cached != null && updatedAtMillis(cached) > updatedAtMillis(trip) ? cached : trip;
+        });
+        publishInvalidation(trip.getId());
+    }
+
+    /**
+     * Drops a trip everywhere. A reader that loaded the trip before the eviction may cache it
+     * again, so persisted changes go through {@link #put(Trip)}.
+     */
+    public void evict(String tripId) {
+        invalidateNear(tripId);
+        if (stringRedisTemplate != null) {
+            try {
+                stringRedisTemplate.delete(List.of(KEY_PREFIX + tripId, UPDATED_AT_PREFIX + tripId));
+            } catch (RuntimeException e) {
+                log.warn("Failed to evict trip {} from Redis", tripId, e);
+            }
+        }
+        publishInvalidation(tripId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        if (separator < 0 || body.startsWith(nodeId)) {
+            return;
+        }
+        invalidateNear(body.substring(separator + 1));
+    }
+
+    private void invalidateNear(String tripId) {
+        nearCache.asMap().compute(tripId, (id, cached) -> {
+            changed(id);
+            return null;
+        });
+    }
+
+    private void changed(String tripId) {
+        changedAt.set(stripe(tripId), generation.incrementAndGet());
+    }
+
+    /**
+     * Fills the near cache under the entry's lock, which {@link #put} and invalidations take too,
+     * so a fill racing a change either lands before it or is dropped.
+     */
+    private void fillNear(String tripId, Trip trip, long since) {
+        nearCache.asMap().compute(tripId, (id, cached) -> changedAt.get(stripe(id)) > since ? cached : trip);
+    }
+
+    /**
+     * Fills Redis only where the key is absent; a writer's {@code SET} in the meantime wins.
+     */
+    private void fillRedis(Map<String, Trip> trips) {
+        if (trips.isEmpty() || tripRedisTemplate == null) {
+            return;
+        }
+        try {
+            if (trips.size() == 1) {
+                Map.Entry<String, Trip> entry = trips.entrySet().iterator().next();
+                tripRedisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + entry.getKey(), entry.getValue(), redisTtl);
+                return;
+            }
+            tripRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Trip> tripOperations = (RedisOperations<String, Trip>) operations;
+                    trips.forEach((tripId, trip) -> tripOperations.opsForValue().setIfAbsent(KEY_PREFIX + tripId, trip, redisTtl));
+                    return null;
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} trips to Redis", trips.size(), e);
+        }
+    }
+
+    // a trip without updatedAt predates the field and loses to any that has one
+    private static long updatedAtMillis(Trip trip) {
+        return trip.getUpdatedAt() == null ? 0 : trip.getUpdatedAt().toEpochMilli();
+    }
+
+    private static byte[] ascii(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int stripe(String tripId) {
+        return tripId.hashCode() & (STRIPES - 1);
+    }
+
+    private List<Trip> getAllFromRedis(List<String> tripIds) {
+        if (tripRedisTemplate == null) {
+            return null;
+        }
+        try {
+            return tripRedisTemplate.opsForValue().multiGet(tripIds.stream().map(id -> KEY_PREFIX + id).toList());
+        } catch (RuntimeException e) {
+            log.warn("Failed to read {} trips from Redis", tripIds.size(), e);
+            return null;
+        }
+    }
+
+    private Trip getFromRedis(String tripId) {
+        if (tripRedisTemplate == null) {
+            return null;
+        }
+        try {
+            return tripRedisTemplate.opsForValue().get(KEY_PREFIX + tripId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read trip {} from Redis", tripId, e);
+            return null;
+        }
+    }
+
+    private void publishInvalidation(String tripId) {
+        if (stringRedisTemplate == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + ":" + tripId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish cache invalidation for trip {}", tripId, e);
+        }
+    }
+}
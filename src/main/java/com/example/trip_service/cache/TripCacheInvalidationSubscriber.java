@@ -0,0 +1,44 @@
+package com.example.trip_service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Subscribes {@link TripCache} to {@link TripCache#INVALIDATION_CHANNEL}. The listener container
+ * is started from a retry loop rather than as a lifecycle bean, so an unreachable Redis delays
+ * cross-instance invalidation instead of failing application startup.
+ */
+@Slf4j
+@Component
+public class TripCacheInvalidationSubscriber implements DisposableBean {
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+    public TripCacheInvalidationSubscriber(RedisConnectionFactory connectionFactory, TripCache tripCache) {
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(tripCache, new ChannelTopic(TripCache.INVALIDATION_CHANNEL));
+        container.afterPropertiesSet();
+    }
+
+    @Scheduled(fixedDelayString = "${trip.cache.redis.resubscribe-interval-ms:30000}")
+    public void ensureSubscribed() {
+        if (container.isListening()) {
+            return;
+        }
+        try {
+            container.start();
+        } catch (RuntimeException e) {
+            container.stop();
+            log.warn("Redis unavailable, trip cache invalidations from other instances are not received: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        container.destroy();
+    }
+}
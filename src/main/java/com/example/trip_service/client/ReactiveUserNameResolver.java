@@ -0,0 +1,140 @@
+package com.example.trip_service.client;
+
+import com.example.trip_service.DTO.UserDriverNameDTO;
+import com.example.trip_service.properties.UserClientProperties;
+import com.example.trip_service.properties.UserNameCacheProperties;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Non-blocking counterpart of {@link UserNameResolver} for the {@code reactive} profile. Names
+ * are looked up with a {@link WebClient} on a Reactor Netty pool no larger than the bulkhead, and
+ * kept in an async TTL cache that also lets concurrent lookups of an id share one call. The
+ * caller's bearer token is forwarded, as the Feign client does. Calls go through
+ * {@link UserClientGuard}; when one fails, times out or is rejected, names that are not cached are
+ * left absent and counted as {@code user.names.degraded}.
+ */
+@Slf4j
+@Component
+@Profile("reactive")
+public class ReactiveUserNameResolver {
+    private final WebClient webClient;
+    private final UserClientGuard userClientGuard;
+    private final AsyncCache<String, String> names;
+    private final Duration userDriverNameTimeout;
+    private final Counter degraded;
+
+    public ReactiveUserNameResolver(WebClient.Builder webClientBuilder, UserClientGuard userClientGuard, UserClientProperties clientProperties,
+                                    UserNameCacheProperties cacheProperties, MeterRegistry meterRegistry) {
+        ConnectionProvider connections = ConnectionProvider.builder("auth-service")
+                .maxConnections(clientProperties.getMaxConcurrentCalls())
+                .maxIdleTime(Duration.ofMillis(clientProperties.getKeepAliveMs()))
+                .evictInBackground(Duration.ofMillis(clientProperties.getIdleEvictionMs()))
+                .build();
+        HttpClient httpClient = HttpClient.create(connections)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) clientProperties.getConnectTimeoutMs());
+        this.webClient = webClientBuilder
+                .baseUrl(clientProperties.getUrl() + "/api/users")
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        this.userClientGuard = userClientGuard;
+        this.names = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(cacheProperties.getTtlSeconds()))
+                .recordStats()
+                .buildAsync();
+        this.userDriverNameTimeout = Duration.ofMillis(clientProperties.getUserDriverNameReadTimeoutMs());
+        CaffeineCacheMetrics.monitor(meterRegistry, names.synchronous(), "user.names.reactive");
+        this.degraded = meterRegistry.counter("user.names.degraded");
+    }
+
+    /**
+     * Resolves the pair with one call for the ids that are neither cached nor already being
+     * fetched, on the same {@code /{userId}/{driverId}} endpoint as {@link UserNameResolver}.
+     */
+    public Mono<UserDriverNameDTO> resolve(String userId, String driverId) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (userId != null) {
+            ids.add(userId);
+        }
+        if (driverId != null) {
+            ids.add(driverId);
+        }
+        Mono<Map<String, String>> resolved = ids.isEmpty()
+                ? Mono.just(Map.of())
+                : bearerToken()
+                        .defaultIfEmpty("")
+                        .flatMap(token -> Mono.fromFuture(() -> names.getAll(ids, (missing, executor) ->
+                                fetch(userId, driverId, token).toFuture()), true))
+                        .onErrorResume(e -> {
+                            Map<String, String> cached = names.synchronous().getAllPresent(ids);
+                            degraded.increment(ids.size() - cached.size());
+                            log.debug("Leaving names unresolved after a failed auth-service call", e);
+                            return Mono.just(cached);
+                        });
+        return resolved.map(found -> {
+            UserDriverNameDTO userDriverNameDTO = new UserDriverNameDTO();
+            userDriverNameDTO.setUserName(userId == null ? null : found.get(userId));
+            userDriverNameDTO.setDriverName(driverId == null ? null : found.get(driverId));
+            return userDriverNameDTO;
+        });
+    }
+
+    private Mono<Map<String, String>> fetch(String userId, String driverId, String token) {
+        Mono<Map<String, String>> call = webClient.get()
+                .uri("/{userId}/{driverId}", userId, driverId)
+                .headers(headers -> bearer(headers, token))
+                .retrieve()
+                .bodyToMono(UserDriverNameDTO.class)
+                .timeout(userDriverNameTimeout)
+                .map(fetched -> {
+                    Map<String, String> fetchedNames = new HashMap<>();
+                    putIfResolved(fetchedNames, userId, fetched.getUserName());
+                    putIfResolved(fetchedNames, driverId, fetched.getDriverName());
+                    return fetchedNames;
+                });
+        return userClientGuard.call(call).defaultIfEmpty(Map.of());
+    }
+
+    private static Mono<String> bearerToken() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getCredentials)
+                .filter(String.class::isInstance)
+                .cast(String.class);
+    }
+
+    private static void bearer(HttpHeaders headers, String token) {
+        if (!token.isEmpty()) {
+            headers.setBearerAuth(token);
+        }
+    }
+
+    private static void putIfResolved(Map<String, String> target, String id, String name) {
+        if (id != null && name != null) {
+            target.put(id, name);
+        }
+    }
+}
@@ -9,7 +9,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 
 @FeignClient(
         name = "auth-service",
-        url = "http://auth-service:3030",
+        url = "${user.client.url:http://auth-service:3030}",
         path = "/api/users",
         configuration = FeignConfig.class
 )
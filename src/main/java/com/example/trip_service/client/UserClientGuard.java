@@ -0,0 +1,81 @@
+package com.example.trip_service.client;
+
+import com.example.trip_service.properties.UserClientProperties;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Runs {@link UserClient} calls behind a bulkhead and a circuit breaker. The bulkhead rejects
+ * a call at once when {@code user.client.bulkhead.max-concurrent-calls} are already waiting on
+ * auth-service. The breaker opens when too many recent calls failed or were slow, and rejects
+ * calls until it half-opens again. 4xx answers mean auth-service is up and are not failures.
+ * Rejections never reach the network and are counted as {@code user.client.rejected}.
+ */
+@Component
+public class UserClientGuard {
+    private static final String NAME = "auth-service";
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    public UserClientGuard(UserClientProperties properties, MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(properties.getSlidingWindowSize())
+                .minimumNumberOfCalls(properties.getMinimumCalls())
+                .failureRateThreshold(properties.getFailureRateThreshold())
+                .slowCallRateThreshold(properties.getFailureRateThreshold())
+                .slowCallDurationThreshold(Duration.ofMillis(properties.getSlowCallDurationMs()))
+                .waitDurationInOpenState(Duration.ofMillis(properties.getOpenDurationMs()))
+                .permittedNumberOfCallsInHalfOpenState(properties.getHalfOpenCalls())
+                .ignoreException(UserClientGuard::isClientError)
+                .build());
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        this.circuitBreaker = circuitBreakers.circuitBreaker(NAME);
+        this.bulkhead = bulkheads.bulkhead(NAME);
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        Counter circuitOpen = meterRegistry.counter("user.client.rejected", "reason", "circuit_open");
+        Counter bulkheadFull = meterRegistry.counter("user.client.rejected", "reason", "bulkhead_full");
+        circuitBreaker.getEventPublisher().onCallNotPermitted(event -> circuitOpen.increment());
+        bulkhead.getEventPublisher().onCallRejected(event -> bulkheadFull.increment());
+    }
+
+    public <T> T call(Supplier<T> call) {
+        return bulkhead.executeSupplier(() -> circuitBreaker.executeSupplier(call));
+    }
+
+    /**
+     * Non-blocking form of {@link #call(Supplier)} for the reactive stack; the permits are held
+     * from subscription until the call completes, fails or is cancelled.
+     */
+    public <T> Mono<T> call(Mono<T> call) {
+        return call.transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(BulkheadOperator.of(bulkhead));
+    }
+
+    private static boolean isClientError(Throwable e) {
+        return e instanceof FeignException.FeignClientException
+                || e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError();
+    }
+}
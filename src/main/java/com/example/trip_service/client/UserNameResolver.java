@@ -0,0 +1,138 @@
+package com.example.trip_service.client;
+
+import com.example.trip_service.DTO.UserDriverNameDTO;
+import com.example.trip_service.properties.UserNameCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves user and driver display names through {@link UserClient} with a TTL cache per id.
+ * Concurrent lookups for an id that is already being fetched wait for that call instead of
+ * issuing their own. Calls go through {@link UserClientGuard}; when one fails or is rejected,
+ * names that are not cached are left absent rather than failing the caller, and are counted as
+ * {@code user.names.degraded}.
+ */
+@Slf4j
+@Component
+public class UserNameResolver {
+    private final UserClient userClient;
+    private final UserClientGuard userClientGuard;
+    private final Cache<String, String> names;
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Counter degraded;
+
+    public UserNameResolver(UserClient userClient, UserClientGuard userClientGuard, UserNameCacheProperties properties, MeterRegistry meterRegistry) {
+        this.userClient = userClient;
+        this.userClientGuard = userClientGuard;
+        this.names = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getTtlSeconds()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, names, "user.names");
+        this.degraded = meterRegistry.counter("user.names.degraded");
+    }
+
+    public UserDriverNameDTO resolve(String userId, String driverId) {
+        String userName = userId == null ? null : names.getIfPresent(userId);
+        String driverName = driverId == null ? null : names.getIfPresent(driverId);
+        boolean userMissing = userId != null && userName == null;
+        boolean driverMissing = driverId != null && driverName == null;
+
+        if (userMissing || driverMissing) {
+            Map<String, CompletableFuture<String>> claimed = new HashMap<>();
+            Map<String, CompletableFuture<String>> pending = new HashMap<>();
+            if (userMissing) {
+                claimOrJoin(userId, claimed, pending);
+            }
+            if (driverMissing) {
+                claimOrJoin(driverId, claimed, pending);
+            }
+            if (!claimed.isEmpty()) {
+                fetchPair(userId, driverId, claimed);
+            }
+            if (userMissing) {
+                userName = await(claimed.containsKey(userId) ? claimed.get(userId) : pending.get(userId));
+            }
+            if (driverMissing) {
+                driverName = await(claimed.containsKey(driverId) ? claimed.get(driverId) : pending.get(driverId));
+            }
+        }
+
+        UserDriverNameDTO userDriverNameDTO = new UserDriverNameDTO();
+        userDriverNameDTO.setUserName(userName);
+        userDriverNameDTO.setDriverName(driverName);
+        return userDriverNameDTO;
+    }
+
+    private void claimOrJoin(String id, Map<String, CompletableFuture<String>> claimed, Map<String, CompletableFuture<String>> pending) {
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(id, created);
+        if (existing == null) {
+            claimed.put(id, created);
+        } else {
+            pending.put(id, existing);
+        }
+    }
+
+    private void fetchPair(String userId, String driverId, Map<String, CompletableFuture<String>> claimed) {
+        try {
+            UserDriverNameDTO fetched = userClientGuard.call(() -> userClient.getUserDriverName(userId, driverId));
+            Map<String, String> fetchedNames = new HashMap<>();
+            if (fetched != null) {
+                putIfResolved(fetchedNames, userId, fetched.getUserName());
+                putIfResolved(fetchedNames, driverId, fetched.getDriverName());
+            }
+            complete(claimed, fetchedNames);
+        } catch (RuntimeException e) {
+            fail(claimed, e);
+        }
+    }
+
+    private void complete(Map<String, CompletableFuture<String>> claimed, Map<String, String> fetchedNames) {
+        claimed.forEach((id, future) -> {
+            String name = fetchedNames.get(id);
+            if (name != null) {
+                names.put(id, name);
+            }
+            inFlight.remove(id, future);
+            future.complete(name);
+        });
+    }
+
+    private void fail(Map<String, CompletableFuture<String>> claimed, RuntimeException e) {
+        claimed.forEach((id, future) -> {
+            inFlight.remove(id, future);
+            future.completeExceptionally(e);
+        });
+    }
+
+    private String await(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            degraded.increment();
+            log.debug("Leaving a name unresolved after a failed auth-service call", e.getCause());
+            return null;
+        }
+    }
+
+    private static void putIfResolved(Map<String, String> target, String id, String name) {
+        if (id != null && name != null) {
+            target.put(id, name);
+        }
+    }
+}
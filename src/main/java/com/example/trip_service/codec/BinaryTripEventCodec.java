@@ -0,0 +1,364 @@
+package com.example.trip_service.codec;
+
+import com.example.trip_service.event.AcceptTripEvent;
+import com.example.trip_service.event.CancelTripEvent;
+import com.example.trip_service.event.CreateTripEvent;
+import com.example.trip_service.event.DriverLocationEvent;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Compact binary form of the trip events. A payload is a one-byte event tag followed by the
+ * event's fields in a fixed order:
+ * <ul>
+ *     <li>ids: 12 raw bytes when they are ObjectId hex strings, otherwise a string</li>
+ *     <li>strings: UTF-8 behind a varint length, with 0 for null</li>
+ *     <li>coordinates: 8-byte doubles; the string coordinates of {@link CreateTripEvent} are sent
+ *     as doubles only when that reproduces them exactly, otherwise as strings</li>
+ *     <li>timestamps: zigzag varints</li>
+ * </ul>
+ * Decoding gives back events equal to the ones encoded. New fields go at the end of an event
+ * under a new {@link #version()}, which readers of older versions reject rather than misread.
+ */
+@Component
+public class BinaryTripEventCodec implements TripEventCodec {
+    public static final String FORMAT = "binary";
+    public static final int VERSION = 1;
+
+    private static final int ABSENT = 0;
+    private static final int OBJECT_ID = 1;
+    private static final int STRING = 2;
+    private static final int NUMBER = 1;
+
+    private final Map<Class<?>, Schema<?>> schemasByType = new HashMap<>();
+    private final Schema<?>[] schemasByTag = new Schema<?>[5];
+
+    public BinaryTripEventCodec() {
+        register(new Schema<>(1, CreateTripEvent.class, BinaryTripEventCodec::writeCreateTrip, BinaryTripEventCodec::readCreateTrip));
+        register(new Schema<>(2, AcceptTripEvent.class, BinaryTripEventCodec::writeAcceptTrip, BinaryTripEventCodec::readAcceptTrip));
+        register(new Schema<>(3, CancelTripEvent.class, BinaryTripEventCodec::writeCancelTrip, BinaryTripEventCodec::readCancelTrip));
+        register(new Schema<>(4, DriverLocationEvent.class, BinaryTripEventCodec::writeDriverLocation, BinaryTripEventCodec::readDriverLocation));
+    }
+
+    private void register(Schema<?> schema) {
+        schemasByType.put(schema.type(), schema);
+        schemasByTag[schema.tag()] = schema;
+    }
+
+    @Override
+    public String format() {
+        return FORMAT;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] encode(Object event) {
+        Schema<Object> schema = (Schema<Object>) schemasByType.get(event.getClass());
+        if (schema == null) {
+            throw new IllegalArgumentException("No binary schema for " + event.getClass().getSimpleName());
+        }
+        Output out = new Output();
+        out.writeByte(schema.tag());
+        schema.writer().accept(out, event);
+        return out.toByteArray();
+    }
+
+    @Override
+    public <T> T decode(byte[] payload, int version, Class<T> type) {
+        if (version > VERSION) {
+            throw new IllegalArgumentException("Unsupported binary event version " + version);
+        }
+        Input in = new Input(payload);
+        int tag = in.readByte();
+        Schema<?> schema = tag < schemasByTag.length ? schemasByTag[tag] : null;
+        if (schema == null || schema.type() != type) {
+            throw new IllegalArgumentException("Binary event tag " + tag + " is not a " + type.getSimpleName());
+        }
+        T event = type.cast(schema.reader().apply(in));
+        in.requireEnd();
+        return event;
+    }
+
+    private static void writeCreateTrip(Output out, CreateTripEvent event) {
+        out.writeId(event.getTripId());
+        out.writeId(event.getUserId());
+        out.writeString(event.getOrigin());
+        out.writeString(event.getDestination());
+        out.writeCoordinate(event.getLatitude());
+        out.writeCoordinate(event.getLongitude());
+    }
+
+    private static CreateTripEvent readCreateTrip(Input in) {
+        CreateTripEvent event = new CreateTripEvent();
+        event.setTripId(in.readId());
+        event.setUserId(in.readId());
+        event.setOrigin(in.readString());
+        event.setDestination(in.readString());
+        event.setLatitude(in.readCoordinate());
+        event.setLongitude(in.readCoordinate());
+        return event;
+    }
+
+    private static void writeAcceptTrip(Output out, AcceptTripEvent event) {
+        out.writeId(event.getTripId());
+        out.writeId(event.getDriverId());
+    }
+
+    private static AcceptTripEvent readAcceptTrip(Input in) {
+        AcceptTripEvent event = new AcceptTripEvent();
+        event.setTripId(in.readId());
+        event.setDriverId(in.readId());
+        return event;
+    }
+
+    private static void writeCancelTrip(Output out, CancelTripEvent event) {
+        out.writeId(event.getTripId());
+        out.writeId(event.getUserId());
+        out.writeString(event.getReason());
+        out.writeVarLong(event.getCancelledAt());
+    }
+
+    private static CancelTripEvent readCancelTrip(Input in) {
+        CancelTripEvent event = new CancelTripEvent();
+        event.setTripId(in.readId());
+        event.setUserId(in.readId());
+        event.setReason(in.readString());
+        event.setCancelledAt(in.readVarLong());
+        return event;
+    }
+
+    private static void writeDriverLocation(Output out, DriverLocationEvent event) {
+        out.writeId(event.getTripId());
+        out.writeId(event.getDriverId());
+        out.writeDouble(event.getLatitude());
+        out.writeDouble(event.getLongitude());
+        out.writeVarLong(event.getRecordedAt());
+    }
+
+    private static DriverLocationEvent readDriverLocation(Input in) {
+        DriverLocationEvent event = new DriverLocationEvent();
+        event.setTripId(in.readId());
+        event.setDriverId(in.readId());
+        event.setLatitude(in.readDouble());
+        event.setLongitude(in.readDouble());
+        event.setRecordedAt(in.readVarLong());
+        return event;
+    }
+
+    private record Schema<T>(int tag, Class<T> type, BiConsumer<Output, T> writer, Function<Input, T> reader) {
+    }
+
+    private static final class Output {
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                writeByte((int) (zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            writeByte((int) zigzag);
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (bits >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length + 1);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        void writeId(String id) {
+            if (id == null) {
+                writeByte(ABSENT);
+            } else if (isObjectId(id)) {
+                writeByte(OBJECT_ID);
+                ensure(12);
+                for (int i = 0; i < 24; i += 2) {
+                    bytes[size++] = (byte) (Character.digit(id.charAt(i), 16) << 4 | Character.digit(id.charAt(i + 1), 16));
+                }
+            } else {
+                writeByte(STRING);
+                writeString(id);
+            }
+        }
+
+        void writeCoordinate(String value) {
+            if (value == null) {
+                writeByte(ABSENT);
+                return;
+            }
+            try {
+                double number = Double.parseDouble(value);
+                if (Double.toString(number).equals(value)) {
+                    writeByte(NUMBER);
+                    writeDouble(number);
+                    return;
+                }
+            } catch (NumberFormatException ignored) {
+                // sent as written below
+            }
+            writeByte(STRING);
+            writeString(value);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+        }
+
+        private static boolean isObjectId(String id) {
+            if (id.length() != 24) {
+                return false;
+            }
+            for (int i = 0; i < 24; i++) {
+                char c = id.charAt(i);
+                if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Input {
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            require(1);
+            return bytes[position++] & 0xFF;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        long readVarLong() {
+            long zigzag = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        double readDouble() {
+            require(8);
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = bits << 8 | (bytes[position++] & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        String readString() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            require(length);
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        String readId() {
+            return switch (readByte()) {
+                case ABSENT -> null;
+                case OBJECT_ID -> {
+                    require(12);
+                    char[] hex = new char[24];
+                    for (int i = 0; i < 12; i++) {
+                        int b = bytes[position++] & 0xFF;
+                        hex[i * 2] = HEX[b >>> 4];
+                        hex[i * 2 + 1] = HEX[b & 0x0F];
+                    }
+                    yield new String(hex);
+                }
+                case STRING -> readString();
+                default -> throw new IllegalArgumentException("Malformed id");
+            };
+        }
+
+        String readCoordinate() {
+            return switch (readByte()) {
+                case ABSENT -> null;
+                case NUMBER -> Double.toString(readDouble());
+                case STRING -> readString();
+                default -> throw new IllegalArgumentException("Malformed coordinate");
+            };
+        }
+
+        void requireEnd() {
+            if (position != bytes.length) {
+                throw new IllegalArgumentException((bytes.length - position) + " trailing bytes");
+            }
+        }
+
+        private void require(int length) {
+            if (length > bytes.length - position) {
+                throw new IllegalArgumentException("Truncated binary event");
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.trip_service.codec;
+
+/**
+ * An event encoded by the codec for {@code format} at {@code version}, kept together so the
+ * headers written with the payload always describe it.
+ */
+public record EncodedTripEvent(String format, int version, byte[] payload) {
+}
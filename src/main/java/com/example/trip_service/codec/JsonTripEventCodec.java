@@ -0,0 +1,54 @@
+package com.example.trip_service.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The JSON the trip events have always been published as, written with the shared Spring
+ * {@link ObjectMapper}. Records without a format header are read with this codec.
+ */
+@Component
+public class JsonTripEventCodec implements TripEventCodec {
+    public static final String FORMAT = "json";
+    public static final int VERSION = 1;
+
+    private final ObjectMapper objectMapper;
+
+    public JsonTripEventCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String format() {
+        return FORMAT;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public byte[] encode(Object event) {
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <T> T decode(byte[] payload, int version, Class<T> type) {
+        if (version > VERSION) {
+            throw new IllegalArgumentException("Unsupported JSON event version " + version);
+        }
+        try {
+            return objectMapper.readValue(payload, type);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unreadable JSON " + type.getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.trip_service.codec;
+
+/**
+ * Turns trip events into Kafka record values and back. Each codec is identified by the
+ * {@link #format()} it writes to the {@code trip-event-format} header and reads every
+ * {@link #version()} up to its own; see {@link TripEventCodecs}.
+ */
+public interface TripEventCodec {
+    String format();
+
+    int version();
+
+    /**
+     * Encodes {@code event} at {@link #version()}, throwing {@link IllegalArgumentException} for an
+     * event type the codec does not know.
+     */
+    byte[] encode(Object event);
+
+    /**
+     * Decodes a payload written at {@code version}, throwing {@link IllegalArgumentException} when
+     * it is malformed, of another type or of a version this codec cannot read.
+     */
+    <T> T decode(byte[] payload, int version, Class<T> type);
+}
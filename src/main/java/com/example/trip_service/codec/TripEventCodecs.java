@@ -0,0 +1,72 @@
+package com.example.trip_service.codec;
+
+import com.example.trip_service.properties.TripEventProperties;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link TripEventCodec}s available to trip event producers and listeners. Events are
+ * written with the codec named by {@code trip.events.format} and tagged with the
+ * {@link #FORMAT_HEADER} and {@link #VERSION_HEADER} headers. Listeners pick the codec from the
+ * headers of each record, and records without them are JSON, so producers can switch format
+ * once every consumer reads both.
+ */
+@Component
+public class TripEventCodecs {
+    public static final String FORMAT_HEADER = "trip-event-format";
+    public static final String VERSION_HEADER = "trip-event-version";
+
+    private final Map<String, TripEventCodec> codecsByFormat = new HashMap<>();
+    private final TripEventCodec producerCodec;
+
+    public TripEventCodecs(List<TripEventCodec> codecs, TripEventProperties properties) {
+        codecs.forEach(codec -> codecsByFormat.put(codec.format(), codec));
+        this.producerCodec = codecsByFormat.get(properties.getFormat());
+        if (producerCodec == null) {
+            throw new IllegalStateException("Unknown trip.events.format " + properties.getFormat() + ", expected one of " + codecsByFormat.keySet());
+        }
+    }
+
+    public EncodedTripEvent encode(Object event) {
+        return new EncodedTripEvent(producerCodec.format(), producerCodec.version(), producerCodec.encode(event));
+    }
+
+    /**
+     * Decodes a record value with the codec its headers name, throwing
+     * {@link IllegalArgumentException} when the value cannot be read.
+     */
+    public <T> T decode(Headers headers, byte[] payload, Class<T> type) {
+        String format = header(headers, FORMAT_HEADER);
+        String version = header(headers, VERSION_HEADER);
+        TripEventCodec codec = codecsByFormat.get(format == null ? JsonTripEventCodec.FORMAT : format);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown trip event format " + format);
+        }
+        if (payload == null) {
+            throw new IllegalArgumentException("Missing " + type.getSimpleName());
+        }
+        try {
+            return codec.decode(payload, version == null ? 1 : Integer.parseInt(version), type);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Unreadable " + type.getSimpleName(), e);
+        }
+    }
+
+    public static void addHeaders(Headers headers, String format, int version) {
+        headers.add(FORMAT_HEADER, format.getBytes(StandardCharsets.UTF_8));
+        headers.add(VERSION_HEADER, Integer.toString(version).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
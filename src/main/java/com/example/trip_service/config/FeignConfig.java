@@ -1,14 +1,53 @@
 package com.example.trip_service.config;
 
+import com.example.trip_service.properties.UserClientProperties;
+import feign.Request;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration.HttpClientBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class FeignConfig implements RequestInterceptor {
 
+    /**
+     * Connect and read timeouts for auth-service, with a tighter read timeout for the call that
+     * sits on a request path. Feign picks the method's own options by method name.
+     */
+    @Bean
+    public Request.Options userClientOptions(UserClientProperties properties) {
+        Request.Options options = options(properties.getConnectTimeoutMs(), properties.getReadTimeoutMs());
+        options.setMethodOptions("getUserDriverName", options(properties.getConnectTimeoutMs(), properties.getUserDriverNameReadTimeoutMs()));
+        return options;
+    }
+
+    /**
+     * Applies to the pooled Apache HttpClient 5 transport, sized by
+     * {@code spring.cloud.openfeign.httpclient.*}. A connection is reused for at most
+     * {@code user.client.pool.keep-alive-ms} unless auth-service asks for less, and closed
+     * once idle for {@code user.client.pool.idle-eviction-ms}, before a proxy or the server
+     * drops it under us.
+     */
+    @Bean
+    public HttpClientBuilderCustomizer userClientPoolCustomizer(UserClientProperties properties) {
+        TimeValue keepAlive = TimeValue.ofMilliseconds(properties.getKeepAliveMs());
+        return builder -> builder
+                .setKeepAliveStrategy((response, context) ->
+                        keepAlive.min(DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context)))
+                .evictIdleConnections(TimeValue.ofMilliseconds(properties.getIdleEvictionMs()));
+    }
+
+    private static Request.Options options(long connectTimeoutMs, long readTimeoutMs) {
+        return new Request.Options(connectTimeoutMs, TimeUnit.MILLISECONDS, readTimeoutMs, TimeUnit.MILLISECONDS, true);
+    }
+
     @Override
     public void apply(RequestTemplate requestTemplate) {
         String token = getAuthToken();
@@ -0,0 +1,114 @@
+package com.example.trip_service.config;
+
+import com.example.trip_service.properties.JwtProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies bearer tokens with a parser built once from the configured secret and keeps
+ * verified tokens in a bounded cache keyed by the SHA-256 of the token. Entries never
+ * outlive the token's own {@code exp} claim.
+ */
+@Component
+public class JwtTokenVerifier {
+    private final JwtParser jwtParser;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtTokenVerifier(JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+        SecretKey secretKey = Keys.hmacShaKeyFor(jwtProperties.getSecretKey().getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getCacheMaxSize())
+                .expireAfter(new TokenExpiry(TimeUnit.SECONDS.toNanos(jwtProperties.getCacheMaxTtlSeconds())))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.tokens");
+    }
+
+    /**
+     * Returns an authenticated token for the given JWT, or throws any {@link io.jsonwebtoken.JwtException}
+     * raised while verifying it.
+     */
+    public Authentication verify(String token) {
+        String key = hash(token);
+        VerifiedToken verified = verifiedTokens.getIfPresent(key);
+        if (verified == null) {
+            verified = parse(token);
+            verifiedTokens.put(key, verified);
+        }
+        return new UsernamePasswordAuthenticationToken(verified.userId(), token, verified.authorities());
+    }
+
+    private VerifiedToken parse(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+
+        String userId = String.valueOf(claims.get("userId"));
+        String authorities = String.valueOf(claims.get("authorities"));
+        Date expiration = claims.getExpiration();
+
+        List<GrantedAuthority> auth = AuthorityUtils.commaSeparatedStringToAuthorityList(authorities);
+        return new VerifiedToken(userId, List.copyOf(auth), expiration == null ? Long.MAX_VALUE : expiration.getTime());
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    record VerifiedToken(String userId, List<GrantedAuthority> authorities, long expiresAtMillis) {
+    }
+
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+        private final long maxTtlNanos;
+
+        private TokenExpiry(long maxTtlNanos) {
+            this.maxTtlNanos = maxTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+            if (remainingMillis <= 0) {
+                return 0;
+            }
+            return Math.min(maxTtlNanos, TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.trip_service.config;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.backoff.FixedBackOff;
+
+@Configuration
+public class KafkaConsumerConfig {
+    public static final String DEAD_LETTER_SUFFIX = ".DLT";
+
+    @Value("${trip.accept.concurrency:3}")
+    private int acceptConcurrency;
+    @Value("${trip.location.consumer-concurrency:3}")
+    private int locationConcurrency;
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> acceptTripBatchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            KafkaTemplate<Object, Object> kafkaTemplate) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(acceptConcurrency);
+
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, ex) -> new TopicPartition(record.topic() + DEAD_LETTER_SUFFIX, -1));
+        factory.setCommonErrorHandler(acceptErrorHandler(recoverer));
+        return factory;
+    }
+
+    /**
+     * Only a record the listener singles out with a {@code BatchListenerFailedException} is
+     * retried 3 times and then parked on {@code <topic>.DLT}. Any other failure, such as Mongo
+     * being unreachable, says nothing about the records, so the whole batch is retried with an
+     * exponential back-off capped at 30 s until it goes through; it is never dead-lettered.
+     */
+    static DefaultErrorHandler acceptErrorHandler(ConsumerRecordRecoverer recoverer) {
+        ExponentialBackOff batchBackOff = new ExponentialBackOff(1000L, 2.0);
+        batchBackOff.setMaxInterval(30_000L);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, batchBackOff);
+        errorHandler.setBackOffFunction((record, ex) -> new FixedBackOff(1000L, 3L));
+        return errorHandler;
+    }
+
+    /**
+     * Location pings are superseded within seconds, so a batch that fails is logged and skipped
+     * instead of being retried or dead-lettered.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> locationBatchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(locationConcurrency);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(0L, 0L)));
+        return factory;
+    }
+}
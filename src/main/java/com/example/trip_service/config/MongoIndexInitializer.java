@@ -0,0 +1,46 @@
+package com.example.trip_service.config;
+
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.model.TripLocationBucket;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the mapped documents once the application is up. Unlike
+ * {@code spring.data.mongodb.auto-index-creation}, an unreachable Mongo at startup only logs a
+ * warning instead of failing the context; creating an index that already exists is a no-op.
+ */
+@Slf4j
+@Component
+public class MongoIndexInitializer {
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(Trip.class, TripLocationBucket.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final IndexResolver indexResolver;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate, MongoMappingContext mongoMappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.indexResolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        for (Class<?> document : INDEXED_DOCUMENTS) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(document);
+            try {
+                indexResolver.resolveIndexFor(document).forEach(indexOperations::ensureIndex);
+            } catch (RuntimeException e) {
+                log.warn("Could not create indexes for {}", document.getSimpleName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.trip_service.config;
+
+import com.example.trip_service.properties.JwtProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.NegatedServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebFlux counterpart of {@link SecurityConfig} and {@link SecurityContextFilter} for the
+ * {@code reactive} profile: the same bearer tokens, access rules and {@code trip.jwt.verify}
+ * timings. Requests that are not authenticated get 403, as on the servlet stack.
+ */
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public ReactiveAuthenticationManager jwtAuthenticationManager(JwtTokenVerifier jwtTokenVerifier, MeterRegistry meterRegistry) {
+        Timer validTokens = Timer.builder("trip.jwt.verify").tag("result", "valid").register(meterRegistry);
+        Timer invalidTokens = Timer.builder("trip.jwt.verify").tag("result", "invalid").register(meterRegistry);
+        return authentication -> {
+            long start = System.nanoTime();
+            try {
+                Authentication verified = jwtTokenVerifier.verify((String) authentication.getCredentials());
+                validTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return Mono.just(verified);
+            } catch (Exception e) {
+                invalidTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return Mono.error(new BadCredentialsException("invalid token....."));
+            }
+        };
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, ReactiveAuthenticationManager jwtAuthenticationManager,
+                                                         JwtProperties jwtProperties) {
+        HttpStatusServerEntryPoint forbidden = new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN);
+        AuthenticationWebFilter jwtFilter = new AuthenticationWebFilter(jwtAuthenticationManager);
+        jwtFilter.setRequiresAuthenticationMatcher(new NegatedServerWebExchangeMatcher(ServerWebExchangeMatchers.pathMatchers("/actuator/health", "/actuator/info")));
+        jwtFilter.setServerAuthenticationConverter(exchange -> {
+            String authHeader = exchange.getRequest().getHeaders().getFirst(jwtProperties.getJwtHeader());
+            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                return Mono.empty();
+            }
+            String token = authHeader.substring(7);
+            return Mono.just(UsernamePasswordAuthenticationToken.unauthenticated(token, token));
+        });
+        jwtFilter.setAuthenticationFailureHandler(new ServerAuthenticationEntryPointFailureHandler(forbidden));
+        jwtFilter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .logout(ServerHttpSecurity.LogoutSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(forbidden))
+                .authorizeExchange(exchanges -> exchanges
+                        .pathMatchers("/actuator/health", "/actuator/info").permitAll()
+                        .anyExchange().authenticated())
+                .addFilterAt(jwtFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.trip_service.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Serves the {@code reactive} profile from Reactor Netty. Tomcat is on the classpath for the
+ * servlet stack and would otherwise be picked for WebFlux too. Netty connection metrics are
+ * published as {@code reactor.netty.http.server.*}, to compare with Tomcat's
+ * {@code tomcat.connections.*} and {@code tomcat.threads.*} under the same load.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        // fixed uri tags: trip ids in the path would make a new meter per trip
+        factory.addServerCustomizers(server -> server.metrics(true, uri -> uri.startsWith("/actuator") ? "/actuator" : "/api/trips"));
+        return factory;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.trip_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * Runs {@code @Scheduled} jobs on their own pool instead of the STOMP broker's heartbeat
+ * scheduler, which they would otherwise share. With virtual threads enabled each run gets its
+ * own virtual thread instead.
+ */
+@Configuration
+public class SchedulingConfig implements SchedulingConfigurer {
+    @Value("${trip.scheduling.pool-size:4}")
+    private int poolSize;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean
+    public TaskScheduler tripTaskScheduler() {
+        if (virtualThreads) {
+            SimpleAsyncTaskScheduler taskScheduler = new SimpleAsyncTaskScheduler();
+            taskScheduler.setVirtualThreads(true);
+            taskScheduler.setThreadNamePrefix("trip-scheduling-");
+            return taskScheduler;
+        }
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(poolSize);
+        taskScheduler.setThreadNamePrefix("trip-scheduling-");
+        return taskScheduler;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.setTaskScheduler(tripTaskScheduler());
+    }
+}
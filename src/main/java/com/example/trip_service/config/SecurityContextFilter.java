@@ -1,32 +1,33 @@
 package com.example.trip_service.config;
 
 import com.example.trip_service.properties.JwtProperties;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import javax.crypto.SecretKey;
 import java.io.IOException;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class SecurityContextFilter extends OncePerRequestFilter {
     private final JwtProperties jwtProperties;
+    private final JwtTokenVerifier jwtTokenVerifier;
+    private final Timer validTokens;
+    private final Timer invalidTokens;
 
-    public SecurityContextFilter(JwtProperties jwtProperties) {
+    public SecurityContextFilter(JwtProperties jwtProperties, JwtTokenVerifier jwtTokenVerifier, MeterRegistry meterRegistry) {
         this.jwtProperties = jwtProperties;
+        this.jwtTokenVerifier = jwtTokenVerifier;
+        this.validTokens = Timer.builder("trip.jwt.verify").tag("result", "valid").register(meterRegistry);
+        this.invalidTokens = Timer.builder("trip.jwt.verify").tag("result", "invalid").register(meterRegistry);
     }
 
     @Override
@@ -35,7 +36,7 @@ public class SecurityContextFilter extends OncePerRequestFilter {
         String token = null;
 
         String path = request.getServletPath();
-        if (path.startsWith("/actuator")) {
+        if (path.equals("/actuator/health") || path.equals("/actuator/info")) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -43,22 +44,13 @@ public class SecurityContextFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             token = authHeader.substring(7);
 
+            long start = System.nanoTime();
             try {
-                SecretKey secretKey = Keys.hmacShaKeyFor(jwtProperties.getSecretKey().getBytes());
-                Claims claims = Jwts.parserBuilder()
-                        .setSigningKey(secretKey)
-                        .build()
-                        .parseClaimsJws(token)
-                        .getBody();
-
-                String userId = String.valueOf(claims.get("userId"));
-                String authorities = String.valueOf(claims.get("authorities"));
-
-                List<GrantedAuthority> auth = AuthorityUtils.commaSeparatedStringToAuthorityList(authorities);
-                Authentication authentication = new UsernamePasswordAuthenticationToken(userId, token, auth);
-
+                Authentication authentication = jwtTokenVerifier.verify(token);
+                validTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             } catch (Exception e) {
+                invalidTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
                 throw new BadCredentialsException("invalid token.....");
             }
         }
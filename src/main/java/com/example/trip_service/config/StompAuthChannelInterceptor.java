@@ -0,0 +1,102 @@
+package com.example.trip_service.config;
+
+import com.example.trip_service.cache.TripCache;
+import com.example.trip_service.location.TripLocationTracker;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.notification.TripStatusNotifier;
+import com.example.trip_service.properties.JwtProperties;
+import com.example.trip_service.repository.TripRepository;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Set;
+
+/**
+ * Authenticates STOMP sessions from the bearer token sent in the CONNECT frame and denies every
+ * other frame by default. A session may subscribe only to its own user queues and to
+ * {@code /topic/trips/{tripId}} of a trip it is the rider or driver of, named exactly, since the
+ * simple broker would otherwise match a pattern such as {@code /topic/**} against every trip. A
+ * session may only SEND to {@code /app/...}; the broker destinations are written by this service
+ * alone.
+ */
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+    static final String APP_PREFIX = "/app/";
+    static final Set<String> USER_QUEUES = Set.of(
+            "/user" + TripStatusNotifier.USER_QUEUE, "/user" + TripLocationTracker.LOCATION_QUEUE);
+
+    private final JwtProperties jwtProperties;
+    private final JwtTokenVerifier jwtTokenVerifier;
+    private final TripCache tripCache;
+    private final TripRepository tripRepository;
+
+    public StompAuthChannelInterceptor(JwtProperties jwtProperties, JwtTokenVerifier jwtTokenVerifier, TripCache tripCache, TripRepository tripRepository) {
+        this.jwtProperties = jwtProperties;
+        this.jwtTokenVerifier = jwtTokenVerifier;
+        this.tripCache = tripCache;
+        this.tripRepository = tripRepository;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String authHeader = accessor.getFirstNativeHeader(jwtProperties.getJwtHeader());
+            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                throw new BadCredentialsException("missing token");
+            }
+            try {
+                accessor.setUser(jwtTokenVerifier.verify(authHeader.substring(7)));
+            } catch (Exception e) {
+                throw new BadCredentialsException("invalid token.....");
+            }
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            authorizeSubscription(accessor.getUser(), accessor.getDestination());
+        } else if (StompCommand.SEND.equals(accessor.getCommand())) {
+            authenticated(accessor.getUser());
+            String destination = accessor.getDestination();
+            if (destination == null || !destination.startsWith(APP_PREFIX)) {
+                throw new AccessDeniedException("cannot send to " + destination);
+            }
+        }
+        return message;
+    }
+
+    private void authorizeSubscription(Principal user, String destination) {
+        authenticated(user);
+        if (destination != null && USER_QUEUES.contains(destination)) {
+            return;
+        }
+        if (destination == null || !destination.startsWith(TripStatusNotifier.TRIP_TOPIC_PREFIX)) {
+            throw new AccessDeniedException("cannot subscribe to " + destination);
+        }
+        String tripId = destination.substring(TripStatusNotifier.TRIP_TOPIC_PREFIX.length());
+        if (tripId.isEmpty() || tripId.chars().anyMatch(c -> c == '*' || c == '?' || c == '{' || c == '/')) {
+            throw new AccessDeniedException("cannot subscribe to " + destination);
+        }
+        Trip trip = tripCache.get(tripId, tripRepository::findById).orElseThrow(
+                () -> new AccessDeniedException("Trip not found with id: " + tripId)
+        );
+        if (!user.getName().equals(trip.getUserId()) && !user.getName().equals(trip.getDriverId())) {
+            throw new AccessDeniedException("not a participant of trip " + tripId);
+        }
+    }
+
+    private static void authenticated(Principal user) {
+        if (user == null) {
+            throw new AccessDeniedException("not authenticated");
+        }
+    }
+}
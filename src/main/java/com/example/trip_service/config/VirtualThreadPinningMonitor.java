@@ -0,0 +1,71 @@
+package com.example.trip_service.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active only with {@code spring.threads.virtual.enabled=true}. Streams the JFR
+ * {@code jdk.VirtualThreadPinned} event, counts pinnings longer than the threshold as
+ * {@code jvm.threads.virtual.pinned} and logs each distinct pinning frame once. It is a
+ * detector, not a guard: it reports pinning after it has happened and does nothing to prevent
+ * it, so a {@code synchronized} section doing I/O still has to be rewritten once it shows up.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final RecordingStream recordingStream = new RecordingStream();
+    private final Set<String> reportedFrames = ConcurrentHashMap.newKeySet();
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${trip.virtual-threads.pinned-threshold-ms:20}") long thresholdMs) {
+        Counter pinned = meterRegistry.counter("jvm.threads.virtual.pinned");
+        recordingStream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, event -> {
+            pinned.increment();
+            String frame = pinningFrame(event);
+            if (reportedFrames.add(frame)) {
+                log.warn("Virtual thread pinned for {} ms in {}", event.getDuration().toMillis(), frame);
+            }
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        recordingStream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        recordingStream.close();
+    }
+
+    private static String pinningFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.trip_service.controller;
+
+import com.example.trip_service.ENUM.TripParticipant;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.request.TripExportRequest;
+import com.example.trip_service.request.TripHistoryRequest;
+import com.example.trip_service.request.TripRequest;
+import com.example.trip_service.response.CreateTripResponse;
+import com.example.trip_service.response.NearbyTripResponse;
+import com.example.trip_service.response.NearestTripResponse;
+import com.example.trip_service.response.TripHistoryResponse;
+import com.example.trip_service.response.TripResponse;
+import com.example.trip_service.service.ReactiveTripService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The {@link TripController} endpoints on WebFlux, served under the {@code reactive} profile.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/trips")
+public class ReactiveTripController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ReactiveTripService reactiveTripService;
+
+    public ReactiveTripController(ReactiveTripService reactiveTripService) {
+        this.reactiveTripService = reactiveTripService;
+    }
+
+    @PostMapping
+    public Mono<CreateTripResponse> createTrip(@RequestBody TripRequest tripRequest,
+                                               @RequestHeader(value = TripController.IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                               @AuthenticationPrincipal String principal) {
+        return reactiveTripService.createTrip(tripRequest, principal, idempotencyKey);
+    }
+
+    @PostMapping("/status")
+    public Mono<Map<String, String>> getTripStatuses(@RequestBody List<String> tripIds) {
+        return reactiveTripService.getTripStatuses(tripIds);
+    }
+
+    @GetMapping("/{tripId}/status")
+    public Mono<String> getTripStatus(@PathVariable String tripId) {
+        return reactiveTripService.getTripStatus(tripId);
+    }
+
+    @GetMapping("/nearby")
+    public Flux<NearbyTripResponse> findNearbyPendingTrips(@RequestParam double lat,
+                                                           @RequestParam double lng,
+                                                           @RequestParam(required = false) Double radius,
+                                                           @RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "20") int size) {
+        return reactiveTripService.findNearbyPendingTrips(lat, lng, radius, page, size);
+    }
+
+    @GetMapping("/nearest")
+    public Mono<List<NearestTripResponse>> findNearestOpenTrips(@RequestParam double lat,
+                                                                @RequestParam double lng,
+                                                                @RequestParam(required = false) Double radius,
+                                                                @RequestParam(defaultValue = "10") int limit) {
+        return reactiveTripService.findNearestOpenTrips(lat, lng, radius, limit);
+    }
+
+    @GetMapping("/users/{userId}")
+    public Mono<TripHistoryResponse> getUserTripHistory(@PathVariable String userId,
+                                                        TripHistoryRequest request,
+                                                        @AuthenticationPrincipal String principal) {
+        requireSelf(userId, principal);
+        return reactiveTripService.getTripHistory(TripParticipant.USER, userId, request);
+    }
+
+    @GetMapping("/drivers/{driverId}")
+    public Mono<TripHistoryResponse> getDriverTripHistory(@PathVariable String driverId,
+                                                          TripHistoryRequest request,
+                                                          @AuthenticationPrincipal String principal) {
+        requireSelf(driverId, principal);
+        return reactiveTripService.getTripHistory(TripParticipant.DRIVER, driverId, request);
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority(@tripExportProperties.authority)")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> exportTrips(TripExportRequest request) {
+        Flux<byte[]> chunks = reactiveTripService.exportTrips(request);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(NDJSON);
+        if (request.isGzip()) {
+            chunks = gzip(chunks);
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return Mono.just(response.body(chunks.map(DefaultDataBufferFactory.sharedInstance::wrap)));
+    }
+
+    @GetMapping("/{tripId}")
+    public Mono<TripResponse> getTripDetails(@PathVariable String tripId) {
+        return reactiveTripService.getTripDetails(tripId);
+    }
+
+    @PutMapping("/{tripId}/status")
+    public Mono<String> updateTripStatus(@PathVariable String tripId, @RequestParam TripStatus status) {
+        return reactiveTripService.updateTripStatus(tripId, status);
+    }
+
+    /**
+     * Compresses each chunk as it comes, sync-flushed so clients see progress. The trailer is only
+     * written on success: a failed export must not end in a valid gzip stream.
+     */
+    private static Flux<byte[]> gzip(Flux<byte[]> chunks) {
+        return Flux.defer(() -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            GZIPOutputStream gzip = gzipStream(compressed);
+            return chunks.map(chunk -> drain(compressed, () -> {
+                        gzip.write(chunk);
+                        gzip.flush();
+                    }))
+                    .concatWith(Mono.fromCallable(() -> drain(compressed, gzip::close)));
+        });
+    }
+
+    private static GZIPOutputStream gzipStream(ByteArrayOutputStream out) {
+        try {
+            return new GZIPOutputStream(out, 64 * 1024, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] drain(ByteArrayOutputStream compressed, IOAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] bytes = compressed.toByteArray();
+        compressed.reset();
+        return bytes;
+    }
+
+    private static void requireSelf(String participantId, String principal) {
+        if (!participantId.equals(principal)) {
+            throw new AccessDeniedException("Trip history is only available to its own user or driver");
+        }
+    }
+
+    private interface IOAction {
+        void run() throws IOException;
+    }
+}
@@ -1,24 +1,56 @@
 package com.example.trip_service.controller;
 
+import com.example.trip_service.ENUM.TripParticipant;
 import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.request.TripExportRequest;
+import com.example.trip_service.request.TripHistoryRequest;
 import com.example.trip_service.request.TripRequest;
+import com.example.trip_service.response.CreateTripResponse;
+import com.example.trip_service.response.NearbyTripResponse;
+import com.example.trip_service.response.NearestTripResponse;
+import com.example.trip_service.response.TripHistoryResponse;
 import com.example.trip_service.response.TripResponse;
+import com.example.trip_service.service.TripExportService;
 import com.example.trip_service.service.TripService;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/trips")
 public class TripController {
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final TripService tripService;
+    private final TripExportService tripExportService;
 
-    public TripController(TripService tripService) {
+    public TripController(TripService tripService, TripExportService tripExportService) {
         this.tripService = tripService;
+        this.tripExportService = tripExportService;
     }
 
     @PostMapping
-    public String createTrip(@RequestBody TripRequest tripRequest) throws JsonProcessingException {
-        return tripService.createTrip(tripRequest);
+    public CreateTripResponse createTrip(@RequestBody TripRequest tripRequest,
+                                         @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                         @AuthenticationPrincipal String principal) {
+        return tripService.createTrip(tripRequest, principal, idempotencyKey);
+    }
+
+    @PostMapping("/status")
+    public Map<String, String> getTripStatuses(@RequestBody List<String> tripIds) {
+        return tripService.getTripStatuses(tripIds);
     }
 
     @GetMapping("/{tripId}/status")
@@ -26,6 +58,59 @@ public class TripController {
         return tripService.getTripStatus(tripId);
     }
 
+    @GetMapping("/nearby")
+    public List<NearbyTripResponse> findNearbyPendingTrips(@RequestParam double lat,
+                                                           @RequestParam double lng,
+                                                           @RequestParam(required = false) Double radius,
+                                                           @RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "20") int size) {
+        return tripService.findNearbyPendingTrips(lat, lng, radius, page, size);
+    }
+
+    @GetMapping("/nearest")
+    public List<NearestTripResponse> findNearestOpenTrips(@RequestParam double lat,
+                                                          @RequestParam double lng,
+                                                          @RequestParam(required = false) Double radius,
+                                                          @RequestParam(defaultValue = "10") int limit) {
+        return tripService.findNearestOpenTrips(lat, lng, radius, limit);
+    }
+
+    @GetMapping("/users/{userId}")
+    public TripHistoryResponse getUserTripHistory(@PathVariable String userId,
+                                                  TripHistoryRequest request,
+                                                  @AuthenticationPrincipal String principal) {
+        requireSelf(userId, principal);
+        return tripService.getTripHistory(TripParticipant.USER, userId, request);
+    }
+
+    @GetMapping("/drivers/{driverId}")
+    public TripHistoryResponse getDriverTripHistory(@PathVariable String driverId,
+                                                    TripHistoryRequest request,
+                                                    @AuthenticationPrincipal String principal) {
+        requireSelf(driverId, principal);
+        return tripService.getTripHistory(TripParticipant.DRIVER, driverId, request);
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority(@tripExportProperties.authority)")
+    public ResponseEntity<StreamingResponseBody> exportTrips(TripExportRequest request) {
+        StreamingResponseBody body = out -> {
+            if (request.isGzip()) {
+                // only finished on success: a failed export must not end in a valid gzip trailer
+                GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+                tripExportService.export(request, gzip);
+                gzip.close();
+            } else {
+                tripExportService.export(request, out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(NDJSON);
+        if (request.isGzip()) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     @GetMapping("/{tripId}")
     public TripResponse getTripDetails(@PathVariable String tripId) {
         return tripService.getTripDetails(tripId);
@@ -35,4 +120,10 @@ public class TripController {
     public String updateTripStatus(@PathVariable String tripId, @RequestParam TripStatus status) {
         return tripService.updateTripStatus(tripId, status);
     }
+
+    private static void requireSelf(String participantId, String principal) {
+        if (!participantId.equals(principal)) {
+            throw new AccessDeniedException("Trip history is only available to its own user or driver");
+        }
+    }
 }
@@ -0,0 +1,34 @@
+package com.example.trip_service.controller;
+
+import com.example.trip_service.event.DriverLocationEvent;
+import com.example.trip_service.location.TripLocationTracker;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+/**
+ * STOMP ingest for drivers that are already connected to {@code /ws}: a SEND to
+ * {@code /app/trips/{tripId}/location} is recorded for the authenticated driver, whatever trip or
+ * driver id the body carries.
+ */
+@Controller
+public class TripLocationController {
+    private final TripLocationTracker tripLocationTracker;
+
+    public TripLocationController(TripLocationTracker tripLocationTracker) {
+        this.tripLocationTracker = tripLocationTracker;
+    }
+
+    @MessageMapping("/trips/{tripId}/location")
+    public void reportLocation(@DestinationVariable String tripId, @Payload DriverLocationEvent location, Principal principal) {
+        if (principal == null) {
+            return;
+        }
+        location.setTripId(tripId);
+        location.setDriverId(principal.getName());
+        tripLocationTracker.record(location);
+    }
+}
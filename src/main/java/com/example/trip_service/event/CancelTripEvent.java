@@ -0,0 +1,11 @@
+package com.example.trip_service.event;
+
+import lombok.Data;
+
+@Data
+public class CancelTripEvent {
+    private String tripId;
+    private String userId;
+    private String reason;
+    private long cancelledAt;
+}
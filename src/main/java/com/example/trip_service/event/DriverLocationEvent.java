@@ -0,0 +1,15 @@
+package com.example.trip_service.event;
+
+import lombok.Data;
+
+@Data
+public class DriverLocationEvent {
+    private String tripId;
+    private String driverId;
+    private double latitude;
+    private double longitude;
+    /**
+     * When the device took the fix, in epoch milliseconds; 0 means when it was received.
+     */
+    private long recordedAt;
+}
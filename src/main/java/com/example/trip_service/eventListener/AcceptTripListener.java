@@ -1,37 +1,102 @@
 package com.example.trip_service.eventListener;
 
-import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.cache.TripCache;
+import com.example.trip_service.codec.TripEventCodecs;
+import com.example.trip_service.config.KafkaConsumerConfig;
 import com.example.trip_service.event.AcceptTripEvent;
+import com.example.trip_service.matching.OpenTripIndex;
 import com.example.trip_service.model.Trip;
+import com.example.trip_service.notification.TripStatusNotifier;
 import com.example.trip_service.repository.TripRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
 @Component
 public class AcceptTripListener {
+    private static final long DEAD_LETTER_TIMEOUT_SECONDS = 10;
+
     @Autowired
     private TripRepository tripRepository;
     @Autowired
-    private SimpMessagingTemplate simpMessagingTemplate;
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    @KafkaListener(topics = "trip_created", groupId = "driver-service-group")
-    public void listenCreatedTrip(String message) {
-        try {
-            // Parse the incoming message (assuming it's JSON)
-            AcceptTripEvent acceptTripEvent = objectMapper.readValue(message, AcceptTripEvent.class);
+    private TripCache tripCache;
+    @Autowired
+    private TripStatusNotifier tripStatusNotifier;
+    @Autowired
+    private OpenTripIndex openTripIndex;
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    @Autowired
+    private TripEventCodecs tripEventCodecs;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Applies a whole poll of driver accepts in one bulk write. The first accept for a trip in
+     * the batch wins, later ones lose the {@code PENDING} guard exactly as they would against
+     * an already accepted trip. Each record is decoded in the format named by its headers, and
+     * records that cannot be decoded go to {@code trip_created.DLT} with their headers intact.
+     * Dead letters are sent after the accepts are written and each send is awaited; one that
+     * fails is rethrown as a {@link BatchListenerFailedException} so the container's error
+     * handler retries from that record and finally hands it to its own dead letter recoverer.
+     * {@code trip.accept.lag} records how long each accept waited in Kafka; the time spent here
+     * is the container's own {@code spring.kafka.listener} timer.
+     */
+    @KafkaListener(topics = "trip_created", groupId = "driver-service-group", containerFactory = "acceptTripBatchListenerContainerFactory")
+    public void listenCreatedTrip(List<ConsumerRecord<String, byte[]>> records) {
+        Map<String, String> driverIdsByTripId = new LinkedHashMap<>();
+        Map<ConsumerRecord<String, byte[]>, Exception> unreadable = new LinkedHashMap<>();
+        Timer lag = meterRegistry.timer("trip.accept.lag");
+        long now = System.currentTimeMillis();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            lag.record(Math.max(0, now - record.timestamp()), TimeUnit.MILLISECONDS);
+            try {
+                AcceptTripEvent acceptTripEvent = tripEventCodecs.decode(record.headers(), record.value(), AcceptTripEvent.class);
+                if (acceptTripEvent.getTripId() == null || acceptTripEvent.getDriverId() == null) {
+                    throw new IllegalArgumentException("AcceptTripEvent requires tripId and driverId");
+                }
+                driverIdsByTripId.putIfAbsent(acceptTripEvent.getTripId(), acceptTripEvent.getDriverId());
+            } catch (Exception e) {
+                unreadable.put(record, e);
+            }
+        }
 
-            Trip trip = tripRepository.findById(acceptTripEvent.getTripId()).orElseThrow(
-                    () -> new RuntimeException("Trip not found with id: " + acceptTripEvent.getTripId())
-            );
+        for (Trip trip : tripRepository.acceptPending(driverIdsByTripId)) {
+            tripCache.put(trip);
+            openTripIndex.update(trip);
+            tripStatusNotifier.publish(trip);
+        }
+        unreadable.forEach(this::deadLetter);
+    }
 
-            trip.setDriverId(acceptTripEvent.getDriverId());
-            trip.setStatus(TripStatus.ACCEPTED);
-            tripRepository.save(trip);
-        } catch (Exception e) {
-            e.printStackTrace();
+    private void deadLetter(ConsumerRecord<String, byte[]> record, Exception e) {
+        log.warn("Routing unreadable record {}-{}@{} to dead letter topic", record.topic(), record.partition(), record.offset(), e);
+        ProducerRecord<String, byte[]> deadLetter = new ProducerRecord<>(record.topic() + KafkaConsumerConfig.DEAD_LETTER_SUFFIX, null,
+                record.key(), record.value(), record.headers());
+        deadLetter.headers().add("x-exception-message", String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+        try {
+            kafkaTemplate.send(deadLetter).get(DEAD_LETTER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new BatchListenerFailedException("Interrupted while dead-lettering", ie, record);
+        } catch (ExecutionException | TimeoutException failure) {
+            throw new BatchListenerFailedException("Could not dead-letter unreadable record", failure, record);
         }
     }
 }
@@ -0,0 +1,46 @@
+package com.example.trip_service.eventListener;
+
+import com.example.trip_service.codec.TripEventCodecs;
+import com.example.trip_service.event.DriverLocationEvent;
+import com.example.trip_service.location.TripLocationTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Slf4j
+@Component
+public class DriverLocationListener {
+    private final TripLocationTracker tripLocationTracker;
+    private final TripEventCodecs tripEventCodecs;
+    private final Counter unreadable;
+
+    public DriverLocationListener(TripLocationTracker tripLocationTracker, TripEventCodecs tripEventCodecs, MeterRegistry meterRegistry) {
+        this.tripLocationTracker = tripLocationTracker;
+        this.tripEventCodecs = tripEventCodecs;
+        this.unreadable = meterRegistry.counter("trip.location.pings", "result", "unreadable");
+    }
+
+    /**
+     * Hands a poll of driver pings to the tracker. Pings that cannot be parsed are counted and
+     * skipped rather than dead-lettered; the next ping replaces them anyway.
+     */
+    @KafkaListener(topics = "${trip.location.topic:driver_location}", groupId = "trip-location-group", containerFactory = "locationBatchListenerContainerFactory")
+    public void listenLocations(List<ConsumerRecord<String, byte[]>> records) {
+        for (ConsumerRecord<String, byte[]> record : records) {
+            DriverLocationEvent ping;
+            try {
+                ping = tripEventCodecs.decode(record.headers(), record.value(), DriverLocationEvent.class);
+            } catch (IllegalArgumentException e) {
+                unreadable.increment();
+                log.debug("Skipping unreadable location ping {}-{}@{}", record.topic(), record.partition(), record.offset(), e);
+                continue;
+            }
+            tripLocationTracker.record(ping);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.trip_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyKeyInUseException extends RuntimeException {
+    public IdempotencyKeyInUseException() {
+        super("A request with this Idempotency-Key is still being processed, retry later");
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.trip_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    public IdempotencyKeyMismatchException() {
+        super("This Idempotency-Key was already used for a different trip request");
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.trip_service.exception;
+
+import com.example.trip_service.ENUM.TripStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IllegalTripTransitionException extends RuntimeException {
+    public IllegalTripTransitionException(String tripId, TripStatus current, TripStatus target) {
+        super("Trip " + tripId + " cannot move from " + current + " to " + target);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.trip_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPickupLocationException extends RuntimeException {
+    public InvalidPickupLocationException(String latitude, String longitude) {
+        super("Invalid pickup location: latitude=" + latitude + " longitude=" + longitude);
+    }
+}
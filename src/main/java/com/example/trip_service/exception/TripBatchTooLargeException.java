@@ -0,0 +1,11 @@
+package com.example.trip_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class TripBatchTooLargeException extends RuntimeException {
+    public TripBatchTooLargeException(int requested, int max) {
+        super("Requested " + requested + " trips, at most " + max + " are allowed per call");
+    }
+}
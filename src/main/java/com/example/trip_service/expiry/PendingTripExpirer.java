@@ -0,0 +1,185 @@
+package com.example.trip_service.expiry;
+
+import com.example.trip_service.cache.TripCache;
+import com.example.trip_service.codec.TripEventCodecs;
+import com.example.trip_service.event.CancelTripEvent;
+import com.example.trip_service.location.TripLocationTracker;
+import com.example.trip_service.logging.TripLogEvent;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.example.trip_service.matching.OpenTripIndex;
+import com.example.trip_service.model.OutboxEvent;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.notification.TripStatusNotifier;
+import com.example.trip_service.properties.TripExpiryProperties;
+import com.example.trip_service.repository.TripRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cancels trips nobody accepted within {@code trip.expiry.pending-ttl-ms}. Trips created on this
+ * instance are filed in a {@link TimingWheel} and cancelled in batches as their deadlines pass.
+ * Every {@code trip.expiry.sweep-interval-ms} the oldest pending trips are also read from the
+ * {@code status_created} index, which picks up trips created by an instance that stopped, trips
+ * the wheel refused and batches that failed.
+ * <p>
+ * Cancelling is a conditional update on {@code PENDING} and the creation time, so a trip accepted
+ * in the meantime is left alone and instances sweeping together cancel each trip once. Each
+ * cancelled trip gets a {@link CancelTripEvent} on {@code trip.expiry.topic} through the outbox.
+ */
+@Slf4j
+@Component
+public class PendingTripExpirer {
+    static final String EXPIRED_REASON = "EXPIRED";
+
+    private final TripRepository tripRepository;
+    private final TripCache tripCache;
+    private final OpenTripIndex openTripIndex;
+    private final TripStatusNotifier tripStatusNotifier;
+    private final TripLogPipeline tripLogPipeline;
+    private final TripEventCodecs tripEventCodecs;
+    private final TripLocationTracker tripLocationTracker;
+    private final boolean enabled;
+    private final long pendingTtlMs;
+    private final int maxScheduled;
+    private final int batchSize;
+    private final String topic;
+    // guarded by itself
+    private final TimingWheel wheel;
+    private final ReentrantLock expiryLock = new ReentrantLock();
+    private final Counter expired;
+    private final Counter skipped;
+    private final Counter deferred;
+    private final Counter failed;
+
+    public PendingTripExpirer(TripExpiryProperties properties, TripRepository tripRepository, TripCache tripCache, OpenTripIndex openTripIndex,
+                              TripStatusNotifier tripStatusNotifier, TripLogPipeline tripLogPipeline, TripEventCodecs tripEventCodecs,
+                              TripLocationTracker tripLocationTracker, MeterRegistry meterRegistry) {
+        this.tripRepository = tripRepository;
+        this.tripCache = tripCache;
+        this.openTripIndex = openTripIndex;
+        this.tripStatusNotifier = tripStatusNotifier;
+        this.tripLogPipeline = tripLogPipeline;
+        this.tripEventCodecs = tripEventCodecs;
+        this.tripLocationTracker = tripLocationTracker;
+        this.enabled = properties.isEnabled();
+        this.pendingTtlMs = properties.getPendingTtlMs();
+        this.maxScheduled = properties.getMaxScheduled();
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.topic = properties.getTopic();
+        this.wheel = new TimingWheel(properties.getTickMs(), properties.getWheelSize(), properties.getWheelLevels(), System.currentTimeMillis());
+        this.expired = meterRegistry.counter("trip.expiry.trips", "result", "expired");
+        this.skipped = meterRegistry.counter("trip.expiry.trips", "result", "skipped");
+        this.deferred = meterRegistry.counter("trip.expiry.trips", "result", "deferred");
+        this.failed = meterRegistry.counter("trip.expiry.trips", "result", "failed");
+        meterRegistry.gauge("trip.expiry.scheduled", this, PendingTripExpirer::scheduledCount);
+    }
+
+    /**
+     * Files a newly created {@code PENDING} trip to expire; when the wheel is full or cannot
+     * reach the deadline the trip is left to the sweep.
+     */
+    public void schedule(Trip trip) {
+        if (!enabled || trip == null || trip.getId() == null || trip.getCreatedAt() == null) {
+            return;
+        }
+        long deadline = trip.getCreatedAt().toEpochMilli() + pendingTtlMs;
+        boolean scheduled;
+        synchronized (wheel) {
+            scheduled = wheel.size() < maxScheduled && wheel.schedule(trip.getId(), deadline);
+        }
+        if (!scheduled) {
+            deferred.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trip.expiry.tick-ms:1000}")
+    public void advance() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<String> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(now, due);
+        }
+        Instant createdUpTo = Instant.ofEpochMilli(now - pendingTtlMs);
+        for (int from = 0; from < due.size(); from += batchSize) {
+            expire(due.subList(from, Math.min(due.size(), from + batchSize)), createdUpTo, "wheel");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trip.expiry.sweep-interval-ms:60000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        Instant createdUpTo = Instant.now().minusMillis(pendingTtlMs);
+        while (true) {
+            List<String> tripIds;
+            try {
+                tripIds = tripRepository.findExpiredPendingIds(createdUpTo, batchSize);
+            } catch (RuntimeException e) {
+                log.warn("Could not look up expired pending trips", e);
+                return;
+            }
+            // a batch that cancelled nothing was failing or racing other instances; try again next run
+            if (tripIds.isEmpty() || expire(tripIds, createdUpTo, "sweep") == 0 || tripIds.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Cancels the still pending trips among {@code tripIds} and returns how many it cancelled.
+     * Runs of the wheel and the sweep take turns so they never race each other over a trip.
+     */
+    private int expire(List<String> tripIds, Instant createdUpTo, String source) {
+        List<Trip> cancelled;
+        // held across the Mongo transaction, so a lock rather than a monitor a virtual thread would pin on
+        expiryLock.lock();
+        try {
+            cancelled = tripRepository.cancelExpiredPending(tripIds, createdUpTo, this::cancelTripEvent);
+        } catch (RuntimeException e) {
+            failed.increment(tripIds.size());
+            log.warn("Could not expire {} pending trips", tripIds.size(), e);
+            return 0;
+        } finally {
+            expiryLock.unlock();
+        }
+        for (Trip trip : cancelled) {
+            tripCache.put(trip);
+            openTripIndex.update(trip);
+            tripLocationTracker.close(trip.getId());
+            tripStatusNotifier.publish(trip);
+        }
+        expired.increment(cancelled.size());
+        skipped.increment(tripIds.size() - cancelled.size());
+        if (!cancelled.isEmpty()) {
+            tripLogPipeline.log(TripLogEvent.PENDING_TRIPS_EXPIRED, cancelled.size(), source);
+        }
+        return cancelled.size();
+    }
+
+    private OutboxEvent cancelTripEvent(Trip trip) {
+        CancelTripEvent cancelTripEvent = new CancelTripEvent();
+        cancelTripEvent.setTripId(trip.getId());
+        cancelTripEvent.setUserId(trip.getUserId());
+        cancelTripEvent.setReason(EXPIRED_REASON);
+        cancelTripEvent.setCancelledAt(trip.getUpdatedAt().toEpochMilli());
+        return OutboxEvent.of(topic, trip.getId(), tripEventCodecs.encode(cancelTripEvent));
+    }
+
+    int scheduledCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+}
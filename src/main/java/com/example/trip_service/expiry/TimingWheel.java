@@ -0,0 +1,105 @@
+package com.example.trip_service.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel of ids by deadline. Level 0 has one slot per tick and each slot of
+ * level {@code n} spans a full turn of level {@code n - 1}. An id is filed in the lowest level
+ * whose turn reaches its deadline and moves down a level each time the wheel passes its slot,
+ * so scheduling is constant time and a tick only touches the ids due in it or cascading through
+ * it. Deadlines beyond the top level's turn are refused. Not thread-safe.
+ */
+final class TimingWheel {
+    private final long tickMs;
+    private final int bits;
+    private final long mask;
+    private final int levels;
+    private final List<List<Entry>> slots;
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMs, int wheelSize, int levels, long nowMs) {
+        this.tickMs = Math.max(1, tickMs);
+        this.bits = Integer.numberOfTrailingZeros(Integer.highestOneBit(Math.max(1, wheelSize - 1) << 1));
+        this.mask = (1L << bits) - 1;
+        this.levels = Math.max(1, Math.min(levels, 62 / bits));
+        this.slots = new ArrayList<>(this.levels << bits);
+        for (int i = 0; i < this.levels << bits; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = Math.floorDiv(nowMs, this.tickMs);
+    }
+
+    /**
+     * Files {@code id} to come due on the first tick at or after {@code deadlineMs}, or returns
+     * false when the deadline is beyond the wheel's span.
+     */
+    boolean schedule(String id, long deadlineMs) {
+        long deadlineTick = Math.max(currentTick + 1, Math.floorDiv(deadlineMs + tickMs - 1, tickMs));
+        if (!place(new Entry(id, deadlineTick))) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Turns the wheel up to {@code nowMs} and adds the ids that came due to {@code due}.
+     */
+    void advance(long nowMs, List<String> due) {
+        long nowTick = Math.floorDiv(nowMs, tickMs);
+        if (nowTick - currentTick >= 1L << (bits * levels)) {
+            // a full turn of the top level has gone by, so everything filed is due
+            for (List<Entry> slot : slots) {
+                slot.forEach(entry -> due.add(entry.id()));
+                slot.clear();
+            }
+            size = 0;
+            currentTick = nowTick;
+            return;
+        }
+        while (currentTick < nowTick) {
+            currentTick++;
+            cascade(1);
+            List<Entry> slot = slots.get((int) (currentTick & mask));
+            slot.forEach(entry -> due.add(entry.id()));
+            size -= slot.size();
+            slot.clear();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Moves the entries of {@code level}'s current slot down a level once the levels below have
+     * completed a turn, higher levels first so their entries can cascade all the way down.
+     */
+    private void cascade(int level) {
+        if (level >= levels || (currentTick & ((1L << (bits * level)) - 1)) != 0) {
+            return;
+        }
+        cascade(level + 1);
+        List<Entry> slot = slots.get((level << bits) + (int) ((currentTick >>> (bits * level)) & mask));
+        List<Entry> entries = new ArrayList<>(slot);
+        slot.clear();
+        entries.forEach(this::place);
+    }
+
+    private boolean place(Entry entry) {
+        long delta = entry.deadlineTick() - currentTick;
+        int level = 0;
+        while (delta >= 1L << (bits * (level + 1))) {
+            if (++level == levels) {
+                return false;
+            }
+        }
+        slots.get((level << bits) + (int) ((entry.deadlineTick() >>> (bits * level)) & mask)).add(entry);
+        return true;
+    }
+
+    private record Entry(String id, long deadlineTick) {
+    }
+}
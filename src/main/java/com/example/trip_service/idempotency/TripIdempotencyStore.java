@@ -0,0 +1,178 @@
+package com.example.trip_service.idempotency;
+
+import com.example.trip_service.exception.IdempotencyKeyInUseException;
+import com.example.trip_service.exception.IdempotencyKeyMismatchException;
+import com.example.trip_service.properties.TripIdempotencyProperties;
+import com.example.trip_service.request.TripRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Remembers which trip each {@code Idempotency-Key} created, per authenticated caller, in Redis. The first request
+ * with a key claims it with {@code SET NX} for {@code trip.idempotency.pending-ttl-seconds}, then
+ * records the trip id for {@code trip.idempotency.ttl-seconds}. A retry within that window gets
+ * the original trip id back without reaching Mongo or Kafka. A retry that arrives while the first
+ * request is still running is refused, as is a key reused for a different request.
+ * <p>
+ * Keys are stored as a SHA-256 digest, so clients may send any length. When Redis cannot be
+ * reached, requests go through without deduplication rather than failing.
+ */
+@Slf4j
+@Component
+public class TripIdempotencyStore {
+    private static final String KEY_PREFIX = "trip-idempotency:";
+    private static final char SEPARATOR = '|';
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration pendingTtl;
+    private final MeterRegistry meterRegistry;
+
+    public TripIdempotencyStore(TripIdempotencyProperties properties, @Nullable StringRedisTemplate stringRedisTemplate,
+                                ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = properties.isEnabled() ? stringRedisTemplate : null;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofSeconds(properties.getTtlSeconds());
+        this.pendingTtl = Duration.ofSeconds(properties.getPendingTtlSeconds());
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Claims {@code idempotencyKey} for this request, scoped to {@code principal}, the caller's
+     * authenticated id, never the user id in the request body. The returned claim either carries the trip id
+     * of an earlier identical request, or must be completed with the new trip's id, or released
+     * when creating it fails. Without a key, or without Redis, the claim does nothing.
+     *
+     * @throws IdempotencyKeyInUseException    when an identical request holds the key right now
+     * @throws IdempotencyKeyMismatchException when the key was used for a different request
+     */
+    public Claim claim(String principal, TripRequest tripRequest, @Nullable String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || stringRedisTemplate == null) {
+            return Claim.NONE;
+        }
+        String redisKey = KEY_PREFIX + principal + ":" + digest(idempotencyKey.getBytes(StandardCharsets.UTF_8));
+        String fingerprint = fingerprint(tripRequest);
+        try {
+            // the key may expire between a failed SET NX and the GET; then claim it again
+            for (int attempt = 0; attempt < 2; attempt++) {
+                if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(redisKey, fingerprint + SEPARATOR, pendingTtl))) {
+                    count("claimed");
+                    return new Claim(this, redisKey, fingerprint, null);
+                }
+                String stored = stringRedisTemplate.opsForValue().get(redisKey);
+                if (stored != null) {
+                    return existing(stored, fingerprint);
+                }
+            }
+            throw new IdempotencyKeyInUseException();
+        } catch (IdempotencyKeyInUseException | IdempotencyKeyMismatchException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            count("unavailable");
+            log.warn("Creating a trip without deduplication, Redis is unavailable", e);
+            return Claim.NONE;
+        }
+    }
+
+    private Claim existing(String stored, String fingerprint) {
+        int separator = stored.indexOf(SEPARATOR);
+        if (separator < 0 || !stored.substring(0, separator).equals(fingerprint)) {
+            count("mismatch");
+            throw new IdempotencyKeyMismatchException();
+        }
+        if (separator == stored.length() - 1) {
+            count("in_progress");
+            throw new IdempotencyKeyInUseException();
+        }
+        count("replayed");
+        return new Claim(null, null, null, stored.substring(separator + 1));
+    }
+
+    private void complete(Claim claim, String tripId) {
+        try {
+            stringRedisTemplate.opsForValue().set(claim.redisKey, claim.fingerprint + SEPARATOR + tripId, ttl);
+        } catch (RuntimeException e) {
+            log.warn("Failed to record trip {} for its Idempotency-Key, a retry will create another trip", tripId, e);
+        }
+    }
+
+    private void release(Claim claim) {
+        try {
+            stringRedisTemplate.delete(claim.redisKey);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release an Idempotency-Key, retries are refused until it expires", e);
+        }
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("trip.idempotency.requests", "outcome", outcome).increment();
+    }
+
+    private String fingerprint(TripRequest tripRequest) {
+        try {
+            return digest(objectMapper.writeValueAsBytes(tripRequest));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("TripRequest is not serializable", e);
+        }
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The outcome of {@link #claim}: either {@link #replayedTripId()} is set, or the caller owns the
+     * key until it calls {@link #complete(String)} or {@link #release()}.
+     */
+    public static final class Claim {
+        static final Claim NONE = new Claim(null, null, null, null);
+
+        private final TripIdempotencyStore store;
+        private final String redisKey;
+        private final String fingerprint;
+        private final String replayedTripId;
+
+        private Claim(TripIdempotencyStore store, String redisKey, String fingerprint, String replayedTripId) {
+            this.store = store;
+            this.redisKey = redisKey;
+            this.fingerprint = fingerprint;
+            this.replayedTripId = replayedTripId;
+        }
+
+        /**
+         * The id of the trip an earlier request with the same key created, or null.
+         */
+        @Nullable
+        public String replayedTripId() {
+            return replayedTripId;
+        }
+
+        public void complete(String tripId) {
+            if (store != null) {
+                store.complete(this, tripId);
+            }
+        }
+
+        public void release() {
+            if (store != null) {
+                store.release(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.trip_service.location;
+
+import com.example.trip_service.DTO.TripLocationUpdateDTO;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.cache.TripCache;
+import com.example.trip_service.event.DriverLocationEvent;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.model.TripLocationBucket;
+import com.example.trip_service.notification.TripMessageFanout;
+import com.example.trip_service.properties.TripLocationProperties;
+import com.example.trip_service.repository.TripLocationRepository;
+import com.example.trip_service.repository.TripRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a track per {@code IN_PROGRESS} trip for the driver's location pings. A ping is kept when
+ * at least {@code trip.location.min-interval-ms} passed since the last kept point and the driver
+ * moved {@code trip.location.min-distance-meters}, or when {@code trip.location.max-interval-ms}
+ * passed whatever the distance; the rest only refresh the latest position.
+ * <p>
+ * Every flush interval the kept points of all tracks are delta-encoded and appended to their
+ * {@link TripLocationBucket} in one bulk upsert, so Mongo sees at most one update per active trip
+ * and flush however often drivers ping, and a bucket never holds more than its window allows.
+ * The latest position is pushed to the rider's {@code /user/queue/trip-locations} at the publish
+ * interval. A track is opened on the first ping of the trip's driver while the trip is
+ * {@code IN_PROGRESS}, and dropped once no ping arrived for {@code trip.location.idle-timeout-ms}.
+ * Every ping re-checks the cached trip status first, and {@link #close(String)} ends a track as
+ * soon as its trip leaves {@code IN_PROGRESS} on this instance, so no points are kept after it.
+ */
+@Slf4j
+@Component
+public class TripLocationTracker {
+    public static final String LOCATION_QUEUE = "/queue/trip-locations";
+    private static final double METERS_PER_DEGREE = 111_320;
+    private static final double E5 = 100_000;
+
+    private final TripLocationProperties properties;
+    private final TripLocationRepository tripLocationRepository;
+    private final TripCache tripCache;
+    private final TripRepository tripRepository;
+    private final TripMessageFanout tripMessageFanout;
+    private final Map<String, Track> tracks = new ConcurrentHashMap<>();
+    private final long bucketMs;
+    private final Counter kept;
+    private final Counter downsampled;
+    private final Counter rejected;
+    private final Counter overflow;
+    private final Counter written;
+    private final Counter failed;
+    private final Timer flushTimer;
+
+    public TripLocationTracker(TripLocationProperties properties, TripLocationRepository tripLocationRepository, TripCache tripCache,
+                               TripRepository tripRepository, TripMessageFanout tripMessageFanout, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tripLocationRepository = tripLocationRepository;
+        this.tripCache = tripCache;
+        this.tripRepository = tripRepository;
+        this.tripMessageFanout = tripMessageFanout;
+        this.bucketMs = properties.getBucketSeconds() * 1000;
+        this.kept = meterRegistry.counter("trip.location.pings", "result", "kept");
+        this.downsampled = meterRegistry.counter("trip.location.pings", "result", "downsampled");
+        this.rejected = meterRegistry.counter("trip.location.pings", "result", "rejected");
+        this.overflow = meterRegistry.counter("trip.location.pings", "result", "overflow");
+        this.written = meterRegistry.counter("trip.location.points", "result", "written");
+        this.failed = meterRegistry.counter("trip.location.points", "result", "failed");
+        this.flushTimer = meterRegistry.timer("trip.location.flush");
+        meterRegistry.gauge("trip.location.active", tracks, Map::size);
+    }
+
+    public void record(DriverLocationEvent ping) {
+        if (ping == null || ping.getTripId() == null || ping.getDriverId() == null
+                || !isValidCoordinate(ping.getLatitude(), ping.getLongitude())) {
+            rejected.increment();
+            return;
+        }
+        // another instance may have ended the trip; its invalidation leaves the cache to reload it
+        Optional<Trip> trip = tripCache.get(ping.getTripId(), tripRepository::findById);
+        if (trip.isEmpty() || trip.get().getStatus() != TripStatus.IN_PROGRESS || trip.get().getDriverId() == null) {
+            close(ping.getTripId());
+            rejected.increment();
+            return;
+        }
+        if (!trip.get().getDriverId().equals(ping.getDriverId())) {
+            rejected.increment();
+            return;
+        }
+        Track track = tracks.get(ping.getTripId());
+        if (track == null) {
+            track = open(trip.get());
+            if (track == null) {
+                return;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        long recordedAt = ping.getRecordedAt() > 0 ? ping.getRecordedAt() : now;
+        switch (track.add(recordedAt, ping.getLatitude(), ping.getLongitude(), now, properties)) {
+            case KEPT -> kept.increment();
+            case DOWNSAMPLED -> downsampled.increment();
+            case OVERFLOW -> overflow.increment();
+            case CLOSED -> rejected.increment();
+        }
+    }
+
+    private Track open(Trip trip) {
+        if (tracks.size() >= properties.getMaxActiveTrips()) {
+            overflow.increment();
+            return null;
+        }
+        Track track = new Track(trip.getId(), trip.getUserId(), trip.getDriverId(), System.currentTimeMillis());
+        Track existing = tracks.putIfAbsent(trip.getId(), track);
+        if (existing != null) {
+            return existing;
+        }
+        // close() puts the new status in the cache before it removes the track, so either the
+        // change is visible here or that removal comes after this track was added
+        if (tripCache.getNear(trip.getId()).map(Trip::getStatus).filter(status -> status != TripStatus.IN_PROGRESS).isPresent()) {
+            close(trip.getId());
+        }
+        return track;
+    }
+
+    /**
+     * Ends the trip's track, if any: its pending points are written now and later pings for the
+     * trip are rejected. Callers invoke it after putting the trip's new status in the cache.
+     */
+    public void close(String tripId) {
+        Track track = tracks.remove(tripId);
+        if (track == null) {
+            return;
+        }
+        List<TripLocationBucket> batch = new ArrayList<>();
+        track.close(batch, bucketMs);
+        write(batch);
+    }
+
+    /**
+     * Writes the points kept since the previous flush and drops idle tracks. Points of a batch
+     * that fails to write are dropped and counted rather than retried, since newer ones follow.
+     */
+    @Scheduled(fixedDelayString = "${trip.location.flush-interval-ms:5000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        List<TripLocationBucket> batch = new ArrayList<>();
+        for (Track track : tracks.values()) {
+            if (track.drainTo(batch, bucketMs, now - properties.getIdleTimeoutMs())) {
+                tracks.remove(track.tripId, track);
+            }
+            if (batch.size() >= properties.getFlushBatchSize()) {
+                write(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        write(batch);
+    }
+
+    private void write(List<TripLocationBucket> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int points = batch.stream().mapToInt(TripLocationBucket::getPoints).sum();
+        try {
+            flushTimer.record(() -> tripLocationRepository.appendSegments(batch));
+            written.increment(points);
+        } catch (RuntimeException e) {
+            failed.increment(points);
+            log.warn("Failed to write {} location points of {} trips", points, batch.size(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trip.location.publish-interval-ms:500}")
+    public void publishLatest() {
+        for (Track track : tracks.values()) {
+            TripLocationUpdateDTO update = track.takeLatest();
+            if (update == null || track.userId == null) {
+                continue;
+            }
+            try {
+                tripMessageFanout.convertAndSendToUser(track.userId, LOCATION_QUEUE, update);
+            } catch (RuntimeException e) {
+                log.warn("Failed to push location for trip {}", track.tripId, e);
+            }
+        }
+    }
+
+    static double distanceMeters(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double dy = (toLatitude - fromLatitude) * METERS_PER_DEGREE;
+        double dx = (toLongitude - fromLongitude) * METERS_PER_DEGREE * Math.cos(Math.toRadians(fromLatitude));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static boolean isValidCoordinate(double latitude, double longitude) {
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    private enum Outcome {KEPT, DOWNSAMPLED, OVERFLOW, CLOSED}
+
+    private static final class Track {
+        final String tripId;
+        final String userId;
+        final String driverId;
+
+        private long lastPingAt;
+        private long latestAt;
+        private double latestLatitude;
+        private double latestLongitude;
+        private boolean latestPublished = true;
+        private boolean closed;
+
+        private long keptAt = Long.MIN_VALUE;
+        private double keptLatitude;
+        private double keptLongitude;
+
+        private long[] times = new long[8];
+        private int[] latitudes = new int[8];
+        private int[] longitudes = new int[8];
+        private int size;
+
+        Track(String tripId, String userId, String driverId, long now) {
+            this.tripId = tripId;
+            this.userId = userId;
+            this.driverId = driverId;
+            this.lastPingAt = now;
+        }
+
+        synchronized Outcome add(long recordedAt, double latitude, double longitude, long now, TripLocationProperties properties) {
+            if (closed) {
+                return Outcome.CLOSED;
+            }
+            lastPingAt = now;
+            if (recordedAt >= latestAt) {
+                latestAt = recordedAt;
+                latestLatitude = latitude;
+                latestLongitude = longitude;
+                latestPublished = false;
+            }
+
+            if (keptAt != Long.MIN_VALUE) {
+                long elapsed = recordedAt - keptAt;
+                boolean due = elapsed >= properties.getMaxIntervalMs() || elapsed >= properties.getMinIntervalMs()
+                        && distanceMeters(keptLatitude, keptLongitude, latitude, longitude) >= properties.getMinDistanceMeters();
+                if (!due) {
+                    return Outcome.DOWNSAMPLED;
+                }
+            }
+            if (size == properties.getMaxPendingPoints()) {
+                return Outcome.OVERFLOW;
+            }
+            if (size == times.length) {
+                int capacity = Math.min(size * 2, properties.getMaxPendingPoints());
+                times = Arrays.copyOf(times, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+            }
+            times[size] = recordedAt;
+            latitudes[size] = (int) Math.round(latitude * E5);
+            longitudes[size] = (int) Math.round(longitude * E5);
+            size++;
+            keptAt = recordedAt;
+            keptLatitude = latitude;
+            keptLongitude = longitude;
+            return Outcome.KEPT;
+        }
+
+        /**
+         * Moves the pending points into {@code batch}, one bucket per run of points in the same
+         * window. Returns true when the track has been idle since {@code idleBefore}.
+         */
+        synchronized boolean drainTo(List<TripLocationBucket> batch, long bucketMs, long idleBefore) {
+            int start = 0;
+            while (start < size) {
+                long bucketStart = times[start] - Math.floorMod(times[start], bucketMs);
+                int end = start + 1;
+                while (end < size && times[end] >= bucketStart && times[end] < bucketStart + bucketMs) {
+                    end++;
+                }
+                batch.add(bucket(bucketStart, start, end));
+                start = end;
+            }
+            size = 0;
+            return lastPingAt < idleBefore;
+        }
+
+        synchronized void close(List<TripLocationBucket> batch, long bucketMs) {
+            closed = true;
+            latestPublished = true;
+            drainTo(batch, bucketMs, Long.MIN_VALUE);
+        }
+
+        private TripLocationBucket bucket(long bucketStart, int from, int to) {
+            TripLocationBucket.Segment segment = new TripLocationBucket.Segment();
+            segment.setStartedAt(times[from]);
+            segment.setLatitudeE5(latitudes[from]);
+            segment.setLongitudeE5(longitudes[from]);
+            int[] deltas = new int[(to - from - 1) * 3];
+            for (int i = from + 1, d = 0; i < to; i++) {
+                deltas[d++] = (int) (times[i] - times[i - 1]);
+                deltas[d++] = latitudes[i] - latitudes[i - 1];
+                deltas[d++] = longitudes[i] - longitudes[i - 1];
+            }
+            segment.setDeltas(deltas);
+
+            TripLocationBucket bucket = new TripLocationBucket();
+            bucket.setId(tripId + ":" + bucketStart / 1000);
+            bucket.setTripId(tripId);
+            bucket.setDriverId(driverId);
+            bucket.setBucketStart(Instant.ofEpochMilli(bucketStart));
+            bucket.setPoints(to - from);
+            bucket.setLastRecordedAt(Instant.ofEpochMilli(times[to - 1]));
+            bucket.setSegments(List.of(segment));
+            return bucket;
+        }
+
+        synchronized TripLocationUpdateDTO takeLatest() {
+            if (latestPublished) {
+                return null;
+            }
+            latestPublished = true;
+            TripLocationUpdateDTO update = new TripLocationUpdateDTO();
+            update.setTripId(tripId);
+            update.setDriverId(driverId);
+            update.setLatitude(latestLatitude);
+            update.setLongitude(latestLongitude);
+            update.setTimestamp(latestAt);
+            return update;
+        }
+    }
+}
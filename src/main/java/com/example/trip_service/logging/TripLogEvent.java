@@ -0,0 +1,23 @@
+package com.example.trip_service.logging;
+
+public enum TripLogEvent {
+    TRIP_PERSISTED("Trip persisted: id=%s status=%s"),
+    CREATE_TRIP_EVENT_QUEUED("CreateTripEvent queued: tripId=%s userId=%s topic=%s"),
+    OUTBOX_EVENT_PUBLISHED("Outbox event published: topic=%s key=%s"),
+    TRIP_STATUS_FETCHED("Trip status fetched: id=%s status=%s"),
+    TRIP_STATUSES_FETCHED("Trip statuses fetched: requested=%s found=%s"),
+    TRIP_DETAILS_FETCHED("Trip details fetched: id=%s userId=%s driverId=%s status=%s"),
+    TRIP_STATUS_UPDATED("Trip status updated: id=%s status=%s"),
+    TRIPS_EXPORTED("Trips exported: count=%s lastId=%s"),
+    PENDING_TRIPS_EXPIRED("Pending trips expired: count=%s source=%s");
+
+    private final String template;
+
+    TripLogEvent(String template) {
+        this.template = template;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+}
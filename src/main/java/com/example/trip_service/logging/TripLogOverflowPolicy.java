@@ -0,0 +1,8 @@
+package com.example.trip_service.logging;
+
+public enum TripLogOverflowPolicy {
+    /** Discard the entry and count it. The request thread never waits. */
+    DROP,
+    /** Wait for the drainer to free a slot. */
+    BLOCK
+}
@@ -0,0 +1,167 @@
+package com.example.trip_service.logging;
+
+import com.example.trip_service.properties.TripLogProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured trip log shipping to Kafka off the request thread. {@code log(...)} only stores the
+ * event and its argument references in a {@link TripLogRingBuffer}; a single background thread
+ * formats the JSON and hands it to a dedicated producer that batches and compresses records.
+ */
+@Slf4j
+@Component
+public class TripLogPipeline {
+    private static final String SERVICE_NAME = "driver-service";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final TripLogRingBuffer ringBuffer;
+    private final TripLogOverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final String topic;
+    private final ProducerFactory<String, String> producerFactory;
+    private final KafkaTemplate<String, String> logKafkaTemplate;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final StringWriter jsonBuffer = new StringWriter(256);
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean running;
+    private Thread drainer;
+
+    @Autowired
+    public TripLogPipeline(TripLogProperties properties, KafkaProperties kafkaProperties, MeterRegistry meterRegistry) {
+        this(properties, new DefaultKafkaProducerFactory<>(producerProperties(properties, kafkaProperties),
+                new StringSerializer(), new StringSerializer()), meterRegistry);
+    }
+
+    public TripLogPipeline(TripLogProperties properties, ProducerFactory<String, String> producerFactory, MeterRegistry meterRegistry) {
+        this.ringBuffer = new TripLogRingBuffer(properties.getBufferSize());
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.batchSize = properties.getBatchSize();
+        this.topic = properties.getTopic();
+        this.producerFactory = producerFactory;
+        this.logKafkaTemplate = new KafkaTemplate<>(producerFactory);
+
+        FunctionCounter.builder("trip.logs", enqueued, LongAdder::sum).tag("result", "enqueued").register(meterRegistry);
+        FunctionCounter.builder("trip.logs", dropped, LongAdder::sum).tag("result", "dropped").register(meterRegistry);
+        FunctionCounter.builder("trip.logs", sent, LongAdder::sum).tag("result", "sent").register(meterRegistry);
+        FunctionCounter.builder("trip.logs", failed, LongAdder::sum).tag("result", "failed").register(meterRegistry);
+        Gauge.builder("trip.logs.backlog", ringBuffer, TripLogRingBuffer::size).register(meterRegistry);
+    }
+
+    private static Map<String, Object> producerProperties(TripLogProperties properties, KafkaProperties kafkaProperties) {
+        Map<String, Object> producerProperties = kafkaProperties.buildProducerProperties(null);
+        producerProperties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, properties.getCompressionType());
+        producerProperties.put(ProducerConfig.LINGER_MS_CONFIG, properties.getLingerMs());
+        producerProperties.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+        producerProperties.put(ProducerConfig.ACKS_CONFIG, "1");
+        return producerProperties;
+    }
+
+    public void log(TripLogEvent event, Object arg0, Object arg1) {
+        enqueue(event, arg0, arg1, null, null);
+    }
+
+    public void log(TripLogEvent event, Object arg0, Object arg1, Object arg2) {
+        enqueue(event, arg0, arg1, arg2, null);
+    }
+
+    public void log(TripLogEvent event, Object arg0, Object arg1, Object arg2, Object arg3) {
+        enqueue(event, arg0, arg1, arg2, arg3);
+    }
+
+    private void enqueue(TripLogEvent event, Object arg0, Object arg1, Object arg2, Object arg3) {
+        long timestamp = System.currentTimeMillis();
+        while (!ringBuffer.offer(event, timestamp, arg0, arg1, arg2, arg3)) {
+            if (overflowPolicy == TripLogOverflowPolicy.DROP || !running) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        enqueued.increment();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        drainer = new Thread(this::drainLoop, "trip-log-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        running = false;
+        drainer.join(TimeUnit.SECONDS.toMillis(5));
+        logKafkaTemplate.flush();
+        if (producerFactory instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (ringBuffer.drain(this::send, batchSize) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        while (ringBuffer.drain(this::send, batchSize) > 0) {
+            // flush what was enqueued before shutdown
+        }
+    }
+
+    private void send(TripLogEvent event, long timestamp, Object arg0, Object arg1, Object arg2, Object arg3) {
+        try {
+            logKafkaTemplate.send(topic, toJson(event, timestamp, arg0, arg1, arg2, arg3))
+                    .whenComplete((result, ex) -> {
+                        if (ex == null) {
+                            sent.increment();
+                        } else {
+                            failed.increment();
+                        }
+                    });
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            log.warn("Failed to ship trip log {}", event, e);
+        }
+    }
+
+    String toJson(TripLogEvent event, long timestamp, Object arg0, Object arg1, Object arg2, Object arg3) throws IOException {
+        jsonBuffer.getBuffer().setLength(0);
+        try (JsonGenerator generator = jsonFactory.createGenerator(jsonBuffer)) {
+            generator.writeStartObject();
+            generator.writeStringField("message", String.format(event.getTemplate(), arg0, arg1, arg2, arg3));
+            generator.writeStringField("service_name", SERVICE_NAME);
+            generator.writeStringField("timestamp", Instant.ofEpochMilli(timestamp).toString());
+            generator.writeEndObject();
+        }
+        return jsonBuffer.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.trip_service.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring of log entries with preallocated slots.
+ * Producers claim a slot with a CAS on the tail and publish it through a per-slot sequence,
+ * so {@link #offer} never locks and never allocates.
+ */
+public class TripLogRingBuffer {
+    private final int mask;
+    private final int capacity;
+    private final AtomicLongArray sequences;
+    private final TripLogEvent[] events;
+    private final long[] timestamps;
+    private final Object[] args0;
+    private final Object[] args1;
+    private final Object[] args2;
+    private final Object[] args3;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    public TripLogRingBuffer(int requestedCapacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.events = new TripLogEvent[capacity];
+        this.timestamps = new long[capacity];
+        this.args0 = new Object[capacity];
+        this.args1 = new Object[capacity];
+        this.args2 = new Object[capacity];
+        this.args3 = new Object[capacity];
+    }
+
+    public boolean offer(TripLogEvent event, long timestamp, Object arg0, Object arg1, Object arg2, Object arg3) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events[index] = event;
+                    timestamps[index] = timestamp;
+                    args0[index] = arg0;
+                    args1[index] = arg1;
+                    args2[index] = arg2;
+                    args3[index] = arg3;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hands at most {@code limit} published entries to {@code consumer} in claim order.
+     * Must only be called from the single draining thread.
+     */
+    public int drain(EntryConsumer consumer, int limit) {
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            TripLogEvent event = events[index];
+            long timestamp = timestamps[index];
+            Object arg0 = args0[index];
+            Object arg1 = args1[index];
+            Object arg2 = args2[index];
+            Object arg3 = args3[index];
+            args0[index] = null;
+            args1[index] = null;
+            args2[index] = null;
+            args3[index] = null;
+            sequences.lazySet(index, head + capacity);
+            head++;
+            drained++;
+            consumer.accept(event, timestamp, arg0, arg1, arg2, arg3);
+        }
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(TripLogEvent event, long timestamp, Object arg0, Object arg1, Object arg2, Object arg3);
+    }
+}
@@ -0,0 +1,346 @@
+package com.example.trip_service.matching;
+
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.properties.OpenTripIndexProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-process grid of open ({@code PENDING}) trips with a pickup point, for nearest-trip lookups
+ * that cost the same whether a thousand or a million trips are open. The world is cut into
+ * square cells of {@code trip.matching.cell-size-degrees}; each cell keeps its trips in parallel
+ * primitive arrays, and cells are spread over {@code trip.matching.lock-stripes} open-addressed
+ * tables, each guarded by its own lock. {@link #nearest} only visits the cells overlapping the
+ * search radius and writes into caller-supplied arrays, so it allocates nothing.
+ *
+ * <p>The index is per instance and best effort: it sees this instance's writes immediately and
+ * everything else through {@link OpenTripIndexSynchronizer}. A stale entry only costs a driver a
+ * lost accept, since {@code acceptPending} still guards on the stored status.
+ */
+@Component
+public class OpenTripIndex {
+    private static final double METERS_PER_DEGREE = 111_320;
+
+    private final double cellDegrees;
+    private final int latCells;
+    private final int lngCells;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    public OpenTripIndex(OpenTripIndexProperties properties, MeterRegistry meterRegistry) {
+        this.cellDegrees = properties.getCellSizeDegrees();
+        this.latCells = (int) Math.ceil(180 / cellDegrees);
+        this.lngCells = (int) Math.ceil(360 / cellDegrees);
+        int stripeCount = Integer.highestOneBit(Math.max(1, properties.getLockStripes() - 1) << 1);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = stripeCount - 1;
+        Gauge.builder("trip.matching.open.trips", entries, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    /**
+     * Indexes the trip when it is {@code PENDING} and has a pickup point, and drops it otherwise.
+     * Call after every persisted change of a trip.
+     */
+    public void update(Trip trip) {
+        GeoJsonPoint pickup = trip.getPickupLocation();
+        if (trip.getStatus() == TripStatus.PENDING && pickup != null) {
+            put(trip.getId(), pickup.getY(), pickup.getX());
+        } else {
+            remove(trip.getId());
+        }
+    }
+
+    public void put(String tripId, double latitude, double longitude) {
+        long cellKey = cellKey(latIndex(latitude), lngIndex(longitude));
+        entries.compute(tripId, (id, previous) -> {
+            if (previous != null && previous.cellKey != cellKey) {
+                removeFromCell(previous.cellKey, id);
+            }
+            Stripe stripe = stripe(cellKey);
+            long stamp = stripe.lock.writeLock();
+            try {
+                stripe.findOrCreate(cellKey).put(id, latitude, longitude);
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+            return new Entry(cellKey, versions.incrementAndGet());
+        });
+    }
+
+    public void remove(String tripId) {
+        entries.computeIfPresent(tripId, (id, entry) -> {
+            removeFromCell(entry.cellKey, id);
+            return null;
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes the ids of up to {@code tripIds.length} open trips within {@code radiusMeters} of the
+     * given point into {@code tripIds}, nearest first, with their distances in meters into
+     * {@code distancesMeters}, and returns how many were written.
+     */
+    public int nearest(double latitude, double longitude, double radiusMeters, String[] tripIds, double[] distancesMeters) {
+        int limit = Math.min(tripIds.length, distancesMeters.length);
+        if (limit == 0 || radiusMeters <= 0) {
+            return 0;
+        }
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        double cellHeightMeters = METERS_PER_DEGREE * cellDegrees;
+        double cellWidthMeters = cellHeightMeters * cosLatitude;
+        int latSpan = (int) Math.min(latCells, Math.ceil(radiusMeters / cellHeightMeters));
+        int lngSpan = cellWidthMeters < 1e-6
+                ? (lngCells - 1) / 2
+                : (int) Math.min((lngCells - 1) / 2, Math.ceil(radiusMeters / cellWidthMeters));
+        double ringMeters = Math.min(cellHeightMeters, Math.max(cellWidthMeters, 1e-6));
+        int centerLat = latIndex(latitude);
+        int centerLng = lngIndex(longitude);
+
+        // rings of cells around the center; once the k-th best is closer than anything the next
+        // ring can hold, the remaining rings cannot change the result
+        int found = 0;
+        for (int ring = 0; ring <= Math.max(latSpan, lngSpan); ring++) {
+            for (int rowOffset = -Math.min(ring, latSpan); rowOffset <= Math.min(ring, latSpan); rowOffset++) {
+                int row = centerLat + rowOffset;
+                if (row < 0 || row >= latCells) {
+                    continue;
+                }
+                boolean edgeRow = Math.abs(rowOffset) == ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int columnOffset = -ring; columnOffset <= ring; columnOffset += Math.max(step, 1)) {
+                    if (Math.abs(columnOffset) > lngSpan) {
+                        continue;
+                    }
+                    long cellKey = cellKey(row, Math.floorMod(centerLng + columnOffset, lngCells));
+                    found = scanCell(cellKey, latitude, longitude, cosLatitude, radiusMeters, tripIds, distancesMeters, found, limit);
+                }
+            }
+            if (found == limit && distancesMeters[limit - 1] <= ring * ringMeters) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Starts a resynchronisation with the store; entries written after the returned mark are
+     * kept by {@link #sweep} whether or not the store returned them.
+     */
+    long syncMark() {
+        return versions.incrementAndGet();
+    }
+
+    /**
+     * Drops the entries written before {@code mark} that are not in {@code openTripIds}, and
+     * returns how many were dropped.
+     */
+    int sweep(long mark, Set<String> openTripIds) {
+        int[] removed = new int[1];
+        for (String tripId : entries.keySet()) {
+            entries.computeIfPresent(tripId, (id, entry) -> {
+                if (entry.version >= mark || openTripIds.contains(id)) {
+                    return entry;
+                }
+                removeFromCell(entry.cellKey, id);
+                removed[0]++;
+                return null;
+            });
+        }
+        return removed[0];
+    }
+
+    private int scanCell(long cellKey, double latitude, double longitude, double cosLatitude, double radiusMeters,
+                         String[] tripIds, double[] distancesMeters, int found, int limit) {
+        Stripe stripe = stripe(cellKey);
+        long stamp = stripe.lock.readLock();
+        try {
+            Cell cell = stripe.find(cellKey);
+            if (cell == null) {
+                return found;
+            }
+            for (int i = 0; i < cell.size; i++) {
+                double dy = (cell.latitudes[i] - latitude) * METERS_PER_DEGREE;
+                double dLng = cell.longitudes[i] - longitude;
+                if (dLng > 180) {
+                    dLng -= 360;
+                } else if (dLng < -180) {
+                    dLng += 360;
+                }
+                double dx = dLng * cosLatitude * METERS_PER_DEGREE;
+                double distance = Math.sqrt(dx * dx + dy * dy);
+                if (distance > radiusMeters || (found == limit && distance >= distancesMeters[limit - 1])) {
+                    continue;
+                }
+                int position = found == limit ? limit - 1 : found++;
+                while (position > 0 && distancesMeters[position - 1] > distance) {
+                    tripIds[position] = tripIds[position - 1];
+                    distancesMeters[position] = distancesMeters[position - 1];
+                    position--;
+                }
+                tripIds[position] = cell.tripIds[i];
+                distancesMeters[position] = distance;
+            }
+            return found;
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    private void removeFromCell(long cellKey, String tripId) {
+        Stripe stripe = stripe(cellKey);
+        long stamp = stripe.lock.writeLock();
+        try {
+            Cell cell = stripe.find(cellKey);
+            if (cell != null) {
+                cell.remove(tripId);
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    private int latIndex(double latitude) {
+        return Math.min(latCells - 1, Math.max(0, (int) Math.floor((latitude + 90) / cellDegrees)));
+    }
+
+    private int lngIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), lngCells);
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    private Stripe stripe(long cellKey) {
+        return stripes[(int) mix(cellKey) & stripeMask];
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private record Entry(long cellKey, long version) {
+    }
+
+    /**
+     * Open-addressed table of the cells hashed to this stripe. Cells are never removed, so the
+     * table only grows with the area trips have been seen in, not with the number of trips.
+     */
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private long[] keys = new long[16];
+        private Cell[] cells = new Cell[16];
+        private int count;
+
+        Cell find(long cellKey) {
+            int mask = keys.length - 1;
+            for (int slot = (int) (mix(cellKey) >>> 32) & mask; ; slot = (slot + 1) & mask) {
+                Cell cell = cells[slot];
+                if (cell == null || keys[slot] == cellKey) {
+                    return cell;
+                }
+            }
+        }
+
+        Cell findOrCreate(long cellKey) {
+            Cell cell = find(cellKey);
+            if (cell != null) {
+                return cell;
+            }
+            if ((count + 1) * 2 > keys.length) {
+                resize();
+            }
+            cell = new Cell();
+            insert(keys, cells, cellKey, cell);
+            count++;
+            return cell;
+        }
+
+        private void resize() {
+            long[] newKeys = new long[keys.length * 2];
+            Cell[] newCells = new Cell[cells.length * 2];
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] != null) {
+                    insert(newKeys, newCells, keys[i], cells[i]);
+                }
+            }
+            keys = newKeys;
+            cells = newCells;
+        }
+
+        private static void insert(long[] keys, Cell[] cells, long cellKey, Cell cell) {
+            int mask = keys.length - 1;
+            int slot = (int) (mix(cellKey) >>> 32) & mask;
+            while (cells[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = cellKey;
+            cells[slot] = cell;
+        }
+    }
+
+    private static final class Cell {
+        private String[] tripIds = new String[4];
+        private double[] latitudes = new double[4];
+        private double[] longitudes = new double[4];
+        private int size;
+
+        void put(String tripId, double latitude, double longitude) {
+            int index = indexOf(tripId);
+            if (index < 0) {
+                if (size == tripIds.length) {
+                    tripIds = Arrays.copyOf(tripIds, size * 2);
+                    latitudes = Arrays.copyOf(latitudes, size * 2);
+                    longitudes = Arrays.copyOf(longitudes, size * 2);
+                }
+                index = size++;
+                tripIds[index] = tripId;
+            }
+            latitudes[index] = latitude;
+            longitudes[index] = longitude;
+        }
+
+        void remove(String tripId) {
+            int index = indexOf(tripId);
+            if (index < 0) {
+                return;
+            }
+            int last = --size;
+            tripIds[index] = tripIds[last];
+            latitudes[index] = latitudes[last];
+            longitudes[index] = longitudes[last];
+            tripIds[last] = null;
+        }
+
+        private int indexOf(String tripId) {
+            for (int i = 0; i < size; i++) {
+                if (tripIds[i].equals(tripId)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.trip_service.matching;
+
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.repository.TripRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Loads the open trips into {@link OpenTripIndex} when the scheduler starts and reconciles it
+ * with Mongo every {@code trip.matching.sync-interval-ms}, picking up trips created and dropping
+ * trips closed through other instances. A failed run is logged and retried on the next tick.
+ */
+@Slf4j
+@Component
+public class OpenTripIndexSynchronizer {
+    private final TripRepository tripRepository;
+    private final OpenTripIndex openTripIndex;
+
+    public OpenTripIndexSynchronizer(TripRepository tripRepository, OpenTripIndex openTripIndex) {
+        this.tripRepository = tripRepository;
+        this.openTripIndex = openTripIndex;
+    }
+
+    @Scheduled(fixedDelayString = "${trip.matching.sync-interval-ms:60000}")
+    public void synchronize() {
+        long mark = openTripIndex.syncMark();
+        Set<String> openTripIds = new HashSet<>();
+        try (Stream<Trip> openTrips = tripRepository.streamWithPickupByStatus(TripStatus.PENDING)) {
+            openTrips.forEach(trip -> {
+                openTripIds.add(trip.getId());
+                openTripIndex.update(trip);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not synchronize the open trip index", e);
+            return;
+        }
+        int removed = openTripIndex.sweep(mark, openTripIds);
+        log.debug("Open trip index synchronized: {} open, {} removed", openTripIds.size(), removed);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.trip_service.metrics;
+
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.repository.TripRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes {@code trip.status.trips}, the number of trips in each {@link TripStatus}. The counts
+ * are refreshed from Mongo every {@code trip.metrics.status-refresh-ms} rather than on each
+ * scrape, so scraping never reaches the database. A failed refresh keeps the previous counts.
+ */
+@Slf4j
+@Component
+public class TripStatusGauges {
+    private final TripRepository tripRepository;
+    private final Map<TripStatus, AtomicLong> counts = new EnumMap<>(TripStatus.class);
+
+    public TripStatusGauges(TripRepository tripRepository, MeterRegistry meterRegistry) {
+        this.tripRepository = tripRepository;
+        for (TripStatus status : TripStatus.values()) {
+            AtomicLong count = new AtomicLong();
+            counts.put(status, count);
+            Gauge.builder("trip.status.trips", count, AtomicLong::get).tag("status", status.name()).register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trip.metrics.status-refresh-ms:60000}")
+    public void refresh() {
+        Map<TripStatus, Long> refreshed = new EnumMap<>(TripStatus.class);
+        try {
+            for (TripStatus status : TripStatus.values()) {
+                refreshed.put(status, tripRepository.countByStatus(status));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh the trip status gauges", e);
+            return;
+        }
+        refreshed.forEach((status, count) -> counts.get(status).set(count));
+    }
+}
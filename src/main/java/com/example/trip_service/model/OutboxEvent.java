@@ -0,0 +1,38 @@
+package com.example.trip_service.model;
+
+import com.example.trip_service.codec.EncodedTripEvent;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A Kafka record waiting to be relayed. {@code data} is the value as encoded by the
+ * {@code format} codec at {@code version}; events written before codecs existed have a JSON
+ * {@code payload} string instead.
+ */
+@Data
+@Document(collection = "trip_outbox")
+public class OutboxEvent {
+    @Id
+    private String id;
+    private String topic;
+    private String key;
+    private String payload;
+    private String format;
+    private Integer version;
+    private byte[] data;
+    private Instant createdAt;
+
+    public static OutboxEvent of(String topic, String key, EncodedTripEvent event) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setTopic(topic);
+        outboxEvent.setKey(key);
+        outboxEvent.setFormat(event.format());
+        outboxEvent.setVersion(event.version());
+        outboxEvent.setData(event.payload());
+        outboxEvent.setCreatedAt(Instant.now());
+        return outboxEvent;
+    }
+}
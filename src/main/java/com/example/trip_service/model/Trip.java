@@ -3,8 +3,25 @@ package com.example.trip_service.model;
 import com.example.trip_service.ENUM.TripStatus;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 
+import java.time.Instant;
+
+/**
+ * {@code status_pickup} serves nearby-pending lookups: the equality on status narrows the scan
+ * before the 2dsphere part orders by distance, and it is the only 2dsphere index on the
+ * collection so {@code $geoNear} never has to pick between two. {@code user_history} and
+ * {@code driver_history} match the history listings' equality and sort, so a page is a bounded
+ * index range scan whatever its position. {@code status_created} lets the expiry sweep read the
+ * oldest pending trips' ids from the index alone, and its {@code status} prefix serves the
+ * per-status counts.
+ */
 @Data
+@CompoundIndex(name = "status_pickup", def = "{'status': 1, 'pickupLocation': '2dsphere'}")
+@CompoundIndex(name = "user_history", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "driver_history", def = "{'driverId': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "status_created", def = "{'status': 1, 'createdAt': 1, '_id': 1}")
 public class Trip {
     @Id
     private String id;
@@ -13,4 +30,7 @@ public class Trip {
     private String origin;
     private String destination;
     private TripStatus status;
+    private GeoJsonPoint pickupLocation;
+    private Instant createdAt;
+    private Instant updatedAt;
 }
@@ -0,0 +1,42 @@
+package com.example.trip_service.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The driver positions of one trip within one {@code trip.location.bucket-seconds} window, with
+ * id {@code <tripId>:<bucketStart epoch seconds>}. Each flush appends one {@link Segment}, so
+ * a bucket holds a bounded number of points and a track is read back bucket by bucket in
+ * {@code trip_time} order.
+ */
+@Data
+@Document(collection = "trip_locations")
+@CompoundIndex(name = "trip_time", def = "{'tripId': 1, 'bucketStart': 1}")
+public class TripLocationBucket {
+    @Id
+    private String id;
+    private String tripId;
+    private String driverId;
+    private Instant bucketStart;
+    private int points;
+    private Instant lastRecordedAt;
+    private List<Segment> segments;
+
+    /**
+     * A run of points: the first one absolute, the rest in {@code deltas} as
+     * {@code (milliseconds, latitude, longitude)} triples relative to the point before.
+     * Coordinates are in units of 1e-5 degrees, about a metre.
+     */
+    @Data
+    public static class Segment {
+        private long startedAt;
+        private int latitudeE5;
+        private int longitudeE5;
+        private int[] deltas;
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.trip_service.notification;
+
+import com.example.trip_service.properties.TripFanoutProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends STOMP messages to this instance's sessions and, with {@code trip.fanout.mode=redis}, to
+ * the sessions held by the other instances. Every destination with local subscribers, a
+ * {@code /topic/...} destination or a user's {@code /user/...} queues, has its own Redis channel,
+ * and an instance subscribes to the channel only while one of its sessions subscribes to the
+ * destination. Redis therefore delivers a relayed message only to the instances that can hand
+ * it to someone.
+ * <p>
+ * Relayed messages are queued and published in one pipeline every
+ * {@code trip.fanout.relay-interval-ms}. Beyond {@code trip.fanout.max-queued} they are dropped
+ * and counted, as is a batch Redis rejects; local delivery is unaffected by either.
+ * <p>
+ * Subscriber counts change under a short lock, and the Redis subscribe or unsubscribe they call
+ * for runs after it is released. One thread at a time applies those, each time to the channel's
+ * latest count, so a STOMP event never waits on Redis and the channels converge on the counts.
+ */
+@Slf4j
+@Component
+public class TripMessageFanout implements MessageListener, DisposableBean {
+    static final String CHANNEL_PREFIX = "trip-fanout:";
+    private static final String USER_PREFIX = "/user/";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final SimpMessagingTemplate simpMessagingTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer container;
+    private final ObjectMapper objectMapper;
+    private final int maxQueued;
+    private final Queue<Outgoing> queued = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    // written under subscriptionLock, read without it
+    private final Map<String, Integer> localSubscribers = new ConcurrentHashMap<>();
+    // guarded by subscriptionLock
+    private final Map<String, Map<String, String>> channelsBySession = new HashMap<>();
+    private final ReentrantLock subscriptionLock = new ReentrantLock();
+    // channels whose Redis subscription may not match localSubscribers yet
+    private final Set<String> unsynced = ConcurrentHashMap.newKeySet();
+    // guarded by listenerLock
+    private final Set<String> listening = new HashSet<>();
+    private final ReentrantLock listenerLock = new ReentrantLock();
+    private final Counter relayed;
+    private final Counter received;
+    private final Counter dropped;
+    private final Counter failed;
+
+    public TripMessageFanout(TripFanoutProperties properties, SimpMessagingTemplate simpMessagingTemplate,
+                             @Nullable StringRedisTemplate stringRedisTemplate, @Nullable RedisConnectionFactory connectionFactory,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.simpMessagingTemplate = simpMessagingTemplate;
+        this.objectMapper = objectMapper;
+        this.maxQueued = properties.getMaxQueued();
+        boolean redis = properties.isRedis() && stringRedisTemplate != null && connectionFactory != null;
+        this.stringRedisTemplate = redis ? stringRedisTemplate : null;
+        if (redis) {
+            container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            container.afterPropertiesSet();
+        } else {
+            container = null;
+        }
+        this.relayed = meterRegistry.counter("trip.fanout.messages", "result", "relayed");
+        this.received = meterRegistry.counter("trip.fanout.messages", "result", "received");
+        this.dropped = meterRegistry.counter("trip.fanout.messages", "result", "dropped");
+        this.failed = meterRegistry.counter("trip.fanout.messages", "result", "failed");
+        meterRegistry.gauge("trip.fanout.channels", this, TripMessageFanout::channelCount);
+    }
+
+    public void convertAndSend(String destination, Object payload) {
+        simpMessagingTemplate.convertAndSend(destination, payload);
+        enqueue(destination, null, destination, payload);
+    }
+
+    public void convertAndSendToUser(String user, String destination, Object payload) {
+        simpMessagingTemplate.convertAndSendToUser(user, destination, payload);
+        enqueue(userChannel(user), user, destination, payload);
+    }
+
+    private void enqueue(String channel, String user, String destination, Object payload) {
+        if (stringRedisTemplate == null) {
+            return;
+        }
+        if (queuedCount.incrementAndGet() > maxQueued) {
+            queuedCount.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        try {
+            String message = objectMapper.writeValueAsString(new Relay(nodeId, destination, user, objectMapper.valueToTree(payload)));
+            queued.add(new Outgoing(CHANNEL_PREFIX + channel, message));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            queuedCount.decrementAndGet();
+            failed.increment();
+            log.warn("Failed to serialize message for {}", destination, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trip.fanout.relay-interval-ms:20}")
+    public void relay() {
+        if (stringRedisTemplate == null || queued.isEmpty()) {
+            return;
+        }
+        List<Outgoing> batch = new ArrayList<>();
+        Outgoing outgoing;
+        while (batch.size() < maxQueued && (outgoing = queued.poll()) != null) {
+            batch.add(outgoing);
+        }
+        queuedCount.addAndGet(-batch.size());
+        try {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                    batch.forEach(message -> stringOperations.convertAndSend(message.channel(), message.message()));
+                    return null;
+                }
+            });
+            relayed.increment(batch.size());
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            log.warn("Failed to relay {} messages to other instances", batch.size(), e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Relay relay;
+        try {
+            relay = objectMapper.readValue(new String(message.getBody(), StandardCharsets.UTF_8), Relay.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable relayed message", e);
+            return;
+        }
+        if (nodeId.equals(relay.origin())) {
+            return;
+        }
+        received.increment();
+        if (relay.user() != null) {
+            simpMessagingTemplate.convertAndSendToUser(relay.user(), relay.destination(), relay.payload());
+        } else {
+            simpMessagingTemplate.convertAndSend(relay.destination(), relay.payload());
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String channel = channel(accessor.getDestination(), event.getUser());
+        if (channel == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        List<String> changed = new ArrayList<>(2);
+        subscriptionLock.lock();
+        try {
+            String previous = channelsBySession.computeIfAbsent(accessor.getSessionId(), session -> new HashMap<>())
+                    .put(accessor.getSubscriptionId(), channel);
+            if (previous != null) {
+                release(previous, changed);
+            }
+            if (localSubscribers.merge(channel, 1, Integer::sum) == 1) {
+                changed.add(channel);
+            }
+        } finally {
+            subscriptionLock.unlock();
+        }
+        sync(changed);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        List<String> changed = new ArrayList<>(1);
+        subscriptionLock.lock();
+        try {
+            Map<String, String> channels = channelsBySession.get(accessor.getSessionId());
+            String channel = channels == null ? null : channels.remove(accessor.getSubscriptionId());
+            if (channel != null) {
+                release(channel, changed);
+            }
+        } finally {
+            subscriptionLock.unlock();
+        }
+        sync(changed);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        List<String> changed = new ArrayList<>();
+        subscriptionLock.lock();
+        try {
+            Map<String, String> channels = channelsBySession.remove(event.getSessionId());
+            if (channels != null) {
+                channels.values().forEach(channel -> release(channel, changed));
+            }
+        } finally {
+            subscriptionLock.unlock();
+        }
+        sync(changed);
+    }
+
+    private void release(String channel, List<String> changed) {
+        if (localSubscribers.merge(channel, -1, Integer::sum) == 0) {
+            localSubscribers.remove(channel);
+            changed.add(channel);
+        }
+    }
+
+    /**
+     * Brings the Redis subscriptions of {@code channels} in line with their subscriber counts. If
+     * another thread is already doing so, the channels are left to it and this returns at once;
+     * the loop re-checks after unlocking so none is left behind.
+     */
+    private void sync(List<String> channels) {
+        if (container == null || channels.isEmpty()) {
+            return;
+        }
+        unsynced.addAll(channels);
+        while (!unsynced.isEmpty() && listenerLock.tryLock()) {
+            try {
+                for (Iterator<String> it = unsynced.iterator(); it.hasNext(); ) {
+                    String channel = it.next();
+                    it.remove();
+                    listen(channel, localSubscribers.containsKey(channel));
+                }
+            } finally {
+                listenerLock.unlock();
+            }
+        }
+    }
+
+    private void listen(String channel, boolean subscribe) {
+        if (listening.contains(channel) == subscribe) {
+            return;
+        }
+        ChannelTopic topic = new ChannelTopic(CHANNEL_PREFIX + channel);
+        try {
+            if (subscribe) {
+                container.addMessageListener(this, topic);
+                listening.add(channel);
+            } else {
+                container.removeMessageListener(this, topic);
+                listening.remove(channel);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to {} {}, relayed messages for it may be missed", subscribe ? "subscribe to" : "unsubscribe from", topic.getTopic(), e);
+        }
+    }
+
+    /**
+     * Starts the listener container from a retry loop, as {@code TripCacheInvalidationSubscriber}
+     * does, so an unreachable Redis leaves the instance serving its own sessions.
+     */
+    @Scheduled(fixedDelayString = "${trip.cache.redis.resubscribe-interval-ms:30000}")
+    public void ensureSubscribed() {
+        if (container == null || container.isRunning()) {
+            return;
+        }
+        try {
+            container.start();
+        } catch (RuntimeException e) {
+            container.stop();
+            log.warn("Redis unavailable, messages from other instances are not received: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (container != null) {
+            container.destroy();
+        }
+    }
+
+    int channelCount() {
+        return localSubscribers.size();
+    }
+
+    private static String channel(String destination, Principal user) {
+        if (destination == null) {
+            return null;
+        }
+        if (destination.startsWith(USER_PREFIX)) {
+            return user == null ? null : userChannel(user.getName());
+        }
+        return destination;
+    }
+
+    private static String userChannel(String user) {
+        return "user:" + user;
+    }
+
+    private record Relay(String origin, String destination, String user, JsonNode payload) {
+    }
+
+    private record Outgoing(String channel, String message) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.trip_service.notification;
+
+import com.example.trip_service.DTO.TripStatusUpdateDTO;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.properties.TripNotifyProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes trip status changes to {@code /topic/trips/{tripId}} and to the rider's and driver's
+ * {@code /user/queue/trips}. Updates are queued per trip and flushed on a fixed interval, so a
+ * burst of transitions on one trip is delivered as its latest state only: the update with the
+ * later {@code updatedAt}, which is also its {@code timestamp}, whatever order the writers
+ * published them in. When more than
+ * {@code trip.notify.max-pending} trips are waiting, {@code PENDING} updates for new trips are
+ * dropped and counted rather than letting the queue grow; their creator already has the trip
+ * from the create response. Every later status is still queued, since clients no longer poll
+ * and would otherwise never learn of it. Delivery goes through {@link TripMessageFanout}, so
+ * sessions connected to other instances receive the update as well.
+ */
+@Slf4j
+@Component
+public class TripStatusNotifier {
+    public static final String TRIP_TOPIC_PREFIX = "/topic/trips/";
+    public static final String USER_QUEUE = "/queue/trips";
+
+    private final TripMessageFanout tripMessageFanout;
+    private final int maxPending;
+    private final Map<String, TripStatusUpdateDTO> pending = new ConcurrentHashMap<>();
+    private final Counter dropped;
+    private final Counter coalesced;
+
+    public TripStatusNotifier(TripMessageFanout tripMessageFanout, TripNotifyProperties properties, MeterRegistry meterRegistry) {
+        this.tripMessageFanout = tripMessageFanout;
+        this.maxPending = properties.getMaxPending();
+        this.dropped = meterRegistry.counter("trip.notify.updates", "result", "dropped");
+        this.coalesced = meterRegistry.counter("trip.notify.updates", "result", "coalesced");
+        meterRegistry.gauge("trip.notify.pending", pending, Map::size);
+    }
+
+    public void publish(Trip trip) {
+        if (trip == null || trip.getId() == null || trip.getStatus() == null) {
+            return;
+        }
+        TripStatusUpdateDTO update = new TripStatusUpdateDTO();
+        update.setTripId(trip.getId());
+        update.setUserId(trip.getUserId());
+        update.setDriverId(trip.getDriverId());
+        update.setStatus(trip.getStatus().toString());
+        update.setTimestamp(trip.getUpdatedAt() != null ? trip.getUpdatedAt().toEpochMilli() : System.currentTimeMillis());
+
+        if (trip.getStatus() == TripStatus.PENDING && pending.size() >= maxPending && !pending.containsKey(trip.getId())) {
+            dropped.increment();
+            return;
+        }
+        // publish runs on whichever thread wrote the trip, so an older update can arrive last
+        pending.compute(trip.getId(), (tripId, current) -> {
+            if (current == null) {
+                return update;
+            }
+            coalesced.increment();
+            return isLater(update, current) ? update : current;
+        });
+    }
+
+    private static boolean isLater(TripStatusUpdateDTO update, TripStatusUpdateDTO than) {
+        if (update.getTimestamp() != than.getTimestamp()) {
+            return update.getTimestamp() > than.getTimestamp();
+        }
+        return TripStatus.valueOf(update.getStatus()).ordinal() >= TripStatus.valueOf(than.getStatus()).ordinal();
+    }
+
+    @Scheduled(fixedDelayString = "${trip.notify.flush-interval-ms:100}")
+    public void flush() {
+        for (Map.Entry<String, TripStatusUpdateDTO> entry : pending.entrySet()) {
+            TripStatusUpdateDTO update = entry.getValue();
+            if (!pending.remove(entry.getKey(), update)) {
+                continue;
+            }
+            try {
+                send(update);
+            } catch (RuntimeException e) {
+                log.warn("Failed to push status update for trip {}", update.getTripId(), e);
+            }
+        }
+    }
+
+    private void send(TripStatusUpdateDTO update) {
+        tripMessageFanout.convertAndSend(TRIP_TOPIC_PREFIX + update.getTripId(), update);
+        if (update.getUserId() != null) {
+            tripMessageFanout.convertAndSendToUser(update.getUserId(), USER_QUEUE, update);
+        }
+        if (update.getDriverId() != null) {
+            tripMessageFanout.convertAndSendToUser(update.getDriverId(), USER_QUEUE, update);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.trip_service.outbox;
+
+import com.example.trip_service.codec.JsonTripEventCodec;
+import com.example.trip_service.codec.TripEventCodecs;
+import com.example.trip_service.logging.TripLogEvent;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.example.trip_service.model.OutboxEvent;
+import com.example.trip_service.properties.OutboxProperties;
+import com.example.trip_service.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes {@link OutboxEvent}s to Kafka in insertion order and deletes them once the broker has
+ * acknowledged them, giving at-least-once delivery. Events are keyed by trip id so they stay
+ * ordered per trip and carry the {@link TripEventCodecs} headers of the codec that encoded them.
+ * Only the instance holding the relay lease publishes, so replicas do not race each other over
+ * the same events. The lease is renewed before every batch and the drain stops as soon as that
+ * fails; a batch waits at most {@code trip.outbox.send-timeout-ms}, which must stay below
+ * {@code trip.outbox.lease-ms} so the lease cannot lapse mid-batch.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    private static final String LEASE_COLLECTION = "trip_outbox_lease";
+    private static final String LEASE_ID = "trip-outbox-relay";
+
+    private final String owner = UUID.randomUUID().toString();
+    private final OutboxEventRepository outboxEventRepository;
+    private final MongoTemplate mongoTemplate;
+    private final TripLogPipeline tripLogPipeline;
+    private final OutboxProperties properties;
+    private final ProducerFactory<String, byte[]> producerFactory;
+    private final KafkaTemplate<String, byte[]> relayKafkaTemplate;
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, MongoTemplate mongoTemplate, TripLogPipeline tripLogPipeline,
+                       OutboxProperties properties, KafkaProperties kafkaProperties) {
+        this(outboxEventRepository, mongoTemplate, tripLogPipeline, properties,
+                new DefaultKafkaProducerFactory<>(producerProperties(kafkaProperties), new StringSerializer(), new ByteArraySerializer()));
+    }
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, MongoTemplate mongoTemplate, TripLogPipeline tripLogPipeline,
+                       OutboxProperties properties, ProducerFactory<String, byte[]> producerFactory) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.tripLogPipeline = tripLogPipeline;
+        this.properties = properties;
+        this.producerFactory = producerFactory;
+        this.relayKafkaTemplate = new KafkaTemplate<>(producerFactory);
+    }
+
+    private static Map<String, Object> producerProperties(KafkaProperties kafkaProperties) {
+        Map<String, Object> producerProperties = kafkaProperties.buildProducerProperties(null);
+        producerProperties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        producerProperties.put(ProducerConfig.ACKS_CONFIG, "all");
+        producerProperties.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        producerProperties.put(ProducerConfig.RETRIES_CONFIG, Integer.MAX_VALUE);
+        producerProperties.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        return producerProperties;
+    }
+
+    @Scheduled(fixedDelayString = "${trip.outbox.poll-interval-ms:200}")
+    public void relay() {
+        while (acquireLease()) {
+            List<OutboxEvent> batch = outboxEventRepository.findByOrderByIdAsc(PageRequest.of(0, properties.getBatchSize()));
+            if (batch.isEmpty() || !publish(batch) || batch.size() < properties.getBatchSize()) {
+                return;
+            }
+        }
+    }
+
+    private boolean publish(List<OutboxEvent> batch) {
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(batch.size());
+        try {
+            for (OutboxEvent outboxEvent : batch) {
+                futures.add(relayKafkaTemplate.send(record(outboxEvent)));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to hand outbox events to the producer", e);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getSendTimeoutMs());
+        List<String> publishedIds = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            OutboxEvent outboxEvent = batch.get(i);
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                publishedIds.add(outboxEvent.getId());
+                tripLogPipeline.log(TripLogEvent.OUTBOX_EVENT_PUBLISHED, outboxEvent.getTopic(), outboxEvent.getKey());
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Outbox event {} not acknowledged, will retry", outboxEvent.getId(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (!publishedIds.isEmpty()) {
+            outboxEventRepository.deleteAllById(publishedIds);
+        }
+        return publishedIds.size() == batch.size();
+    }
+
+    private static ProducerRecord<String, byte[]> record(OutboxEvent outboxEvent) {
+        ProducerRecord<String, byte[]> record;
+        if (outboxEvent.getData() != null) {
+            record = new ProducerRecord<>(outboxEvent.getTopic(), outboxEvent.getKey(), outboxEvent.getData());
+            TripEventCodecs.addHeaders(record.headers(), outboxEvent.getFormat(), outboxEvent.getVersion());
+        } else {
+            // written before codecs existed: JSON, the format consumers assume without headers
+            record = new ProducerRecord<>(outboxEvent.getTopic(), outboxEvent.getKey(), outboxEvent.getPayload().getBytes(StandardCharsets.UTF_8));
+            TripEventCodecs.addHeaders(record.headers(), JsonTripEventCodec.FORMAT, JsonTripEventCodec.VERSION);
+        }
+        return record;
+    }
+
+    /**
+     * Takes the lease, or extends it when this instance already holds it. Another instance can
+     * take it over only once it has expired.
+     */
+    private boolean acquireLease() {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("_id").is(LEASE_ID)
+                .orOperator(Criteria.where("owner").is(owner), Criteria.where("expiresAt").lt(now)));
+        Update update = new Update()
+                .set("owner", owner)
+                .set("expiresAt", now.plusMillis(properties.getLeaseMs()));
+        try {
+            mongoTemplate.upsert(query, update, LEASE_COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        } catch (DataAccessException e) {
+            log.warn("Could not acquire outbox relay lease: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        relayKafkaTemplate.flush();
+        if (producerFactory instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+}
@@ -9,6 +9,10 @@ public class JwtProperties {
     private String secretKey;
     @Value("${jwt.header}")
     private String jwtHeader;
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+    @Value("${jwt.cache.max-ttl-seconds:900}")
+    private long cacheMaxTtlSeconds;
 
     public String getSecretKey() {
         return secretKey;
@@ -17,4 +21,12 @@ public class JwtProperties {
     public String getJwtHeader() {
         return jwtHeader;
     }
+
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public long getCacheMaxTtlSeconds() {
+        return cacheMaxTtlSeconds;
+    }
 }
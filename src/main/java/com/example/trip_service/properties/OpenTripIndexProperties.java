@@ -0,0 +1,20 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OpenTripIndexProperties {
+    @Value("${trip.matching.cell-size-degrees:0.01}")
+    private double cellSizeDegrees;
+    @Value("${trip.matching.lock-stripes:64}")
+    private int lockStripes;
+
+    public double getCellSizeDegrees() {
+        return cellSizeDegrees;
+    }
+
+    public int getLockStripes() {
+        return lockStripes;
+    }
+}
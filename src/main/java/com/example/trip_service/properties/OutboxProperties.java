@@ -0,0 +1,26 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OutboxProperties {
+    @Value("${trip.outbox.batch-size:500}")
+    private int batchSize;
+    @Value("${trip.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+    @Value("${trip.outbox.lease-ms:15000}")
+    private long leaseMs;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getSendTimeoutMs() {
+        return sendTimeoutMs;
+    }
+
+    public long getLeaseMs() {
+        return leaseMs;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripAdmissionProperties {
+    @Value("${trip.admission.enabled:true}")
+    private boolean enabled;
+    @Value("${trip.admission.initial-limit:200}")
+    private int initialLimit;
+    @Value("${trip.admission.min-limit:20}")
+    private int minLimit;
+    @Value("${trip.admission.max-limit:1000}")
+    private int maxLimit;
+    @Value("${trip.admission.increase-step:10}")
+    private int increaseStep;
+    @Value("${trip.admission.backoff-ratio:0.8}")
+    private double backoffRatio;
+    @Value("${trip.admission.low-priority-share:0.5}")
+    private double lowPriorityShare;
+    @Value("${trip.admission.normal-priority-share:0.8}")
+    private double normalPriorityShare;
+    @Value("${trip.admission.mongo-latency-threshold-ms:100}")
+    private double mongoLatencyThresholdMs;
+    @Value("${trip.admission.kafka-latency-threshold-ms:250}")
+    private double kafkaLatencyThresholdMs;
+    @Value("${trip.admission.auth-service-latency-threshold-ms:500}")
+    private double authServiceLatencyThresholdMs;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getIncreaseStep() {
+        return increaseStep;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public double getLowPriorityShare() {
+        return lowPriorityShare;
+    }
+
+    public double getNormalPriorityShare() {
+        return normalPriorityShare;
+    }
+
+    public double getMongoLatencyThresholdMs() {
+        return mongoLatencyThresholdMs;
+    }
+
+    public double getKafkaLatencyThresholdMs() {
+        return kafkaLatencyThresholdMs;
+    }
+
+    public double getAuthServiceLatencyThresholdMs() {
+        return authServiceLatencyThresholdMs;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripCacheProperties {
+    @Value("${trip.cache.near.max-size:10000}")
+    private long nearMaxSize;
+    @Value("${trip.cache.near.ttl-seconds:30}")
+    private long nearTtlSeconds;
+    @Value("${trip.cache.redis.enabled:true}")
+    private boolean redisEnabled;
+    @Value("${trip.cache.redis.ttl-seconds:300}")
+    private long redisTtlSeconds;
+
+    public long getNearMaxSize() {
+        return nearMaxSize;
+    }
+
+    public long getNearTtlSeconds() {
+        return nearTtlSeconds;
+    }
+
+    public boolean isRedisEnabled() {
+        return redisEnabled;
+    }
+
+    public long getRedisTtlSeconds() {
+        return redisTtlSeconds;
+    }
+}
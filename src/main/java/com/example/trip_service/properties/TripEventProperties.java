@@ -0,0 +1,14 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripEventProperties {
+    @Value("${trip.events.format:json}")
+    private String format;
+
+    public String getFormat() {
+        return format;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripExpiryProperties {
+    @Value("${trip.expiry.enabled:true}")
+    private boolean enabled;
+    @Value("${trip.expiry.pending-ttl-ms:300000}")
+    private long pendingTtlMs;
+    @Value("${trip.expiry.tick-ms:1000}")
+    private long tickMs;
+    @Value("${trip.expiry.wheel-size:64}")
+    private int wheelSize;
+    @Value("${trip.expiry.wheel-levels:3}")
+    private int wheelLevels;
+    @Value("${trip.expiry.max-scheduled:200000}")
+    private int maxScheduled;
+    @Value("${trip.expiry.batch-size:500}")
+    private int batchSize;
+    @Value("${trip.expiry.topic:trip_cancelled}")
+    private String topic;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getPendingTtlMs() {
+        return pendingTtlMs;
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public int getWheelLevels() {
+        return wheelLevels;
+    }
+
+    public int getMaxScheduled() {
+        return maxScheduled;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+}
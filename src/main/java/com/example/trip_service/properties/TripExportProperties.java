@@ -0,0 +1,20 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripExportProperties {
+    @Value("${trip.export.batch-size:1000}")
+    private int batchSize;
+    @Value("${trip.export.authority:ROLE_ADMIN}")
+    private String authority;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public String getAuthority() {
+        return authority;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripFanoutProperties {
+    @Value("${trip.fanout.mode:local}")
+    private String mode;
+    @Value("${trip.fanout.relay-interval-ms:20}")
+    private long relayIntervalMs;
+    @Value("${trip.fanout.max-queued:20000}")
+    private int maxQueued;
+
+    /**
+     * {@code local} delivers to this instance's sessions only, {@code redis} also relays to the
+     * other instances over Redis pub/sub.
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    public boolean isRedis() {
+        return "redis".equalsIgnoreCase(mode);
+    }
+
+    public long getRelayIntervalMs() {
+        return relayIntervalMs;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+}
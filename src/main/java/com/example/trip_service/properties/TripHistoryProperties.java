@@ -0,0 +1,20 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripHistoryProperties {
+    @Value("${trip.history.default-page-size:20}")
+    private int defaultPageSize;
+    @Value("${trip.history.max-page-size:100}")
+    private int maxPageSize;
+
+    public int getDefaultPageSize() {
+        return defaultPageSize;
+    }
+
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+}
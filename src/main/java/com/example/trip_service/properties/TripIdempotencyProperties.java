@@ -0,0 +1,26 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripIdempotencyProperties {
+    @Value("${trip.idempotency.enabled:true}")
+    private boolean enabled;
+    @Value("${trip.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+    @Value("${trip.idempotency.pending-ttl-seconds:30}")
+    private long pendingTtlSeconds;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public long getPendingTtlSeconds() {
+        return pendingTtlSeconds;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripLocationProperties {
+    @Value("${trip.location.min-interval-ms:1000}")
+    private long minIntervalMs;
+    @Value("${trip.location.min-distance-meters:5}")
+    private double minDistanceMeters;
+    @Value("${trip.location.max-interval-ms:10000}")
+    private long maxIntervalMs;
+    @Value("${trip.location.bucket-seconds:600}")
+    private long bucketSeconds;
+    @Value("${trip.location.max-pending-points:600}")
+    private int maxPendingPoints;
+    @Value("${trip.location.max-active-trips:100000}")
+    private int maxActiveTrips;
+    @Value("${trip.location.idle-timeout-ms:120000}")
+    private long idleTimeoutMs;
+    @Value("${trip.location.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    public long getMinIntervalMs() {
+        return minIntervalMs;
+    }
+
+    public double getMinDistanceMeters() {
+        return minDistanceMeters;
+    }
+
+    public long getMaxIntervalMs() {
+        return maxIntervalMs;
+    }
+
+    public long getBucketSeconds() {
+        return bucketSeconds;
+    }
+
+    public int getMaxPendingPoints() {
+        return maxPendingPoints;
+    }
+
+    public int getMaxActiveTrips() {
+        return maxActiveTrips;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public int getFlushBatchSize() {
+        return flushBatchSize;
+    }
+}
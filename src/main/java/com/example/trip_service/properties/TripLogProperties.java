@@ -0,0 +1,45 @@
+package com.example.trip_service.properties;
+
+import com.example.trip_service.logging.TripLogOverflowPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripLogProperties {
+    @Value("${trip.logs.topic:trip_logs}")
+    private String topic;
+    @Value("${trip.logs.buffer-size:8192}")
+    private int bufferSize;
+    @Value("${trip.logs.batch-size:512}")
+    private int batchSize;
+    @Value("${trip.logs.overflow-policy:DROP}")
+    private TripLogOverflowPolicy overflowPolicy;
+    @Value("${trip.logs.compression-type:lz4}")
+    private String compressionType;
+    @Value("${trip.logs.linger-ms:50}")
+    private int lingerMs;
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public TripLogOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public String getCompressionType() {
+        return compressionType;
+    }
+
+    public int getLingerMs() {
+        return lingerMs;
+    }
+}
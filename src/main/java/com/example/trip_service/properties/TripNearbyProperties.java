@@ -0,0 +1,26 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripNearbyProperties {
+    @Value("${trip.nearby.default-radius-meters:3000}")
+    private double defaultRadiusMeters;
+    @Value("${trip.nearby.max-radius-meters:20000}")
+    private double maxRadiusMeters;
+    @Value("${trip.nearby.max-page-size:50}")
+    private int maxPageSize;
+
+    public double getDefaultRadiusMeters() {
+        return defaultRadiusMeters;
+    }
+
+    public double getMaxRadiusMeters() {
+        return maxRadiusMeters;
+    }
+
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+}
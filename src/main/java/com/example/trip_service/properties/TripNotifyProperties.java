@@ -0,0 +1,14 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripNotifyProperties {
+    @Value("${trip.notify.max-pending:50000}")
+    private int maxPending;
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripRateLimitProperties {
+    @Value("${trip.rate-limit.enabled:true}")
+    private boolean enabled;
+    @Value("${trip.rate-limit.mode:local}")
+    private String mode;
+    @Value("${trip.rate-limit.requests-per-second:10}")
+    private double requestsPerSecond;
+    @Value("${trip.rate-limit.burst:20}")
+    private int burst;
+    @Value("${trip.rate-limit.stripes:64}")
+    private int stripes;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * {@code local} keeps the buckets in this instance, {@code redis} shares them between
+     * instances.
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    public boolean isRedis() {
+        return "redis".equalsIgnoreCase(mode);
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TripStatusBatchProperties {
+    @Value("${trip.status-batch.max-ids:200}")
+    private int maxIds;
+
+    public int getMaxIds() {
+        return maxIds;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserClientProperties {
+    @Value("${user.client.url:http://auth-service:3030}")
+    private String url;
+    @Value("${user.client.connect-timeout-ms:500}")
+    private long connectTimeoutMs;
+    @Value("${user.client.read-timeout-ms:2000}")
+    private long readTimeoutMs;
+    @Value("${user.client.user-driver-name.read-timeout-ms:800}")
+    private long userDriverNameReadTimeoutMs;
+    @Value("${user.client.pool.keep-alive-ms:30000}")
+    private long keepAliveMs;
+    @Value("${user.client.pool.idle-eviction-ms:60000}")
+    private long idleEvictionMs;
+    @Value("${user.client.bulkhead.max-concurrent-calls:20}")
+    private int maxConcurrentCalls;
+    @Value("${user.client.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+    @Value("${user.client.circuit-breaker.slow-call-duration-ms:1000}")
+    private long slowCallDurationMs;
+    @Value("${user.client.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+    @Value("${user.client.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+    @Value("${user.client.circuit-breaker.open-duration-ms:10000}")
+    private long openDurationMs;
+    @Value("${user.client.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public long getReadTimeoutMs() {
+        return readTimeoutMs;
+    }
+
+    public long getUserDriverNameReadTimeoutMs() {
+        return userDriverNameReadTimeoutMs;
+    }
+
+    public long getKeepAliveMs() {
+        return keepAliveMs;
+    }
+
+    public long getIdleEvictionMs() {
+        return idleEvictionMs;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public float getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public long getSlowCallDurationMs() {
+        return slowCallDurationMs;
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public long getOpenDurationMs() {
+        return openDurationMs;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.trip_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserNameCacheProperties {
+    @Value("${user.names.cache.max-size:50000}")
+    private long maxSize;
+    @Value("${user.names.cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+}
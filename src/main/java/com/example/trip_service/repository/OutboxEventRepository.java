@@ -0,0 +1,11 @@
+package com.example.trip_service.repository;
+
+import com.example.trip_service.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends MongoRepository<OutboxEvent, String> {
+    List<OutboxEvent> findByOrderByIdAsc(Pageable pageable);
+}
@@ -0,0 +1,11 @@
+package com.example.trip_service.repository;
+
+import com.example.trip_service.model.Trip;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * Reactive access to the {@code trips} collection for the {@code reactive} profile. It issues
+ * the same queries as {@link TripRepository} over the reactive driver.
+ */
+public interface ReactiveTripRepository extends ReactiveMongoRepository<Trip, String>, ReactiveTripRepositoryCustom {
+}
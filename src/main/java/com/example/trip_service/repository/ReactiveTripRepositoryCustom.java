@@ -0,0 +1,51 @@
+package com.example.trip_service.repository;
+
+import com.example.trip_service.DTO.TripHistoryCursor;
+import com.example.trip_service.ENUM.TripParticipant;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.model.OutboxEvent;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.response.TripSummaryResponse;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Reactive forms of the {@link TripRepositoryCustom} operations, with the same semantics.
+ */
+public interface ReactiveTripRepositoryCustom {
+    /**
+     * Inserts the trip and its outbox event in one transaction, see
+     * {@link TripRepositoryCustom#insertWithOutbox}.
+     */
+    Mono<Trip> insertWithOutbox(Trip trip, OutboxEvent outboxEvent);
+
+    /**
+     * Emits the trip moved to {@code target}, or completes empty when it does not exist or cannot
+     * move there, see {@link TripRepositoryCustom#transitionStatus}.
+     */
+    Mono<Trip> transitionStatus(String tripId, TripStatus target);
+
+    /**
+     * Emits one page of {@code PENDING} trips near {@code point}, nearest first, see
+     * {@link TripRepositoryCustom#findPendingNear}.
+     */
+    Flux<GeoResult<Trip>> findPendingNear(GeoJsonPoint point, double radiusMeters, Pageable pageable);
+
+    /**
+     * Emits up to {@code limit} trips of one participant, newest first, see
+     * {@link TripRepositoryCustom#findHistory}.
+     */
+    Flux<TripSummaryResponse> findHistory(TripParticipant participant, String participantId, TripStatus status,
+                                          Instant from, Instant to, TripHistoryCursor after, int limit);
+
+    /**
+     * Emits trips in {@code _id} order as the subscriber requests them, over a cursor that fetches
+     * {@code batchSize} documents per round trip, see {@link TripRepositoryCustom#streamForExport}.
+     */
+    Flux<Trip> findForExport(TripStatus status, Instant from, Instant to, String afterId, int batchSize);
+}
@@ -0,0 +1,66 @@
+package com.example.trip_service.repository;
+
+import com.example.trip_service.DTO.TripHistoryCursor;
+import com.example.trip_service.ENUM.TripParticipant;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.model.OutboxEvent;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.response.TripSummaryResponse;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+public class ReactiveTripRepositoryCustomImpl implements ReactiveTripRepositoryCustom {
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveTripRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate, ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        // not a bean: a second transaction manager would make @Transactional on the blocking side ambiguous
+        this.transactionalOperator = TransactionalOperator.create(new ReactiveMongoTransactionManager(reactiveMongoDatabaseFactory));
+    }
+
+    @Override
+    public Mono<Trip> insertWithOutbox(Trip trip, OutboxEvent outboxEvent) {
+        return reactiveMongoTemplate.insert(trip)
+                .flatMap(inserted -> reactiveMongoTemplate.insert(outboxEvent).thenReturn(inserted))
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<Trip> transitionStatus(String tripId, TripStatus target) {
+        if (target.allowedPredecessors().isEmpty()) {
+            return Mono.empty();
+        }
+        return reactiveMongoTemplate.findAndModify(TripQueries.transition(tripId, target), TripQueries.transitionUpdate(target),
+                FindAndModifyOptions.options().returnNew(true), Trip.class);
+    }
+
+    @Override
+    public Flux<GeoResult<Trip>> findPendingNear(GeoJsonPoint point, double radiusMeters, Pageable pageable) {
+        return reactiveMongoTemplate.query(Trip.class).near(TripQueries.pendingNear(point, radiusMeters, pageable)).all();
+    }
+
+    @Override
+    public Flux<TripSummaryResponse> findHistory(TripParticipant participant, String participantId, TripStatus status,
+                                                 Instant from, Instant to, TripHistoryCursor after, int limit) {
+        return reactiveMongoTemplate.query(Trip.class)
+                .as(TripSummaryResponse.class)
+                .matching(TripQueries.history(participant, participantId, status, from, to, after, limit))
+                .all();
+    }
+
+    @Override
+    public Flux<Trip> findForExport(TripStatus status, Instant from, Instant to, String afterId, int batchSize) {
+        return reactiveMongoTemplate.find(TripQueries.export(status, from, to, afterId, batchSize), Trip.class);
+    }
+}
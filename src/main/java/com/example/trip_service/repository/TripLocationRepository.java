@@ -0,0 +1,7 @@
+package com.example.trip_service.repository;
+
+import com.example.trip_service.model.TripLocationBucket;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface TripLocationRepository extends MongoRepository<TripLocationBucket, String>, TripLocationRepositoryCustom {
+}
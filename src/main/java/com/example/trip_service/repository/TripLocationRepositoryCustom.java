@@ -0,0 +1,13 @@
+package com.example.trip_service.repository;
+
+import com.example.trip_service.model.TripLocationBucket;
+
+import java.util.Collection;
+
+public interface TripLocationRepositoryCustom {
+    /**
+     * Appends each bucket's segments to the stored bucket with the same id, creating it when
+     * missing, in one unordered bulk write.
+     */
+    void appendSegments(Collection<TripLocationBucket> buckets);
+}
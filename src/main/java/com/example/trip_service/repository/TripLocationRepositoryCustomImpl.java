@@ -0,0 +1,37 @@
+package com.example.trip_service.repository;
+
+import com.example.trip_service.model.TripLocationBucket;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+
+public class TripLocationRepositoryCustomImpl implements TripLocationRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public TripLocationRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void appendSegments(Collection<TripLocationBucket> buckets) {
+        if (buckets.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TripLocationBucket.class);
+        for (TripLocationBucket bucket : buckets) {
+            Update update = new Update()
+                    .setOnInsert("tripId", bucket.getTripId())
+                    .setOnInsert("driverId", bucket.getDriverId())
+                    .setOnInsert("bucketStart", bucket.getBucketStart())
+                    .inc("points", bucket.getPoints())
+                    .max("lastRecordedAt", bucket.getLastRecordedAt());
+            update.push("segments").each(bucket.getSegments().toArray());
+            bulkOperations.upsert(Query.query(Criteria.where("id").is(bucket.getId())), update);
+        }
+        bulkOperations.execute();
+    }
+}
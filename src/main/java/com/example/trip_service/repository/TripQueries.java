@@ -0,0 +1,112 @@
+package com.example.trip_service.repository;
+
+import com.example.trip_service.DTO.TripHistoryCursor;
+import com.example.trip_service.ENUM.TripParticipant;
+import com.example.trip_service.ENUM.TripStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Queries shared by the blocking and the reactive trip repositories, so both stacks read and
+ * write the same documents through the same indexes.
+ */
+final class TripQueries {
+    // set by cancelExpiredPending only; not mapped on Trip
+    static final String EXPIRY_BATCH = "expiryBatch";
+
+    private TripQueries() {
+    }
+
+    static Query transition(String tripId, TripStatus target) {
+        return Query.query(Criteria.where("id").is(tripId).and("status").in(target.allowedPredecessors()));
+    }
+
+    static Update transitionUpdate(TripStatus target) {
+        return new Update().set("status", target).set("updatedAt", Instant.now());
+    }
+
+    static NearQuery pendingNear(GeoJsonPoint point, double radiusMeters, Pageable pageable) {
+        return NearQuery.near(point)
+                .spherical(true)
+                .maxDistance(new Distance(radiusMeters / 1000, Metrics.KILOMETERS))
+                .query(Query.query(Criteria.where("status").is(TripStatus.PENDING)))
+                .with(pageable);
+    }
+
+    static Query expiredPendingIds(Instant createdUpTo, int limit) {
+        Query query = Query.query(Criteria.where("status").is(TripStatus.PENDING).and("createdAt").lte(createdUpTo))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt", "id"))
+                .limit(limit);
+        query.fields().include("id");
+        return query;
+    }
+
+    static Query expiredPending(Collection<String> tripIds, Instant createdUpTo) {
+        return Query.query(Criteria.where("id").in(tripIds).and("status").is(TripStatus.PENDING).and("createdAt").lte(createdUpTo));
+    }
+
+    static Query history(TripParticipant participant, String participantId, TripStatus status,
+                         Instant from, Instant to, TripHistoryCursor after, int limit) {
+        Criteria criteria = Criteria.where(participant.getField()).is(participantId);
+        if (status != null) {
+            criteria.and("status").is(status);
+        }
+        createdBetween(criteria, from, to);
+        if (after != null) {
+            criteria.andOperator(after(after));
+        }
+        return Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                .limit(limit);
+    }
+
+    static Query export(TripStatus status, Instant from, Instant to, String afterId, int batchSize) {
+        Criteria criteria = new Criteria();
+        if (afterId != null) {
+            criteria.and("id").gt(afterId);
+        }
+        if (status != null) {
+            criteria.and("status").is(status);
+        }
+        createdBetween(criteria, from, to);
+        return Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .cursorBatchSize(batchSize);
+    }
+
+    private static void createdBetween(Criteria criteria, Instant from, Instant to) {
+        if (from != null || to != null) {
+            Criteria createdAt = criteria.and("createdAt");
+            if (from != null) {
+                createdAt.gte(from);
+            }
+            if (to != null) {
+                createdAt.lt(to);
+            }
+        }
+    }
+
+    /**
+     * Keyset condition for "after this position" in {@code createdAt desc, _id desc} order. Trips
+     * without {@code createdAt} sort last, so they follow every dated position.
+     */
+    private static Criteria after(TripHistoryCursor cursor) {
+        if (cursor.createdAt() == null) {
+            return Criteria.where("createdAt").is(null).and("id").lt(cursor.id());
+        }
+        return new Criteria().orOperator(
+                Criteria.where("createdAt").lt(cursor.createdAt()),
+                Criteria.where("createdAt").is(cursor.createdAt()).and("id").lt(cursor.id()),
+                Criteria.where("createdAt").is(null));
+    }
+}
@@ -1,7 +1,24 @@
 package com.example.trip_service.repository;
 
+import com.example.trip_service.ENUM.TripStatus;
 import com.example.trip_service.model.Trip;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
-public interface TripRepository extends MongoRepository<Trip, String> {
+import java.util.stream.Stream;
+
+public interface TripRepository extends MongoRepository<Trip, String>, TripRepositoryCustom {
+    /**
+     * Streams the id, status and pickup point of every trip in {@code status} that has a pickup
+     * point, served by the {@code status_pickup} index. The stream must be closed.
+     */
+    @Query(value = "{ 'status': ?0, 'pickupLocation': { $exists: true } }", fields = "{ 'status': 1, 'pickupLocation': 1 }")
+    Stream<Trip> streamWithPickupByStatus(TripStatus status);
+
+    /**
+     * Counts the trips in {@code status} on the {@code status} prefix of the
+     * {@code status_created} index without reading any document. {@code status_pickup} cannot
+     * serve it, since its 2dsphere part leaves out trips without a pickup point.
+     */
+    long countByStatus(TripStatus status);
 }
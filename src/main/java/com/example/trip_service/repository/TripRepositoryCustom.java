@@ -0,0 +1,75 @@
+package com.example.trip_service.repository;
+
+import com.example.trip_service.DTO.TripHistoryCursor;
+import com.example.trip_service.ENUM.TripParticipant;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.model.OutboxEvent;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.response.TripSummaryResponse;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public interface TripRepositoryCustom {
+    /**
+     * Inserts the trip and its outbox event in one transaction, so the event is persisted
+     * if and only if the trip is.
+     */
+    Trip insertWithOutbox(Trip trip, OutboxEvent outboxEvent);
+
+    /**
+     * Assigns drivers to trips that are still {@code PENDING} with a single bulk write of
+     * conditional updates, and returns the trips this call actually accepted.
+     */
+    List<Trip> acceptPending(Map<String, String> driverIdsByTripId);
+
+    /**
+     * Moves the trip to {@code target} with a single findAndModify guarded by
+     * {@link TripStatus#allowedPredecessors()}, returning the updated trip, or empty when the
+     * trip does not exist or is in a status that cannot move to {@code target}.
+     */
+    Optional<Trip> transitionStatus(String tripId, TripStatus target);
+
+    /**
+     * Returns the ids of up to {@code limit} {@code PENDING} trips created at or before
+     * {@code createdUpTo}, oldest first, read from the {@code status_created} index alone.
+     */
+    List<String> findExpiredPendingIds(Instant createdUpTo, int limit);
+
+    /**
+     * Cancels those of {@code tripIds} that are still {@code PENDING} and were created at or before
+     * {@code createdUpTo} with one conditional update, and writes the {@code outboxEvent} of each
+     * trip it cancelled in the same transaction. Returns the trips this call cancelled, told apart
+     * from trips cancelled elsewhere by a per-call marker in their {@code expiryBatch} field.
+     */
+    List<Trip> cancelExpiredPending(Collection<String> tripIds, Instant createdUpTo, Function<Trip, OutboxEvent> outboxEvent);
+
+    /**
+     * Returns one page of {@code PENDING} trips whose pickup point lies within {@code radiusMeters}
+     * of {@code point}, nearest first, with the distance computed by the server.
+     */
+    GeoResults<Trip> findPendingNear(GeoJsonPoint point, double radiusMeters, Pageable pageable);
+
+    /**
+     * Returns up to {@code limit} trips of one participant, newest first, starting strictly after
+     * {@code after} when given. Optional {@code status} and {@code [from, to)} on {@code createdAt}
+     * narrow the listing. Only the {@link TripSummaryResponse} fields are read.
+     */
+    List<TripSummaryResponse> findHistory(TripParticipant participant, String participantId, TripStatus status,
+                                          Instant from, Instant to, TripHistoryCursor after, int limit);
+
+    /**
+     * Streams trips in {@code _id} order, starting strictly after {@code afterId} when given, over a
+     * cursor that fetches {@code batchSize} documents per round trip. Optional {@code status} and
+     * {@code [from, to)} on {@code createdAt} narrow the export. The stream must be closed.
+     */
+    Stream<Trip> streamForExport(TripStatus status, Instant from, Instant to, String afterId, int batchSize);
+}
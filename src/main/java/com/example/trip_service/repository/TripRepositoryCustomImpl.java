@@ -0,0 +1,119 @@
+package com.example.trip_service.repository;
+
+import com.example.trip_service.DTO.TripHistoryCursor;
+import com.example.trip_service.ENUM.TripParticipant;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.model.OutboxEvent;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.response.TripSummaryResponse;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public class TripRepositoryCustomImpl implements TripRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public TripRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    @Transactional
+    public Trip insertWithOutbox(Trip trip, OutboxEvent outboxEvent) {
+        Trip inserted = mongoTemplate.insert(trip);
+        mongoTemplate.insert(outboxEvent);
+        return inserted;
+    }
+
+    @Override
+    public List<Trip> acceptPending(Map<String, String> driverIdsByTripId) {
+        if (driverIdsByTripId.isEmpty()) {
+            return List.of();
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Trip.class);
+        driverIdsByTripId.forEach((tripId, driverId) -> bulkOperations.updateOne(
+                Query.query(Criteria.where("id").is(tripId).and("status").in(TripStatus.ACCEPTED.allowedPredecessors())),
+                new Update().set("driverId", driverId).set("status", TripStatus.ACCEPTED).set("updatedAt", Instant.now())));
+        BulkWriteResult result = bulkOperations.execute();
+        if (result.getModifiedCount() == 0) {
+            return List.of();
+        }
+
+        Query accepted = Query.query(Criteria.where("id").in(driverIdsByTripId.keySet()).and("status").is(TripStatus.ACCEPTED));
+        return mongoTemplate.find(accepted, Trip.class).stream()
+                .filter(trip -> trip.getDriverId() != null && trip.getDriverId().equals(driverIdsByTripId.get(trip.getId())))
+                .toList();
+    }
+
+    @Override
+    public Optional<Trip> transitionStatus(String tripId, TripStatus target) {
+        if (target.allowedPredecessors().isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(TripQueries.transition(tripId, target), TripQueries.transitionUpdate(target),
+                FindAndModifyOptions.options().returnNew(true), Trip.class));
+    }
+
+    @Override
+    public List<String> findExpiredPendingIds(Instant createdUpTo, int limit) {
+        return mongoTemplate.find(TripQueries.expiredPendingIds(createdUpTo, limit), Trip.class).stream()
+                .map(Trip::getId)
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public List<Trip> cancelExpiredPending(Collection<String> tripIds, Instant createdUpTo, Function<Trip, OutboxEvent> outboxEvent) {
+        if (tripIds.isEmpty()) {
+            return List.of();
+        }
+        // a marker of this call's own, so a trip cancelled by anyone else, even in the same
+        // millisecond, is never read back as ours and given a second event
+        String batch = new ObjectId().toHexString();
+        UpdateResult result = mongoTemplate.updateMulti(TripQueries.expiredPending(tripIds, createdUpTo),
+                new Update().set("status", TripStatus.CANCELLED).set("updatedAt", Instant.now()).set(TripQueries.EXPIRY_BATCH, batch), Trip.class);
+        if (result.getModifiedCount() == 0) {
+            return List.of();
+        }
+
+        Query cancelled = Query.query(Criteria.where("id").in(tripIds).and(TripQueries.EXPIRY_BATCH).is(batch));
+        List<Trip> trips = mongoTemplate.find(cancelled, Trip.class);
+        mongoTemplate.insert(trips.stream().map(outboxEvent).toList(), OutboxEvent.class);
+        return trips;
+    }
+
+    @Override
+    public GeoResults<Trip> findPendingNear(GeoJsonPoint point, double radiusMeters, Pageable pageable) {
+        return mongoTemplate.geoNear(TripQueries.pendingNear(point, radiusMeters, pageable), Trip.class);
+    }
+
+    @Override
+    public List<TripSummaryResponse> findHistory(TripParticipant participant, String participantId, TripStatus status,
+                                                 Instant from, Instant to, TripHistoryCursor after, int limit) {
+        Query query = TripQueries.history(participant, participantId, status, from, to, after, limit);
+        return mongoTemplate.query(Trip.class).as(TripSummaryResponse.class).matching(query).all();
+    }
+
+    @Override
+    public Stream<Trip> streamForExport(TripStatus status, Instant from, Instant to, String afterId, int batchSize) {
+        return mongoTemplate.stream(TripQueries.export(status, from, to, afterId, batchSize), Trip.class);
+    }
+}
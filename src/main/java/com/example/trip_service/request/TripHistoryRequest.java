@@ -0,0 +1,18 @@
+package com.example.trip_service.request;
+
+import com.example.trip_service.ENUM.TripStatus;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.Instant;
+
+@Data
+public class TripHistoryRequest {
+    private TripStatus status;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Instant to;
+    private Integer limit;
+    private String cursor;
+}
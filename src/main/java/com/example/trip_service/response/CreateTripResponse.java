@@ -0,0 +1,9 @@
+package com.example.trip_service.response;
+
+import lombok.Data;
+
+@Data
+public class CreateTripResponse {
+    private String tripId;
+    private String message;
+}
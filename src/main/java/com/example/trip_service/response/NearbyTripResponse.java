@@ -0,0 +1,14 @@
+package com.example.trip_service.response;
+
+import lombok.Data;
+
+@Data
+public class NearbyTripResponse {
+    private String id;
+    private String userId;
+    private String origin;
+    private String destination;
+    private double latitude;
+    private double longitude;
+    private long distanceMeters;
+}
@@ -0,0 +1,11 @@
+package com.example.trip_service.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TripHistoryResponse {
+    private List<TripSummaryResponse> trips;
+    private String nextCursor;
+}
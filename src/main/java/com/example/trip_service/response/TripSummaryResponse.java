@@ -0,0 +1,21 @@
+package com.example.trip_service.response;
+
+import com.example.trip_service.ENUM.TripStatus;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Slim trip view for history listings; also the Mongo projection, so only these fields are read.
+ */
+@Data
+public class TripSummaryResponse {
+    private String id;
+    private String userId;
+    private String driverId;
+    private String origin;
+    private String destination;
+    private TripStatus status;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
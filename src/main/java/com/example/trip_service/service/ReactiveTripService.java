@@ -0,0 +1,39 @@
+package com.example.trip_service.service;
+
+import com.example.trip_service.ENUM.TripParticipant;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.request.TripExportRequest;
+import com.example.trip_service.request.TripHistoryRequest;
+import com.example.trip_service.request.TripRequest;
+import com.example.trip_service.response.CreateTripResponse;
+import com.example.trip_service.response.NearbyTripResponse;
+import com.example.trip_service.response.NearestTripResponse;
+import com.example.trip_service.response.TripHistoryResponse;
+import com.example.trip_service.response.TripResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking form of {@link TripService} served under the {@code reactive} profile, plus the
+ * trip export, which the servlet stack runs in {@link TripExportService}.
+ */
+public interface ReactiveTripService {
+    Mono<CreateTripResponse> createTrip(TripRequest tripRequest, String principal, String idempotencyKey);
+    Mono<String> getTripStatus(String tripId);
+    Mono<Map<String, String>> getTripStatuses(Collection<String> tripIds);
+    Mono<TripResponse> getTripDetails(String tripId);
+    Mono<String> updateTripStatus(String tripId, TripStatus status);
+    Mono<TripHistoryResponse> getTripHistory(TripParticipant participant, String participantId, TripHistoryRequest request);
+    Flux<NearbyTripResponse> findNearbyPendingTrips(double latitude, double longitude, Double radiusMeters, int page, int size);
+    Mono<List<NearestTripResponse>> findNearestOpenTrips(double latitude, double longitude, Double radiusMeters, int limit);
+
+    /**
+     * Emits the export as NDJSON, one chunk per cursor batch, in the format of
+     * {@link TripExportService}.
+     */
+    Flux<byte[]> exportTrips(TripExportRequest request);
+}
@@ -0,0 +1,280 @@
+package com.example.trip_service.service;
+
+import com.example.trip_service.ENUM.TripParticipant;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.cache.TripCache;
+import com.example.trip_service.client.ReactiveUserNameResolver;
+import com.example.trip_service.codec.TripEventCodecs;
+import com.example.trip_service.exception.IllegalTripTransitionException;
+import com.example.trip_service.exception.TripBatchTooLargeException;
+import com.example.trip_service.expiry.PendingTripExpirer;
+import com.example.trip_service.idempotency.TripIdempotencyStore;
+import com.example.trip_service.location.TripLocationTracker;
+import com.example.trip_service.logging.TripLogEvent;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.example.trip_service.matching.OpenTripIndex;
+import com.example.trip_service.model.OutboxEvent;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.notification.TripStatusNotifier;
+import com.example.trip_service.properties.TripExportProperties;
+import com.example.trip_service.properties.TripHistoryProperties;
+import com.example.trip_service.properties.TripNearbyProperties;
+import com.example.trip_service.properties.TripStatusBatchProperties;
+import com.example.trip_service.repository.ReactiveTripRepository;
+import com.example.trip_service.request.TripExportRequest;
+import com.example.trip_service.request.TripHistoryRequest;
+import com.example.trip_service.request.TripRequest;
+import com.example.trip_service.response.CreateTripResponse;
+import com.example.trip_service.response.NearbyTripResponse;
+import com.example.trip_service.response.NearestTripResponse;
+import com.example.trip_service.response.TripHistoryResponse;
+import com.example.trip_service.response.TripResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.example.trip_service.service.TripServiceImpl.TRIP_CREATED_TOPIC;
+
+/**
+ * {@link ReactiveTripService} over reactive Mongo. Reads use the near cache and go to Mongo on a
+ * miss without touching Redis, whose client is blocking. Persisted changes still go through
+ * {@link TripCache#put(Trip)} on the bounded elastic scheduler, so Redis and every other
+ * instance, servlet or reactive, see them. The trip-created event is written to the outbox in the
+ * trip's transaction and sent to Kafka by {@code OutboxRelay}, as on the servlet stack.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveTripServiceImpl implements ReactiveTripService {
+    private final ReactiveTripRepository reactiveTripRepository;
+    private final TripEventCodecs tripEventCodecs;
+    private final ObjectWriter tripWriter;
+    private final ReactiveUserNameResolver reactiveUserNameResolver;
+    private final TripCache tripCache;
+    private final TripStatusNotifier tripStatusNotifier;
+    private final TripLogPipeline tripLogPipeline;
+    private final TripNearbyProperties tripNearbyProperties;
+    private final OpenTripIndex openTripIndex;
+    private final TripHistoryProperties tripHistoryProperties;
+    private final TripStatusBatchProperties tripStatusBatchProperties;
+    private final TripExportProperties tripExportProperties;
+    private final TripIdempotencyStore tripIdempotencyStore;
+    private final PendingTripExpirer pendingTripExpirer;
+    private final TripLocationTracker tripLocationTracker;
+
+    public ReactiveTripServiceImpl(ReactiveTripRepository reactiveTripRepository, ObjectMapper objectMapper, TripEventCodecs tripEventCodecs, ReactiveUserNameResolver reactiveUserNameResolver, TripCache tripCache, TripStatusNotifier tripStatusNotifier, TripLogPipeline tripLogPipeline, TripNearbyProperties tripNearbyProperties, OpenTripIndex openTripIndex, TripHistoryProperties tripHistoryProperties, TripStatusBatchProperties tripStatusBatchProperties, TripExportProperties tripExportProperties, TripIdempotencyStore tripIdempotencyStore, PendingTripExpirer pendingTripExpirer, TripLocationTracker tripLocationTracker) {
+        this.reactiveTripRepository = reactiveTripRepository;
+        this.tripEventCodecs = tripEventCodecs;
+        this.tripWriter = TripExportService.tripWriter(objectMapper);
+        this.reactiveUserNameResolver = reactiveUserNameResolver;
+        this.tripCache = tripCache;
+        this.tripStatusNotifier = tripStatusNotifier;
+        this.tripLogPipeline = tripLogPipeline;
+        this.tripNearbyProperties = tripNearbyProperties;
+        this.openTripIndex = openTripIndex;
+        this.tripHistoryProperties = tripHistoryProperties;
+        this.tripStatusBatchProperties = tripStatusBatchProperties;
+        this.tripExportProperties = tripExportProperties;
+        this.tripIdempotencyStore = tripIdempotencyStore;
+        this.pendingTripExpirer = pendingTripExpirer;
+        this.tripLocationTracker = tripLocationTracker;
+    }
+
+    @Override
+    public Mono<CreateTripResponse> createTrip(TripRequest tripRequest, String principal, String idempotencyKey) {
+        return Mono.fromCallable(() -> TripServiceImpl.newTrip(tripRequest))
+                .flatMap(trip -> Mono.fromCallable(() -> tripIdempotencyStore.claim(principal, tripRequest, idempotencyKey))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMap(claim -> claim.replayedTripId() != null
+                                ? Mono.just(TripServiceImpl.createTripResponse(claim.replayedTripId()))
+                                : insert(trip, tripRequest, claim)));
+    }
+
+    private Mono<CreateTripResponse> insert(Trip trip, TripRequest tripRequest, TripIdempotencyStore.Claim claim) {
+        return Mono.fromCallable(() -> OutboxEvent.of(TRIP_CREATED_TOPIC, trip.getId(),
+                        tripEventCodecs.encode(TripServiceImpl.createTripEvent(trip, tripRequest))))
+                .flatMap(outboxEvent -> reactiveTripRepository.insertWithOutbox(trip, outboxEvent))
+                .onErrorResume(e -> Mono.fromRunnable(claim::release)
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .then(Mono.error(e)))
+                .flatMap(savedTrip -> Mono.fromRunnable(() -> claim.complete(savedTrip.getId()))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .thenReturn(savedTrip))
+                .flatMap(this::changed)
+                .map(savedTrip -> {
+                    pendingTripExpirer.schedule(savedTrip);
+                    tripLogPipeline.log(TripLogEvent.TRIP_PERSISTED, savedTrip.getId(), savedTrip.getStatus());
+                    tripLogPipeline.log(TripLogEvent.CREATE_TRIP_EVENT_QUEUED, savedTrip.getId(), savedTrip.getUserId(), TRIP_CREATED_TOPIC);
+                    return TripServiceImpl.createTripResponse(savedTrip.getId());
+                });
+    }
+
+    @Override
+    public Mono<String> getTripStatus(String tripId) {
+        return findTrip(tripId).map(trip -> {
+            tripLogPipeline.log(TripLogEvent.TRIP_STATUS_FETCHED, tripId, trip.getStatus());
+            return trip.getStatus().toString();
+        });
+    }
+
+    @Override
+    public Mono<Map<String, String>> getTripStatuses(Collection<String> tripIds) {
+        Set<String> uniqueIds = new LinkedHashSet<>(tripIds);
+        if (uniqueIds.size() > tripStatusBatchProperties.getMaxIds()) {
+            return Mono.error(new TripBatchTooLargeException(uniqueIds.size(), tripStatusBatchProperties.getMaxIds()));
+        }
+        Map<String, Trip> cached = tripCache.getAllNear(uniqueIds);
+        List<String> missing = uniqueIds.stream().filter(id -> !cached.containsKey(id)).toList();
+        Mono<Map<String, Trip>> loaded = missing.isEmpty()
+                ? Mono.just(Map.of())
+                : Mono.defer(() -> {
+                    long since = tripCache.generation();
+                    return reactiveTripRepository.findAllById(missing).doOnNext(trip -> tripCache.putNear(trip, since)).collectMap(Trip::getId);
+                });
+
+        return loaded.map(trips -> {
+            Map<String, String> statuses = new LinkedHashMap<>();
+            for (String tripId : uniqueIds) {
+                Trip trip = cached.containsKey(tripId) ? cached.get(tripId) : trips.get(tripId);
+                if (trip != null) {
+                    statuses.put(tripId, trip.getStatus().toString());
+                }
+            }
+            tripLogPipeline.log(TripLogEvent.TRIP_STATUSES_FETCHED, uniqueIds.size(), statuses.size());
+            return statuses;
+        });
+    }
+
+    @Override
+    public Mono<TripResponse> getTripDetails(String tripId) {
+        return findTrip(tripId).flatMap(trip -> reactiveUserNameResolver.resolve(trip.getUserId(), trip.getDriverId())
+                .map(userDriverNameDTO -> {
+                    TripResponse tripResponse = TripServiceImpl.tripResponse(trip, userDriverNameDTO);
+                    tripLogPipeline.log(TripLogEvent.TRIP_DETAILS_FETCHED, trip.getId(), trip.getUserId(), trip.getDriverId(), trip.getStatus());
+                    return tripResponse;
+                }));
+    }
+
+    @Override
+    public Mono<String> updateTripStatus(String tripId, TripStatus status) {
+        return reactiveTripRepository.transitionStatus(tripId, status)
+                .switchIfEmpty(Mono.defer(() -> reactiveTripRepository.findById(tripId)
+                        .switchIfEmpty(notFound(tripId))
+                        .flatMap(trip -> Mono.error(new IllegalTripTransitionException(tripId, trip.getStatus(), status)))))
+                .flatMap(this::changed)
+                .flatMap(savedTrip -> savedTrip.getStatus() == TripStatus.IN_PROGRESS
+                        ? Mono.just(savedTrip)
+                        // closing writes the track's pending points to Mongo
+                        : Mono.fromRunnable(() -> tripLocationTracker.close(tripId)).subscribeOn(Schedulers.boundedElastic()).thenReturn(savedTrip))
+                .map(savedTrip -> {
+                    tripLogPipeline.log(TripLogEvent.TRIP_STATUS_UPDATED, tripId, status);
+                    return "Trip status updated to " + status;
+                });
+    }
+
+    @Override
+    public Mono<TripHistoryResponse> getTripHistory(TripParticipant participant, String participantId, TripHistoryRequest request) {
+        return Mono.defer(() -> {
+            int limit = TripServiceImpl.historyLimit(request, tripHistoryProperties);
+            // one extra row tells whether another page exists without a count query
+            return reactiveTripRepository.findHistory(participant, participantId, request.getStatus(),
+                            request.getFrom(), request.getTo(), TripServiceImpl.historyCursor(request), limit + 1)
+                    .collectList()
+                    .map(trips -> TripServiceImpl.historyPage(trips, limit));
+        });
+    }
+
+    @Override
+    public Flux<NearbyTripResponse> findNearbyPendingTrips(double latitude, double longitude, Double radiusMeters, int page, int size) {
+        return Flux.defer(() -> {
+            TripServiceImpl.requireValidCoordinate(latitude, longitude);
+            double radius = TripServiceImpl.searchRadius(radiusMeters, tripNearbyProperties);
+            PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), tripNearbyProperties.getMaxPageSize()));
+            return reactiveTripRepository.findPendingNear(new GeoJsonPoint(longitude, latitude), radius, pageRequest)
+                    .map(TripServiceImpl::nearbyTrip);
+        });
+    }
+
+    @Override
+    public Mono<List<NearestTripResponse>> findNearestOpenTrips(double latitude, double longitude, Double radiusMeters, int limit) {
+        // served from the in-memory index, so there is nothing to wait on
+        return Mono.fromCallable(() -> TripServiceImpl.nearestOpenTrips(openTripIndex, tripNearbyProperties, latitude, longitude, radiusMeters, limit));
+    }
+
+    @Override
+    public Flux<byte[]> exportTrips(TripExportRequest request) {
+        int batchSize = tripExportProperties.getBatchSize();
+        return Flux.defer(() -> {
+            AtomicLong count = new AtomicLong();
+            AtomicReference<String> lastId = new AtomicReference<>(request.getAfterId());
+            return reactiveTripRepository.findForExport(request.getStatus(), request.getFrom(), request.getTo(), request.getAfterId(), batchSize)
+                    .buffer(batchSize)
+                    .map(trips -> {
+                        count.addAndGet(trips.size());
+                        lastId.set(trips.get(trips.size() - 1).getId());
+                        return lines(trips);
+                    })
+                    .doOnComplete(() -> tripLogPipeline.log(TripLogEvent.TRIPS_EXPORTED, count.get(), lastId.get()));
+        });
+    }
+
+    /**
+     * Near cache first, then Mongo; Redis is skipped because its client would block the event loop.
+     */
+    private Mono<Trip> findTrip(String tripId) {
+        return Mono.justOrEmpty(tripCache.getNear(tripId))
+                .switchIfEmpty(Mono.defer(() -> {
+                    long since = tripCache.generation();
+                    return reactiveTripRepository.findById(tripId).doOnNext(trip -> tripCache.putNear(trip, since));
+                }))
+                .switchIfEmpty(notFound(tripId));
+    }
+
+    /**
+     * Publishes a persisted change the way {@link TripServiceImpl} does. The cache write reaches
+     * Redis, so it runs on the bounded elastic scheduler rather than on the event loop.
+     */
+    private Mono<Trip> changed(Trip savedTrip) {
+        return Mono.fromRunnable(() -> tripCache.put(savedTrip))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.fromCallable(() -> {
+                    openTripIndex.update(savedTrip);
+                    tripStatusNotifier.publish(savedTrip);
+                    return savedTrip;
+                }));
+    }
+
+    private byte[] lines(List<Trip> trips) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            for (Trip trip : trips) {
+                tripWriter.writeValue(out, trip);
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static <T> Mono<T> notFound(String tripId) {
+        return Mono.error(() -> new RuntimeException("Trip not found with id: " + tripId));
+    }
+}
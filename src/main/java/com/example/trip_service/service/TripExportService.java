@@ -0,0 +1,72 @@
+package com.example.trip_service.service;
+
+import com.example.trip_service.logging.TripLogEvent;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.properties.TripExportProperties;
+import com.example.trip_service.repository.TripRepository;
+import com.example.trip_service.request.TripExportRequest;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.data.mongodb.core.geo.GeoJsonModule;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes trips as NDJSON, one document per line in {@code _id} order, straight from a Mongo
+ * cursor to the given stream. Memory is bounded by the cursor batch size whatever the size of
+ * the export, and the output is flushed after every batch so clients see progress. The last
+ * {@code id} a client received is its {@code afterId} to resume an interrupted export.
+ */
+@Service
+public class TripExportService {
+    private final TripRepository tripRepository;
+    private final ObjectWriter tripWriter;
+    private final TripExportProperties tripExportProperties;
+    private final TripLogPipeline tripLogPipeline;
+
+    public TripExportService(TripRepository tripRepository, ObjectMapper objectMapper, TripExportProperties tripExportProperties, TripLogPipeline tripLogPipeline) {
+        this.tripRepository = tripRepository;
+        this.tripWriter = tripWriter(objectMapper);
+        this.tripExportProperties = tripExportProperties;
+        this.tripLogPipeline = tripLogPipeline;
+    }
+
+    public void export(TripExportRequest request, OutputStream out) throws IOException {
+        int batchSize = tripExportProperties.getBatchSize();
+        long count = 0;
+        String lastId = request.getAfterId();
+        try (Stream<Trip> trips = tripRepository.streamForExport(request.getStatus(), request.getFrom(), request.getTo(),
+                request.getAfterId(), batchSize)) {
+            Iterator<Trip> iterator = trips.iterator();
+            while (iterator.hasNext()) {
+                Trip trip = iterator.next();
+                tripWriter.writeValue(out, trip);
+                out.write('\n');
+                lastId = trip.getId();
+                if (++count % batchSize == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        tripLogPipeline.log(TripLogEvent.TRIPS_EXPORTED, count, lastId);
+    }
+
+    /**
+     * Export line format, shared with the reactive export: GeoJSON points and ISO-8601 dates.
+     */
+    static ObjectWriter tripWriter(ObjectMapper objectMapper) {
+        return objectMapper.copy()
+                .registerModule(GeoJsonModule.serializers())
+                .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+                .writerFor(Trip.class);
+    }
+}
@@ -1,13 +1,30 @@
 package com.example.trip_service.service;
 
+import com.example.trip_service.ENUM.TripParticipant;
 import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.request.TripHistoryRequest;
 import com.example.trip_service.request.TripRequest;
+import com.example.trip_service.response.CreateTripResponse;
+import com.example.trip_service.response.NearbyTripResponse;
+import com.example.trip_service.response.NearestTripResponse;
+import com.example.trip_service.response.TripHistoryResponse;
 import com.example.trip_service.response.TripResponse;
-import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface TripService {
-    String createTrip(TripRequest tripRequest) throws JsonProcessingException;
+    /**
+     * Creates a trip, or returns the trip an earlier request from {@code principal} with the same
+     * {@code idempotencyKey} created; the key is optional.
+     */
+    CreateTripResponse createTrip(TripRequest tripRequest, String principal, String idempotencyKey);
     String getTripStatus(String tripId);
+    Map<String, String> getTripStatuses(Collection<String> tripIds);
     TripResponse getTripDetails(String tripId);
     String updateTripStatus(String tripId, TripStatus status);
+    TripHistoryResponse getTripHistory(TripParticipant participant, String participantId, TripHistoryRequest request);
+    List<NearbyTripResponse> findNearbyPendingTrips(double latitude, double longitude, Double radiusMeters, int page, int size);
+    List<NearestTripResponse> findNearestOpenTrips(double latitude, double longitude, Double radiusMeters, int limit);
 }
@@ -1,99 +1,340 @@
 package com.example.trip_service.service;
 
+import com.example.trip_service.DTO.TripHistoryCursor;
 import com.example.trip_service.DTO.UserDriverNameDTO;
+import com.example.trip_service.ENUM.TripParticipant;
 import com.example.trip_service.ENUM.TripStatus;
-import com.example.trip_service.client.UserClient;
+import com.example.trip_service.cache.TripCache;
+import com.example.trip_service.client.UserNameResolver;
+import com.example.trip_service.codec.TripEventCodecs;
 import com.example.trip_service.event.CreateTripEvent;
+import com.example.trip_service.exception.IllegalTripTransitionException;
+import com.example.trip_service.exception.InvalidPickupLocationException;
+import com.example.trip_service.exception.TripBatchTooLargeException;
+import com.example.trip_service.expiry.PendingTripExpirer;
+import com.example.trip_service.idempotency.TripIdempotencyStore;
+import com.example.trip_service.location.TripLocationTracker;
+import com.example.trip_service.logging.TripLogEvent;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.example.trip_service.matching.OpenTripIndex;
+import com.example.trip_service.model.OutboxEvent;
 import com.example.trip_service.model.Trip;
+import com.example.trip_service.notification.TripStatusNotifier;
+import com.example.trip_service.properties.TripHistoryProperties;
+import com.example.trip_service.properties.TripNearbyProperties;
+import com.example.trip_service.properties.TripStatusBatchProperties;
 import com.example.trip_service.repository.TripRepository;
+import com.example.trip_service.request.TripHistoryRequest;
 import com.example.trip_service.request.TripRequest;
+import com.example.trip_service.response.CreateTripResponse;
+import com.example.trip_service.response.NearbyTripResponse;
+import com.example.trip_service.response.NearestTripResponse;
+import com.example.trip_service.response.TripHistoryResponse;
 import com.example.trip_service.response.TripResponse;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.kafka.core.KafkaTemplate;
+import com.example.trip_service.response.TripSummaryResponse;
+import io.micrometer.core.annotation.Timed;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
+@Timed(value = "trip.service", description = "Time spent in each TripService method")
 public class TripServiceImpl implements TripService {
     private final TripRepository tripRepository;
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private static final String TRIP_CREATED_TOPIC = "trip_create_wait_driver";
-    private static final String TRIP_LOGS_TOPIC = "trip_logs";
-    private final UserClient userClient;
+    private final TripEventCodecs tripEventCodecs;
+    static final String TRIP_CREATED_TOPIC = "trip_create_wait_driver";
+    static final String TRIP_CREATED_MESSAGE = "Waiting for driver to accept the trip";
+    private final UserNameResolver userNameResolver;
+    private final TripCache tripCache;
+    private final TripStatusNotifier tripStatusNotifier;
+    private final TripLogPipeline tripLogPipeline;
+    private final TripNearbyProperties tripNearbyProperties;
+    private final OpenTripIndex openTripIndex;
+    private final TripHistoryProperties tripHistoryProperties;
+    private final TripStatusBatchProperties tripStatusBatchProperties;
+    private final TripIdempotencyStore tripIdempotencyStore;
+    private final PendingTripExpirer pendingTripExpirer;
+    private final TripLocationTracker tripLocationTracker;
 
-    public TripServiceImpl(TripRepository tripRepository, KafkaTemplate<String, String> kafkaTemplate, UserClient userClient) {
+    public TripServiceImpl(TripRepository tripRepository, TripEventCodecs tripEventCodecs, UserNameResolver userNameResolver, TripCache tripCache, TripStatusNotifier tripStatusNotifier, TripLogPipeline tripLogPipeline, TripNearbyProperties tripNearbyProperties, OpenTripIndex openTripIndex, TripHistoryProperties tripHistoryProperties, TripStatusBatchProperties tripStatusBatchProperties, TripIdempotencyStore tripIdempotencyStore, PendingTripExpirer pendingTripExpirer, TripLocationTracker tripLocationTracker) {
         this.tripRepository = tripRepository;
-        this.kafkaTemplate = kafkaTemplate;
-        this.userClient = userClient;
+        this.tripEventCodecs = tripEventCodecs;
+        this.userNameResolver = userNameResolver;
+        this.tripCache = tripCache;
+        this.tripStatusNotifier = tripStatusNotifier;
+        this.tripLogPipeline = tripLogPipeline;
+        this.tripNearbyProperties = tripNearbyProperties;
+        this.openTripIndex = openTripIndex;
+        this.tripHistoryProperties = tripHistoryProperties;
+        this.tripStatusBatchProperties = tripStatusBatchProperties;
+        this.tripIdempotencyStore = tripIdempotencyStore;
+        this.pendingTripExpirer = pendingTripExpirer;
+        this.tripLocationTracker = tripLocationTracker;
+    }
+
+    @Override
+    public CreateTripResponse createTrip(TripRequest tripRequest, String principal, String idempotencyKey) {
+        Trip trip = newTrip(tripRequest);
+        TripIdempotencyStore.Claim claim = tripIdempotencyStore.claim(principal, tripRequest, idempotencyKey);
+        if (claim.replayedTripId() != null) {
+            return createTripResponse(claim.replayedTripId());
+        }
+        Trip savedTrip;
+        try {
+            //Create a trip created event, persisted with the trip and relayed to kafka by OutboxRelay
+            OutboxEvent outboxEvent = OutboxEvent.of(TRIP_CREATED_TOPIC, trip.getId(), tripEventCodecs.encode(createTripEvent(trip, tripRequest)));
+            savedTrip = tripRepository.insertWithOutbox(trip, outboxEvent);
+        } catch (RuntimeException e) {
+            claim.release();
+            throw e;
+        }
+        claim.complete(savedTrip.getId());
+        tripCache.put(savedTrip);
+        openTripIndex.update(savedTrip);
+        pendingTripExpirer.schedule(savedTrip);
+        tripStatusNotifier.publish(savedTrip);
+        tripLogPipeline.log(TripLogEvent.TRIP_PERSISTED, savedTrip.getId(), savedTrip.getStatus());
+        tripLogPipeline.log(TripLogEvent.CREATE_TRIP_EVENT_QUEUED, savedTrip.getId(), savedTrip.getUserId(), TRIP_CREATED_TOPIC);
+        return createTripResponse(savedTrip.getId());
+    }
+
+    @Override
+    public String getTripStatus(String tripId) {
+        Trip trip = tripCache.get(tripId, tripRepository::findById).orElseThrow(
+                () -> new RuntimeException("Trip not found with id: " + tripId)
+        );
+        tripLogPipeline.log(TripLogEvent.TRIP_STATUS_FETCHED, tripId, trip.getStatus());
+        return trip.getStatus().toString();
+    }
+
+    @Override
+    public Map<String, String> getTripStatuses(Collection<String> tripIds) {
+        Set<String> uniqueIds = new LinkedHashSet<>(tripIds);
+        if (uniqueIds.size() > tripStatusBatchProperties.getMaxIds()) {
+            throw new TripBatchTooLargeException(uniqueIds.size(), tripStatusBatchProperties.getMaxIds());
+        }
+        Map<String, Trip> trips = tripCache.getAll(uniqueIds, missing -> tripRepository.findAllById(missing).stream()
+                .collect(Collectors.toMap(Trip::getId, Function.identity())));
+
+        Map<String, String> statuses = new LinkedHashMap<>();
+        for (String tripId : uniqueIds) {
+            Trip trip = trips.get(tripId);
+            if (trip != null) {
+                statuses.put(tripId, trip.getStatus().toString());
+            }
+        }
+        tripLogPipeline.log(TripLogEvent.TRIP_STATUSES_FETCHED, uniqueIds.size(), statuses.size());
+        return statuses;
+    }
+
+    @Override
+    public TripResponse getTripDetails(String tripId) {
+        Trip trip = tripCache.get(tripId, tripRepository::findById).orElseThrow(
+                () -> new RuntimeException("Trip not found with id: " + tripId)
+        );
+
+        TripResponse tripResponse = tripResponse(trip, userNameResolver.resolve(trip.getUserId(), trip.getDriverId()));
+        tripLogPipeline.log(TripLogEvent.TRIP_DETAILS_FETCHED, trip.getId(), trip.getUserId(), trip.getDriverId(), trip.getStatus());
+        return tripResponse;
+    }
+
+    @Override
+    public String updateTripStatus(String tripId, TripStatus status) {
+        Trip savedTrip = tripRepository.transitionStatus(tripId, status).orElseThrow(() -> {
+            Trip trip = tripRepository.findById(tripId).orElseThrow(
+                    () -> new RuntimeException("Trip not found with id: " + tripId)
+            );
+            return new IllegalTripTransitionException(tripId, trip.getStatus(), status);
+        });
+        tripCache.put(savedTrip);
+        openTripIndex.update(savedTrip);
+        if (savedTrip.getStatus() != TripStatus.IN_PROGRESS) {
+            tripLocationTracker.close(tripId);
+        }
+        tripStatusNotifier.publish(savedTrip);
+        tripLogPipeline.log(TripLogEvent.TRIP_STATUS_UPDATED, tripId, status);
+        return "Trip status updated to " + status;
     }
 
-    private void logToKafka(String message) {
-        // Wrap the log message in JSON format with service_name and timestamp
-        String jsonLog = String.format("{\"message\":%s, \"service_name\":\"driver-service\", \"timestamp\":\"%s\"}",
-                new ObjectMapper().valueToTree(message).toString(),
-                java.time.Instant.now().toString());
-        kafkaTemplate.send(TRIP_LOGS_TOPIC, jsonLog);
+    @Override
+    public TripHistoryResponse getTripHistory(TripParticipant participant, String participantId, TripHistoryRequest request) {
+        int limit = historyLimit(request, tripHistoryProperties);
+        // one extra row tells whether another page exists without a count query
+        List<TripSummaryResponse> trips = tripRepository.findHistory(participant, participantId, request.getStatus(),
+                request.getFrom(), request.getTo(), historyCursor(request), limit + 1);
+        return historyPage(trips, limit);
     }
 
     @Override
-    public String createTrip(TripRequest tripRequest) throws JsonProcessingException {
+    public List<NearbyTripResponse> findNearbyPendingTrips(double latitude, double longitude, Double radiusMeters, int page, int size) {
+        requireValidCoordinate(latitude, longitude);
+        double radius = searchRadius(radiusMeters, tripNearbyProperties);
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), tripNearbyProperties.getMaxPageSize()));
+
+        return tripRepository.findPendingNear(new GeoJsonPoint(longitude, latitude), radius, pageRequest).getContent().stream()
+                .map(TripServiceImpl::nearbyTrip)
+                .toList();
+    }
+
+    @Override
+    public List<NearestTripResponse> findNearestOpenTrips(double latitude, double longitude, Double radiusMeters, int limit) {
+        return nearestOpenTrips(openTripIndex, tripNearbyProperties, latitude, longitude, radiusMeters, limit);
+    }
+
+    // Request shaping shared with ReactiveTripServiceImpl, so both stacks answer alike
+
+    static Trip newTrip(TripRequest tripRequest) {
         Trip trip = new Trip();
+        trip.setId(new ObjectId().toHexString());
         trip.setDestination(tripRequest.getDestination());
         trip.setStatus(TripStatus.PENDING);
         trip.setOrigin(tripRequest.getOrigin());
         trip.setUserId(tripRequest.getUserId());
-        tripRepository.save(trip);
-        logToKafka(String.format("Trip persisted: id=%s status=%s", trip.getId(), trip.getStatus()));
-        //Create a trip created event and publish to kafka
+        trip.setPickupLocation(pickupLocation(tripRequest.getLatitude(), tripRequest.getLongitude()));
+        Instant now = Instant.now();
+        trip.setCreatedAt(now);
+        trip.setUpdatedAt(now);
+        return trip;
+    }
+
+    static CreateTripResponse createTripResponse(String tripId) {
+        CreateTripResponse response = new CreateTripResponse();
+        response.setTripId(tripId);
+        response.setMessage(TRIP_CREATED_MESSAGE);
+        return response;
+    }
+
+    static CreateTripEvent createTripEvent(Trip trip, TripRequest tripRequest) {
         CreateTripEvent createTripEvent = new CreateTripEvent();
+        createTripEvent.setTripId(trip.getId());
         createTripEvent.setDestination(tripRequest.getDestination());
         createTripEvent.setLatitude(tripRequest.getLatitude());
         createTripEvent.setLongitude(tripRequest.getLongitude());
         createTripEvent.setOrigin(tripRequest.getOrigin());
         createTripEvent.setUserId(tripRequest.getUserId());
-
-        String json = new ObjectMapper().writeValueAsString(createTripEvent);
-        kafkaTemplate.send(TRIP_CREATED_TOPIC, json);
-        logToKafka(String.format("CreateTripEvent published: tripId=%s userId=%s topic=%s", trip.getId(), trip.getUserId(), TRIP_CREATED_TOPIC));
-        return "Waiting for driver to accept the trip";
-    }
-
-    @Override
-    public String getTripStatus(String tripId) {
-        Trip trip = tripRepository.findById(tripId).orElseThrow(
-                () -> new RuntimeException("Trip not found with id: " + tripId)
-        );
-        logToKafka(String.format("Trip status fetched: id=%s status=%s", tripId, trip.getStatus()));
-        return trip.getStatus().toString();
+        return createTripEvent;
     }
 
-    @Override
-    public TripResponse getTripDetails(String tripId) {
-        Trip trip = tripRepository.findById(tripId).orElseThrow(
-                () -> new RuntimeException("Trip not found with id: " + tripId)
-        );
-
+    static TripResponse tripResponse(Trip trip, UserDriverNameDTO userDriverNameDTO) {
         TripResponse tripResponse = new TripResponse();
         tripResponse.setId(trip.getId());
         tripResponse.setOrigin(trip.getOrigin());
         tripResponse.setDestination(trip.getDestination());
         tripResponse.setStatus(trip.getStatus().toString());
-
-        UserDriverNameDTO userDriverNameDTO = userClient.getUserDriverName(trip.getUserId(), trip.getDriverId());
         tripResponse.setUserName(userDriverNameDTO.getUserName());
         tripResponse.setDriverName(userDriverNameDTO.getDriverName());
-        logToKafka(String.format("Trip details fetched: id=%s userId=%s driverId=%s status=%s", trip.getId(), trip.getUserId(), trip.getDriverId(), trip.getStatus()));
         return tripResponse;
     }
 
-    @Override
-    public String updateTripStatus(String tripId, TripStatus status) {
-        Trip trip = tripRepository.findById(tripId).orElseThrow(
-                () -> new RuntimeException("Trip not found with id: " + tripId)
-        );
-        trip.setStatus(status);
-        tripRepository.save(trip);
-        logToKafka(String.format("Trip status updated: id=%s status=%s", tripId, status));
-        return "Trip status updated to " + status;
+    static int historyLimit(TripHistoryRequest request, TripHistoryProperties tripHistoryProperties) {
+        return request.getLimit() == null
+                ? tripHistoryProperties.getDefaultPageSize()
+                : Math.min(Math.max(request.getLimit(), 1), tripHistoryProperties.getMaxPageSize());
+    }
+
+    static TripHistoryCursor historyCursor(TripHistoryRequest request) {
+        return request.getCursor() == null || request.getCursor().isBlank()
+                ? null
+                : TripHistoryCursor.decode(request.getCursor());
+    }
+
+    /**
+     * Builds a history page from up to {@code limit + 1} rows; the extra row only says that a
+     * next page exists.
+     */
+    static TripHistoryResponse historyPage(List<TripSummaryResponse> trips, int limit) {
+        TripHistoryResponse response = new TripHistoryResponse();
+        if (trips.size() > limit) {
+            trips = trips.subList(0, limit);
+            TripSummaryResponse last = trips.get(limit - 1);
+            response.setNextCursor(new TripHistoryCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+        response.setTrips(trips);
+        return response;
+    }
+
+    static double searchRadius(Double radiusMeters, TripNearbyProperties tripNearbyProperties) {
+        return radiusMeters == null || radiusMeters <= 0
+                ? tripNearbyProperties.getDefaultRadiusMeters()
+                : Math.min(radiusMeters, tripNearbyProperties.getMaxRadiusMeters());
+    }
+
+    static NearbyTripResponse nearbyTrip(GeoResult<Trip> result) {
+        Trip trip = result.getContent();
+        NearbyTripResponse response = new NearbyTripResponse();
+        response.setId(trip.getId());
+        response.setUserId(trip.getUserId());
+        response.setOrigin(trip.getOrigin());
+        response.setDestination(trip.getDestination());
+        response.setLatitude(trip.getPickupLocation().getY());
+        response.setLongitude(trip.getPickupLocation().getX());
+        response.setDistanceMeters(Math.round(result.getDistance().in(Metrics.KILOMETERS).getValue() * 1000));
+        return response;
+    }
+
+    static List<NearestTripResponse> nearestOpenTrips(OpenTripIndex openTripIndex, TripNearbyProperties tripNearbyProperties,
+                                                      double latitude, double longitude, Double radiusMeters, int limit) {
+        requireValidCoordinate(latitude, longitude);
+        double radius = searchRadius(radiusMeters, tripNearbyProperties);
+        int size = Math.min(Math.max(limit, 1), tripNearbyProperties.getMaxPageSize());
+        String[] tripIds = new String[size];
+        double[] distances = new double[size];
+        int found = openTripIndex.nearest(latitude, longitude, radius, tripIds, distances);
+
+        List<NearestTripResponse> nearest = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            NearestTripResponse response = new NearestTripResponse();
+            response.setTripId(tripIds[i]);
+            response.setDistanceMeters(Math.round(distances[i]));
+            nearest.add(response);
+        }
+        return nearest;
+    }
+
+    static void requireValidCoordinate(double latitude, double longitude) {
+        if (!isValidCoordinate(latitude, longitude)) {
+            throw new InvalidPickupLocationException(String.valueOf(latitude), String.valueOf(longitude));
+        }
+    }
+
+    /**
+     * Parses the request's pickup coordinates into a GeoJSON point (longitude first), or returns
+     * null when the client sent none; a trip without a pickup point is simply never found nearby.
+     */
+    private static GeoJsonPoint pickupLocation(String latitude, String longitude) {
+        if ((latitude == null || latitude.isBlank()) && (longitude == null || longitude.isBlank())) {
+            return null;
+        }
+        if (latitude == null || longitude == null) {
+            throw new InvalidPickupLocationException(latitude, longitude);
+        }
+        try {
+            double lat = Double.parseDouble(latitude.trim());
+            double lng = Double.parseDouble(longitude.trim());
+            if (isValidCoordinate(lat, lng)) {
+                return new GeoJsonPoint(lng, lat);
+            }
+        } catch (NumberFormatException ignored) {
+            // reported below
+        }
+        throw new InvalidPickupLocationException(latitude, longitude);
+    }
+
+    private static boolean isValidCoordinate(double latitude, double longitude) {
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
     }
 }
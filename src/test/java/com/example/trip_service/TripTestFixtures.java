@@ -0,0 +1,97 @@
+package com.example.trip_service;
+
+import com.example.trip_service.cache.TripCache;
+import com.example.trip_service.codec.BinaryTripEventCodec;
+import com.example.trip_service.codec.JsonTripEventCodec;
+import com.example.trip_service.codec.TripEventCodecs;
+import com.example.trip_service.matching.OpenTripIndex;
+import com.example.trip_service.properties.OpenTripIndexProperties;
+import com.example.trip_service.properties.TripCacheProperties;
+import com.example.trip_service.properties.TripEventProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Setup shared by the unit tests and the JMH benchmarks. Properties beans are bound from
+ * {@code application.properties} and their {@code @Value} defaults the way the running service
+ * binds them, so a test names only the settings it depends on.
+ */
+public final class TripTestFixtures {
+    private static final ResourcePropertySource APPLICATION_PROPERTIES = applicationProperties();
+    // properties beans only have getters, so tests asking for the same settings can share one
+    private static final Map<List<Object>, Object> BOUND = new ConcurrentHashMap<>();
+
+    private TripTestFixtures() {
+    }
+
+    private static ResourcePropertySource applicationProperties() {
+        try {
+            return new ResourcePropertySource("classpath:application.properties");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@code application.properties} with {@code overrides} on top, and relaxed names so
+     * {@code jwt.secretkey} finds {@code jwt.secretKey} as it does in the service.
+     */
+    public static ConfigurableEnvironment environment(Map<String, ?> overrides) {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(APPLICATION_PROPERTIES);
+        environment.getPropertySources().addFirst(new MapPropertySource("test", Map.copyOf(overrides)));
+        ConfigurationPropertySources.attach(environment);
+        return environment;
+    }
+
+    public static <T> T properties(Class<T> type) {
+        return properties(type, Map.of());
+    }
+
+    /**
+     * A properties bean bound with {@code overrides}, keyed by property name, on top of
+     * {@code application.properties}.
+     */
+    public static <T> T properties(Class<T> type, Map<String, ?> overrides) {
+        return type.cast(BOUND.computeIfAbsent(List.of(type, Map.copyOf(overrides)), key -> bind(type, overrides)));
+    }
+
+    private static <T> T bind(Class<T> type, Map<String, ?> overrides) {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.setEnvironment(environment(overrides));
+            context.registerBean(PropertySourcesPlaceholderConfigurer.class);
+            context.register(type);
+            context.refresh();
+            return context.getBean(type);
+        }
+    }
+
+    public static TripEventCodecs tripEventCodecs(String format) {
+        return new TripEventCodecs(List.of(new JsonTripEventCodec(new ObjectMapper()), new BinaryTripEventCodec()),
+                properties(TripEventProperties.class, Map.of("trip.events.format", format)));
+    }
+
+    /**
+     * A cache with no Redis tier, as when {@code trip.cache.redis.enabled=false}.
+     */
+    public static TripCache nearOnlyTripCache(MeterRegistry meterRegistry) {
+        return new TripCache(properties(TripCacheProperties.class), null, null, meterRegistry);
+    }
+
+    public static OpenTripIndex openTripIndex(MeterRegistry meterRegistry) {
+        return new OpenTripIndex(properties(OpenTripIndexProperties.class), meterRegistry);
+    }
+}
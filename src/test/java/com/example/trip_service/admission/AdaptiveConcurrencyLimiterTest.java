@@ -0,0 +1,84 @@
+package com.example.trip_service.admission;
+
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.properties.TripAdmissionProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        TripAdmissionProperties properties = TripTestFixtures.properties(TripAdmissionProperties.class, Map.of(
+                "trip.admission.initial-limit", 10,
+                "trip.admission.min-limit", 2,
+                "trip.admission.max-limit", 12,
+                "trip.admission.increase-step", 1,
+                "trip.admission.backoff-ratio", 0.5));
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new AdaptiveConcurrencyLimiter(properties, meterRegistry);
+    }
+
+    private int admit(RequestPriority priority) {
+        int admitted = 0;
+        while (limiter.tryAcquire(priority)) {
+            admitted++;
+        }
+        return admitted;
+    }
+
+    @Test
+    void testLowPriorityRequestsAreShedFirst() {
+        assertEquals(5, admit(RequestPriority.LOW));
+        assertEquals(3, admit(RequestPriority.NORMAL));
+        assertEquals(2, admit(RequestPriority.CRITICAL));
+
+        limiter.release();
+        assertFalse(limiter.tryAcquire(RequestPriority.LOW));
+        assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+    }
+
+    @Test
+    void testLimitBacksOffWhileMongoIsSlowAndRecoversAfterwards() {
+        Timer mongo = meterRegistry.timer("mongodb.driver.commands", "command", "find");
+        mongo.record(Duration.ofMillis(20));
+        limiter.adjust();
+        assertEquals(11, limiter.getLimit());
+
+        mongo.record(Duration.ofMillis(400));
+        mongo.record(Duration.ofMillis(300));
+        limiter.adjust();
+        assertEquals(5, limiter.getLimit());
+        assertEquals(3, admit(RequestPriority.LOW));
+
+        mongo.record(Duration.ofMillis(500));
+        limiter.adjust();
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, admit(RequestPriority.LOW));
+
+        // no calls in the interval count as healthy
+        limiter.adjust();
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    void testPriorityFollowsEndpoint() {
+        assertEquals(RequestPriority.CRITICAL, RequestPriority.of("POST", "/api/trips"));
+        assertEquals(RequestPriority.CRITICAL, RequestPriority.of("PUT", "/api/trips/trip1/status"));
+        assertEquals(RequestPriority.NORMAL, RequestPriority.of("GET", "/api/trips/trip1"));
+        assertEquals(RequestPriority.NORMAL, RequestPriority.of("GET", "/api/trips/trip1/status"));
+        assertEquals(RequestPriority.LOW, RequestPriority.of("POST", "/api/trips/status"));
+        assertEquals(RequestPriority.LOW, RequestPriority.of("GET", "/api/trips/nearby"));
+        assertEquals(RequestPriority.LOW, RequestPriority.of("GET", "/api/trips/users/user1"));
+        assertEquals(RequestPriority.LOW, RequestPriority.of("GET", "/api/trips/export"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.trip_service.admission;
+
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.properties.TripRateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserRateLimiterTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    private static UserRateLimiter limiter(String mode, StringRedisTemplate stringRedisTemplate) {
+        TripRateLimitProperties properties = TripTestFixtures.properties(TripRateLimitProperties.class, Map.of(
+                "trip.rate-limit.mode", mode,
+                "trip.rate-limit.requests-per-second", 2.0,
+                "trip.rate-limit.burst", 3,
+                "trip.rate-limit.stripes", 4));
+        return new UserRateLimiter(properties, stringRedisTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testBurstIsAllowedThenRefilledAtTheConfiguredRate() {
+        UserRateLimiter limiter = limiter("local", null);
+
+        assertTrue(limiter.tryAcquire("user1", 0));
+        assertTrue(limiter.tryAcquire("user1", 0));
+        assertTrue(limiter.tryAcquire("user1", 0));
+        assertFalse(limiter.tryAcquire("user1", 0));
+        // another user has a budget of their own
+        assertTrue(limiter.tryAcquire("user2", 0));
+
+        assertFalse(limiter.tryAcquire("user1", SECOND / 4));
+        assertTrue(limiter.tryAcquire("user1", SECOND / 2));
+        assertFalse(limiter.tryAcquire("user1", SECOND / 2));
+        assertEquals(1, limiter.retryAfterSeconds());
+    }
+
+    @Test
+    void testSweepDropsOnlyRefilledBuckets() {
+        UserRateLimiter limiter = limiter("local", null);
+        long now = System.nanoTime();
+        limiter.tryAcquire("idle", now - 10 * SECOND);
+        limiter.tryAcquire("busy", now + 10 * SECOND);
+
+        limiter.sweep();
+
+        assertEquals(1, limiter.bucketCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRedisModeSharesTheBucketAndFallsBackToLocalWhenRedisIsDown() {
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("trip-rate:user1")), any(Object[].class))).thenReturn(0L);
+        UserRateLimiter limiter = limiter("redis", stringRedisTemplate);
+
+        assertFalse(limiter.tryAcquire("user1"));
+
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        assertTrue(limiter.tryAcquire("user1"));
+    }
+}
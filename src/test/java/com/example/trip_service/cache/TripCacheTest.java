@@ -0,0 +1,182 @@
+package com.example.trip_service.cache;
+
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.properties.TripCacheProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TripCacheTest {
+    // what Redis holds, behind a mocked template
+    private final Map<String, Trip> redis = new HashMap<>();
+    private final Map<String, Long> redisUpdatedAt = new HashMap<>();
+    private RedisTemplate<String, Trip> tripRedisTemplate;
+    private ValueOperations<String, Trip> valueOperations;
+    private TripCache tripCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        tripRedisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(tripRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        when(valueOperations.multiGet(any())).thenAnswer(invocation ->
+                invocation.<List<String>>getArgument(0).stream().map(redis::get).toList());
+        // the put script: a trip is written unless Redis already holds a later updatedAt
+        Jackson2JsonRedisSerializer<Trip> serializer = new Jackson2JsonRedisSerializer<>(new ObjectMapper().findAndRegisterModules(), Trip.class);
+        doReturn(serializer).when(tripRedisTemplate).getValueSerializer();
+        when(tripRedisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    String key = invocation.<List<String>>getArgument(3).get(0);
+                    long updatedAt = Long.parseLong(new String(invocation.<byte[]>getArgument(5), StandardCharsets.US_ASCII));
+                    if (redisUpdatedAt.getOrDefault(key, Long.MIN_VALUE) > updatedAt) {
+                        return 0L;
+                    }
+                    redis.put(key, serializer.deserialize(invocation.getArgument(4)));
+                    redisUpdatedAt.put(key, updatedAt);
+                    return 1L;
+                });
+        when(valueOperations.setIfAbsent(anyString(), any(Trip.class), any(Duration.class)))
+                .thenAnswer(invocation -> redis.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        when(tripRedisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<Object>>getArgument(0).execute(tripRedisTemplate);
+            return List.of();
+        });
+
+        tripCache = new TripCache(TripTestFixtures.properties(TripCacheProperties.class), tripRedisTemplate, mock(StringRedisTemplate.class), new SimpleMeterRegistry());
+    }
+
+    private static Trip trip(String id, TripStatus status) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setStatus(status);
+        return trip;
+    }
+
+    private static Trip trip(String id, TripStatus status, long updatedAt) {
+        Trip trip = trip(id, status);
+        trip.setUpdatedAt(Instant.ofEpochMilli(updatedAt));
+        return trip;
+    }
+
+    @Test
+    void testOlderPutArrivingLastDoesNotReplaceTheNewerTrip() {
+        Trip inProgress = trip("trip1", TripStatus.IN_PROGRESS, 2_000L);
+        Trip accepted = trip("trip1", TripStatus.ACCEPTED, 1_000L);
+
+        // the driver's start is put before the listener that wrote the accept gets to its put
+        tripCache.put(inProgress);
+        tripCache.put(accepted);
+
+        assertEquals(TripStatus.IN_PROGRESS, tripCache.getNear("trip1").orElseThrow().getStatus());
+        assertEquals(TripStatus.IN_PROGRESS, redis.get("trip:trip1").getStatus());
+        tripCache.put(trip("trip1", TripStatus.COMPLETED, 3_000L));
+        assertEquals(TripStatus.COMPLETED, redis.get("trip:trip1").getStatus());
+        assertEquals(TripStatus.COMPLETED, tripCache.getNear("trip1").orElseThrow().getStatus());
+    }
+
+    @Test
+    void testLoadedTripsAreCachedInBothTiers() {
+        AtomicInteger loads = new AtomicInteger();
+        Trip pending = trip("trip1", TripStatus.PENDING);
+
+        tripCache.get("trip1", id -> {
+            loads.incrementAndGet();
+            return Optional.of(pending);
+        });
+        Optional<Trip> cached = tripCache.get("trip1", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        assertEquals(Optional.of(pending), cached);
+        assertEquals(1, loads.get());
+        assertSame(pending, redis.get("trip:trip1"));
+    }
+
+    @Test
+    void testLoadRacingAPutDoesNotCacheTheStaleTrip() {
+        Trip pending = trip("trip1", TripStatus.PENDING);
+        Trip accepted = trip("trip1", TripStatus.ACCEPTED);
+
+        // the reader has loaded the pending trip from Mongo when a writer accepts it
+        Optional<Trip> read = tripCache.get("trip1", id -> {
+            tripCache.put(accepted);
+            return Optional.of(pending);
+        });
+
+        assertEquals(Optional.of(pending), read);
+        assertEquals(Optional.of(accepted), tripCache.getNear("trip1"));
+        assertEquals(TripStatus.ACCEPTED, redis.get("trip:trip1").getStatus());
+    }
+
+    @Test
+    void testBatchLoadRacingAPutDoesNotCacheTheStaleTrip() {
+        Trip accepted = trip("trip1", TripStatus.ACCEPTED);
+
+        tripCache.getAll(List.of("trip1", "trip2"), ids -> {
+            tripCache.put(accepted);
+            return Map.of("trip1", trip("trip1", TripStatus.PENDING), "trip2", trip("trip2", TripStatus.PENDING));
+        });
+
+        assertEquals(TripStatus.ACCEPTED, tripCache.getNear("trip1").orElseThrow().getStatus());
+        assertEquals(TripStatus.ACCEPTED, redis.get("trip:trip1").getStatus());
+        assertEquals(TripStatus.PENDING, redis.get("trip:trip2").getStatus());
+    }
+
+    @Test
+    void testInvalidationArrivingDuringARedisReadDropsTheNearFill() {
+        redis.put("trip:trip1", trip("trip1", TripStatus.PENDING));
+        // another instance changes the trip between our Redis read and the near fill
+        when(valueOperations.get("trip:trip1")).thenAnswer(invocation -> {
+            Trip stale = redis.get("trip:trip1");
+            redis.put("trip:trip1", trip("trip1", TripStatus.ACCEPTED));
+            tripCache.onMessage(new DefaultMessage(TripCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                    "other-node:trip1".getBytes(StandardCharsets.UTF_8)), null);
+            return stale;
+        });
+
+        tripCache.get("trip1", id -> Optional.empty());
+
+        assertTrue(tripCache.getNear("trip1").isEmpty());
+    }
+
+    @Test
+    void testNearFillIsDroppedWhenTheTripChangedSinceTheRead() {
+        long since = tripCache.generation();
+        tripCache.put(trip("trip1", TripStatus.CANCELLED));
+
+        tripCache.putNear(trip("trip1", TripStatus.PENDING), since);
+        tripCache.putNear(trip("trip2", TripStatus.PENDING), since);
+
+        assertEquals(TripStatus.CANCELLED, tripCache.getNear("trip1").orElseThrow().getStatus());
+        assertTrue(tripCache.getNear("trip2").isPresent());
+    }
+}
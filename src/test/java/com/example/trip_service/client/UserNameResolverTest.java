@@ -0,0 +1,129 @@
+package com.example.trip_service.client;
+
+import com.example.trip_service.DTO.UserDriverNameDTO;
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.properties.UserClientProperties;
+import com.example.trip_service.properties.UserNameCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserNameResolverTest {
+    private UserClient userClient;
+    private SimpleMeterRegistry meterRegistry;
+    private UserNameResolver resolver;
+    private final CountDownLatch callStarted = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        userClient = mock(UserClient.class);
+        // the blocked calls below would otherwise count as slow and trip the breaker
+        UserClientProperties clientProperties = TripTestFixtures.properties(UserClientProperties.class,
+                Map.of("user.client.circuit-breaker.slow-call-duration-ms", 10_000));
+        UserNameCacheProperties cacheProperties = TripTestFixtures.properties(UserNameCacheProperties.class);
+        meterRegistry = new SimpleMeterRegistry();
+        resolver = new UserNameResolver(userClient, new UserClientGuard(clientProperties, meterRegistry), cacheProperties, meterRegistry);
+    }
+
+    private static UserDriverNameDTO names(String userName, String driverName) {
+        UserDriverNameDTO dto = new UserDriverNameDTO();
+        dto.setUserName(userName);
+        dto.setDriverName(driverName);
+        return dto;
+    }
+
+    /**
+     * Holds the auth-service call open until {@link #release} so other lookups can arrive while it
+     * is in flight.
+     */
+    private void blockFirstCall(UserDriverNameDTO result) {
+        when(userClient.getUserDriverName("user1", "driver1")).thenAnswer(invocation -> {
+            callStarted.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            if (result == null) {
+                throw new IllegalStateException("auth-service down");
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Starts a lookup on another thread and returns once it is waiting on the call in flight.
+     */
+    private static <T> Future<T> whileWaiting(ExecutorService executor, Callable<T> lookup) throws Exception {
+        CompletableFuture<Thread> worker = new CompletableFuture<>();
+        Future<T> result = executor.submit(() -> {
+            worker.complete(Thread.currentThread());
+            return lookup.call();
+        });
+        Thread thread = worker.get(5, TimeUnit.SECONDS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+        return result;
+    }
+
+    @Test
+    void testConcurrentLookupsOfTheSameIdsShareOneCall() throws Exception {
+        blockFirstCall(names("UserName", "DriverName"));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<UserDriverNameDTO> first = executor.submit(() -> resolver.resolve("user1", "driver1"));
+            assertTrue(callStarted.await(5, TimeUnit.SECONDS));
+            Future<UserDriverNameDTO> second = whileWaiting(executor, () -> resolver.resolve("user1", "driver1"));
+            // the rider alone is already being fetched, so this lookup waits instead of asking again
+            when(userClient.getUserDriverName("user1", null)).thenThrow(new AssertionError("user1 is already being fetched"));
+            Future<UserDriverNameDTO> riderOnly = whileWaiting(executor, () -> resolver.resolve("user1", null));
+            release.countDown();
+
+            assertEquals("UserName", first.get(5, TimeUnit.SECONDS).getUserName());
+            assertEquals("DriverName", second.get(5, TimeUnit.SECONDS).getDriverName());
+            assertEquals("UserName", riderOnly.get(5, TimeUnit.SECONDS).getUserName());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(userClient, times(1)).getUserDriverName("user1", "driver1");
+        verifyNoMoreInteractions(userClient);
+        assertEquals("UserName", resolver.resolve("user1", "driver1").getUserName());
+        verifyNoMoreInteractions(userClient);
+    }
+
+    @Test
+    void testWaitersOfAFailedCallAreLeftUnresolvedAndTheNextLookupRetries() throws Exception {
+        blockFirstCall(null);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<UserDriverNameDTO> first = executor.submit(() -> resolver.resolve("user1", "driver1"));
+            assertTrue(callStarted.await(5, TimeUnit.SECONDS));
+            Future<UserDriverNameDTO> second = whileWaiting(executor, () -> resolver.resolve("user1", "driver1"));
+            release.countDown();
+
+            assertNull(first.get(5, TimeUnit.SECONDS).getUserName());
+            assertNull(second.get(5, TimeUnit.SECONDS).getDriverName());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(4, meterRegistry.get("user.names.degraded").counter().count());
+
+        reset(userClient);
+        when(userClient.getUserDriverName("user1", "driver1")).thenReturn(names("UserName", "DriverName"));
+        assertEquals("DriverName", resolver.resolve("user1", "driver1").getDriverName());
+        verify(userClient, times(1)).getUserDriverName("user1", "driver1");
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.trip_service.codec;
+
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.event.AcceptTripEvent;
+import com.example.trip_service.event.CancelTripEvent;
+import com.example.trip_service.event.CreateTripEvent;
+import com.example.trip_service.event.DriverLocationEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TripEventCodecsTest {
+    private static final String TRIP_ID = "65f1c2a9e4b0a1b2c3d4e5f6";
+    private static final String USER_ID = "65f1c2a9e4b0a1b2c3d4e5f7";
+
+    private static TripEventCodecs codecs(String format) {
+        return TripTestFixtures.tripEventCodecs(format);
+    }
+
+    private static <T> T roundTrip(TripEventCodecs codecs, Object event, Class<T> type) {
+        EncodedTripEvent encoded = codecs.encode(event);
+        Headers headers = new RecordHeaders();
+        TripEventCodecs.addHeaders(headers, encoded.format(), encoded.version());
+        return codecs.decode(headers, encoded.payload(), type);
+    }
+
+    private static CreateTripEvent createTripEvent(String latitude, String longitude) {
+        CreateTripEvent event = new CreateTripEvent();
+        event.setTripId(TRIP_ID);
+        event.setUserId("rider-1");
+        event.setOrigin("Bến Thành");
+        event.setDestination(null);
+        event.setLatitude(latitude);
+        event.setLongitude(longitude);
+        return event;
+    }
+
+    @Test
+    void testEveryEventRoundTripsInBothFormats() {
+        AcceptTripEvent acceptTripEvent = new AcceptTripEvent();
+        acceptTripEvent.setTripId(TRIP_ID);
+        acceptTripEvent.setDriverId("driver-1");
+        CancelTripEvent cancelTripEvent = new CancelTripEvent();
+        cancelTripEvent.setTripId(TRIP_ID);
+        cancelTripEvent.setUserId(USER_ID);
+        cancelTripEvent.setReason("EXPIRED");
+        cancelTripEvent.setCancelledAt(1_718_000_000_123L);
+        DriverLocationEvent driverLocationEvent = new DriverLocationEvent();
+        driverLocationEvent.setTripId(TRIP_ID);
+        driverLocationEvent.setDriverId(USER_ID);
+        driverLocationEvent.setLatitude(10.776_889);
+        driverLocationEvent.setLongitude(-106.700_806);
+        driverLocationEvent.setRecordedAt(1_718_000_000_456L);
+
+        for (String format : List.of(JsonTripEventCodec.FORMAT, BinaryTripEventCodec.FORMAT)) {
+            TripEventCodecs codecs = codecs(format);
+            CreateTripEvent createTripEvent = createTripEvent("10.7769", "106.7009");
+            assertEquals(createTripEvent, roundTrip(codecs, createTripEvent, CreateTripEvent.class), format);
+            assertEquals(acceptTripEvent, roundTrip(codecs, acceptTripEvent, AcceptTripEvent.class), format);
+            assertEquals(cancelTripEvent, roundTrip(codecs, cancelTripEvent, CancelTripEvent.class), format);
+            assertEquals(driverLocationEvent, roundTrip(codecs, driverLocationEvent, DriverLocationEvent.class), format);
+        }
+    }
+
+    @Test
+    void testBinaryKeepsCoordinatesAsWrittenAndIsSmallerThanJson() {
+        TripEventCodecs binary = codecs(BinaryTripEventCodec.FORMAT);
+        CreateTripEvent asWritten = createTripEvent("10", "abc");
+        assertEquals(asWritten, roundTrip(binary, asWritten, CreateTripEvent.class));
+
+        CreateTripEvent event = createTripEvent("10.7769", "106.7009");
+        int jsonSize = codecs(JsonTripEventCodec.FORMAT).encode(event).payload().length;
+        int binarySize = binary.encode(event).payload().length;
+        assertTrue(binarySize * 2 < jsonSize, binarySize + " binary bytes vs " + jsonSize + " JSON bytes");
+    }
+
+    @Test
+    void testRecordsWithoutHeadersAreReadAsJson() {
+        byte[] legacy = ("{\"tripId\":\"" + TRIP_ID + "\",\"driverId\":\"driver-1\"}").getBytes(StandardCharsets.UTF_8);
+
+        AcceptTripEvent event = codecs(BinaryTripEventCodec.FORMAT).decode(new RecordHeaders(), legacy, AcceptTripEvent.class);
+
+        assertEquals(TRIP_ID, event.getTripId());
+        assertEquals("driver-1", event.getDriverId());
+    }
+
+    @Test
+    void testUnreadableRecordsAreRejected() {
+        TripEventCodecs codecs = codecs(BinaryTripEventCodec.FORMAT);
+        byte[] payload = codecs.encode(createTripEvent("10.0", "20.0")).payload();
+
+        Headers newer = new RecordHeaders();
+        TripEventCodecs.addHeaders(newer, BinaryTripEventCodec.FORMAT, BinaryTripEventCodec.VERSION + 1);
+        Headers current = new RecordHeaders();
+        TripEventCodecs.addHeaders(current, BinaryTripEventCodec.FORMAT, BinaryTripEventCodec.VERSION);
+        Headers unknown = new RecordHeaders();
+        TripEventCodecs.addHeaders(unknown, "avro", 1);
+
+        assertThrows(IllegalArgumentException.class, () -> codecs.decode(newer, payload, CreateTripEvent.class));
+        assertThrows(IllegalArgumentException.class, () -> codecs.decode(current, payload, AcceptTripEvent.class));
+        assertThrows(IllegalArgumentException.class, () -> codecs.decode(current, Arrays.copyOf(payload, payload.length - 1), CreateTripEvent.class));
+        assertThrows(IllegalArgumentException.class, () -> codecs.decode(current, Arrays.copyOf(payload, payload.length + 1), CreateTripEvent.class));
+        assertThrows(IllegalArgumentException.class, () -> codecs.decode(unknown, payload, CreateTripEvent.class));
+        assertThrows(IllegalArgumentException.class, () -> codecs.decode(new RecordHeaders(), "{not json".getBytes(StandardCharsets.UTF_8), CreateTripEvent.class));
+    }
+
+    @Test
+    void testUnknownProducerFormatFailsAtStartup() {
+        assertThrows(IllegalStateException.class, () -> codecs("avro"));
+    }
+}
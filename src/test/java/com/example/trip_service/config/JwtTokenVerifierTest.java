@@ -0,0 +1,70 @@
+package com.example.trip_service.config;
+
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.properties.JwtProperties;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenVerifierTest {
+    private static final String SECRET = "MySuperSecretKey12345678901234567890";
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties jwtProperties = TripTestFixtures.properties(JwtProperties.class, Map.of("jwt.secretKey", SECRET));
+        meterRegistry = new SimpleMeterRegistry();
+        verifier = new JwtTokenVerifier(jwtProperties, meterRegistry);
+    }
+
+    private String token(long expiresInMillis) {
+        return Jwts.builder()
+                .claim("userId", "user1")
+                .claim("authorities", "ROLE_USER")
+                .setExpiration(new Date(System.currentTimeMillis() + expiresInMillis))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+    }
+
+    @Test
+    void testVerifyReadsClaims() {
+        String token = token(60_000);
+        Authentication authentication = verifier.verify(token);
+        assertEquals("user1", authentication.getPrincipal());
+        assertEquals(token, authentication.getCredentials());
+        assertEquals("ROLE_USER", authentication.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void testVerifyServesRepeatedTokenFromCache() {
+        String token = token(60_000);
+        verifier.verify(token);
+        verifier.verify(token);
+        verifier.verify(token);
+
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "jwt.tokens").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwt.tokens").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void testVerifyRejectsTamperedToken() {
+        String token = token(60_000);
+        assertThrows(RuntimeException.class, () -> verifier.verify(token + "x"));
+    }
+
+    @Test
+    void testVerifyRejectsExpiredToken() {
+        String token = token(-60_000);
+        assertThrows(RuntimeException.class, () -> verifier.verify(token));
+    }
+}
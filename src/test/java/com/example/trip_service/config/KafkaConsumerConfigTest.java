@@ -0,0 +1,83 @@
+package com.example.trip_service.config;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class KafkaConsumerConfigTest {
+    private static final TopicPartition PARTITION = new TopicPartition("trip_created", 0);
+
+    private ConsumerRecordRecoverer recoverer;
+    private Consumer<?, ?> consumer;
+    private MessageListenerContainer container;
+    private DefaultErrorHandler errorHandler;
+    private ConsumerRecords<String, byte[]> records;
+
+    @BeforeEach
+    void setUp() {
+        recoverer = mock(ConsumerRecordRecoverer.class);
+        consumer = mock(Consumer.class);
+        when(consumer.poll(any(Duration.class))).thenReturn(ConsumerRecords.empty());
+        when(consumer.assignment()).thenReturn(Set.of(PARTITION));
+        container = mock(MessageListenerContainer.class);
+        when(container.isRunning()).thenReturn(true);
+        when(container.getContainerProperties()).thenReturn(new ContainerProperties("trip_created"));
+        errorHandler = KafkaConsumerConfig.acceptErrorHandler(recoverer);
+        records = new ConsumerRecords<>(Map.of(PARTITION, List.of(
+                new ConsumerRecord<>("trip_created", 0, 0L, "trip1", new byte[0]),
+                new ConsumerRecord<>("trip_created", 0, 1L, "trip2", new byte[0]))));
+    }
+
+    @Test
+    void testInfrastructureFailureRetriesTheBatchInsteadOfDeadLetteringIt() {
+        AtomicInteger attempts = new AtomicInteger();
+        // Mongo comes back on the third retry, later than the 3 attempts records get
+        Runnable listener = () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("mongo unavailable");
+            }
+        };
+
+        errorHandler.handleBatch(new IllegalStateException("mongo unavailable"), records, consumer, container, listener);
+
+        assertEquals(3, attempts.get());
+        verifyNoInteractions(recoverer);
+    }
+
+    @Test
+    void testOnlyTheRecordSingledOutIsDeadLetteredAfterItsRetries() {
+        ConsumerRecord<String, byte[]> unreadable = records.records(PARTITION).get(1);
+        BatchListenerFailedException failure = new BatchListenerFailedException("unreadable", unreadable);
+
+        // the record is redelivered after each of its 3 retries
+        for (int delivery = 0; delivery < 3; delivery++) {
+            assertThrows(RuntimeException.class, () -> errorHandler.handleBatch(failure, records, consumer, container, () -> {
+            }));
+        }
+        verifyNoInteractions(recoverer);
+        errorHandler.handleBatch(failure, records, consumer, container, () -> {
+        });
+
+        verify(recoverer).accept(eq(unreadable), any());
+        verifyNoMoreInteractions(recoverer);
+    }
+}
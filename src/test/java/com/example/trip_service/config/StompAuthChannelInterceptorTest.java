@@ -0,0 +1,91 @@
+package com.example.trip_service.config;
+
+import com.example.trip_service.cache.TripCache;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.properties.JwtProperties;
+import com.example.trip_service.repository.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.security.Principal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StompAuthChannelInterceptorTest {
+    private static final Principal RIDER = () -> "rider1";
+
+    private TripCache tripCache;
+    private StompAuthChannelInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        tripCache = mock(TripCache.class);
+        Trip trip = new Trip();
+        trip.setId("trip1");
+        trip.setUserId("rider1");
+        trip.setDriverId("driver1");
+        when(tripCache.get(eq("trip1"), any())).thenReturn(Optional.of(trip));
+        interceptor = new StompAuthChannelInterceptor(new JwtProperties(), mock(JwtTokenVerifier.class), tripCache, mock(TripRepository.class));
+    }
+
+    private Message<?> send(StompCommand command, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        accessor.setUser(RIDER);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        return interceptor.preSend(message, mock(MessageChannel.class));
+    }
+
+    @Test
+    void testParticipantMaySubscribeToItsTripAndItsOwnQueues() {
+        assertNotNull(send(StompCommand.SUBSCRIBE, "/topic/trips/trip1"));
+        assertNotNull(send(StompCommand.SUBSCRIBE, "/user/queue/trips"));
+        assertNotNull(send(StompCommand.SUBSCRIBE, "/user/queue/trip-locations"));
+        assertNotNull(send(StompCommand.SEND, "/app/trips/trip1/location"));
+    }
+
+    @Test
+    void testWildcardSubscriptionsAreRefusedWithoutALookup() {
+        assertThrows(AccessDeniedException.class, () -> send(StompCommand.SUBSCRIBE, "/topic/**"));
+        assertThrows(AccessDeniedException.class, () -> send(StompCommand.SUBSCRIBE, "/topic/trips/*"));
+        assertThrows(AccessDeniedException.class, () -> send(StompCommand.SUBSCRIBE, "/topic/trips/trip?"));
+        assertThrows(AccessDeniedException.class, () -> send(StompCommand.SUBSCRIBE, "/topic/trips/{id}"));
+
+        verifyNoInteractions(tripCache);
+    }
+
+    @Test
+    void testRawQueueAndUnknownDestinationsAreRefused() {
+        assertThrows(AccessDeniedException.class, () -> send(StompCommand.SUBSCRIBE, "/queue/**"));
+        assertThrows(AccessDeniedException.class, () -> send(StompCommand.SUBSCRIBE, "/queue/trips-userrider2"));
+        assertThrows(AccessDeniedException.class, () -> send(StompCommand.SUBSCRIBE, "/user/queue/other"));
+        assertThrows(AccessDeniedException.class, () -> send(StompCommand.SUBSCRIBE, "/topic/other"));
+    }
+
+    @Test
+    void testNonParticipantIsRefusedItsTrip() {
+        Trip other = new Trip();
+        other.setUserId("rider2");
+        when(tripCache.get(eq("trip2"), any())).thenReturn(Optional.of(other));
+
+        assertThrows(AccessDeniedException.class, () -> send(StompCommand.SUBSCRIBE, "/topic/trips/trip2"));
+    }
+
+    @Test
+    void testClientCannotSendToBrokerDestinations() {
+        assertThrows(AccessDeniedException.class, () -> send(StompCommand.SEND, "/topic/trips/trip1"));
+        assertThrows(AccessDeniedException.class, () -> send(StompCommand.SEND, "/queue/trip-locations"));
+        assertThrows(AccessDeniedException.class, () -> send(StompCommand.SEND, "/user/rider2/queue/trips"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.trip_service.eventListener;
+
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.cache.TripCache;
+import com.example.trip_service.codec.BinaryTripEventCodec;
+import com.example.trip_service.codec.EncodedTripEvent;
+import com.example.trip_service.codec.TripEventCodecs;
+import com.example.trip_service.event.AcceptTripEvent;
+import com.example.trip_service.matching.OpenTripIndex;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.notification.TripStatusNotifier;
+import com.example.trip_service.repository.TripRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AcceptTripListenerTest {
+    @Mock
+    private TripRepository tripRepository;
+    @Mock
+    private TripCache tripCache;
+    @Mock
+    private TripStatusNotifier tripStatusNotifier;
+    @Mock
+    private OpenTripIndex openTripIndex;
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Captor
+    private ArgumentCaptor<ProducerRecord<String, byte[]>> deadLetter;
+
+    @InjectMocks
+    private AcceptTripListener listener;
+
+    private TripEventCodecs tripEventCodecs;
+    private long offset;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        tripEventCodecs = TripTestFixtures.tripEventCodecs(BinaryTripEventCodec.FORMAT);
+        ReflectionTestUtils.setField(listener, "tripEventCodecs", tripEventCodecs);
+        ReflectionTestUtils.setField(listener, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    private ConsumerRecord<String, byte[]> accept(String tripId, String driverId) {
+        AcceptTripEvent event = new AcceptTripEvent();
+        event.setTripId(tripId);
+        event.setDriverId(driverId);
+        EncodedTripEvent encoded = tripEventCodecs.encode(event);
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("trip_created", 0, offset++, tripId, encoded.payload());
+        TripEventCodecs.addHeaders(record.headers(), encoded.format(), encoded.version());
+        return record;
+    }
+
+    private ConsumerRecord<String, byte[]> unreadable() {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("trip_created", 0, offset++, "trip9", "not an event".getBytes(StandardCharsets.UTF_8));
+        TripEventCodecs.addHeaders(record.headers(), BinaryTripEventCodec.FORMAT, BinaryTripEventCodec.VERSION);
+        return record;
+    }
+
+    private static Trip accepted(String tripId, String driverId) {
+        Trip trip = new Trip();
+        trip.setId(tripId);
+        trip.setDriverId(driverId);
+        trip.setStatus(TripStatus.ACCEPTED);
+        return trip;
+    }
+
+    @Test
+    void testFirstAcceptForATripInTheBatchWins() {
+        Trip trip = accepted("trip1", "driver1");
+        when(tripRepository.acceptPending(Map.of("trip1", "driver1", "trip2", "driver3"))).thenReturn(List.of(trip));
+
+        listener.listenCreatedTrip(List.of(accept("trip1", "driver1"), accept("trip1", "driver2"), accept("trip2", "driver3")));
+
+        verify(tripRepository).acceptPending(Map.of("trip1", "driver1", "trip2", "driver3"));
+        verify(tripCache).put(trip);
+        verify(openTripIndex).update(trip);
+        verify(tripStatusNotifier).publish(trip);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void testUnreadableRecordGoesToTheDeadLetterTopicWithItsHeaders() {
+        when(tripRepository.acceptPending(any())).thenReturn(List.of());
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any())).thenReturn(CompletableFuture.completedFuture(null));
+        ConsumerRecord<String, byte[]> unreadable = unreadable();
+
+        listener.listenCreatedTrip(List.of(unreadable, accept("trip1", "driver1")));
+
+        verify(tripRepository).acceptPending(Map.of("trip1", "driver1"));
+        verify(kafkaTemplate).send(deadLetter.capture());
+        assertEquals("trip_created.DLT", deadLetter.getValue().topic());
+        assertArrayEquals(unreadable.value(), deadLetter.getValue().value());
+        assertNotNull(deadLetter.getValue().headers().lastHeader(TripEventCodecs.FORMAT_HEADER));
+        assertNotNull(deadLetter.getValue().headers().lastHeader("x-exception-message"));
+    }
+
+    @Test
+    void testFailedDeadLetterSendIsHandedToTheErrorHandlerAfterTheAcceptsAreWritten() {
+        when(tripRepository.acceptPending(any())).thenReturn(List.of());
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        ConsumerRecord<String, byte[]> unreadable = unreadable();
+        List<ConsumerRecord<String, byte[]>> records = List.of(accept("trip1", "driver1"), unreadable);
+
+        BatchListenerFailedException failure = assertThrows(BatchListenerFailedException.class, () -> listener.listenCreatedTrip(records));
+
+        assertSame(unreadable, failure.getRecord());
+        verify(tripRepository).acceptPending(Map.of("trip1", "driver1"));
+    }
+}
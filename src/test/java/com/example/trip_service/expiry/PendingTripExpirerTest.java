@@ -0,0 +1,164 @@
+package com.example.trip_service.expiry;
+
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.codec.BinaryTripEventCodec;
+import com.example.trip_service.event.CancelTripEvent;
+import com.example.trip_service.location.TripLocationTracker;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.example.trip_service.matching.OpenTripIndex;
+import com.example.trip_service.model.OutboxEvent;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.notification.TripStatusNotifier;
+import com.example.trip_service.properties.TripExpiryProperties;
+import com.example.trip_service.repository.TripRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PendingTripExpirerTest {
+    private static final long TTL_MS = 60_000L;
+
+    private TripRepository tripRepository;
+    private TripStatusNotifier tripStatusNotifier;
+    private TripLocationTracker tripLocationTracker;
+    private OpenTripIndex openTripIndex;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<OutboxEvent> outboxEvents = new ArrayList<>();
+    private PendingTripExpirer expirer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        tripRepository = mock(TripRepository.class);
+        // cancels every id it is given, as Mongo would for trips still pending
+        when(tripRepository.cancelExpiredPending(any(), any(), any())).thenAnswer(invocation -> {
+            Function<Trip, OutboxEvent> outboxEvent = invocation.getArgument(2);
+            List<Trip> cancelled = new ArrayList<>();
+            for (String tripId : (Collection<String>) invocation.getArgument(0)) {
+                Trip trip = trip(tripId, Instant.now().minusMillis(TTL_MS));
+                trip.setStatus(TripStatus.CANCELLED);
+                trip.setUpdatedAt(Instant.now());
+                cancelled.add(trip);
+                outboxEvents.add(outboxEvent.apply(trip));
+            }
+            return cancelled;
+        });
+        tripStatusNotifier = mock(TripStatusNotifier.class);
+        tripLocationTracker = mock(TripLocationTracker.class);
+        openTripIndex = TripTestFixtures.openTripIndex(new SimpleMeterRegistry());
+        meterRegistry = new SimpleMeterRegistry();
+        expirer = expirer(2, 10);
+    }
+
+    private PendingTripExpirer expirer(int batchSize, int maxScheduled) {
+        TripExpiryProperties properties = TripTestFixtures.properties(TripExpiryProperties.class, Map.of(
+                "trip.expiry.pending-ttl-ms", TTL_MS,
+                "trip.expiry.tick-ms", 1,
+                "trip.expiry.wheel-levels", 4,
+                "trip.expiry.max-scheduled", maxScheduled,
+                "trip.expiry.batch-size", batchSize));
+        return new PendingTripExpirer(properties, tripRepository, TripTestFixtures.nearOnlyTripCache(new SimpleMeterRegistry()), openTripIndex,
+                tripStatusNotifier, mock(TripLogPipeline.class), TripTestFixtures.tripEventCodecs(BinaryTripEventCodec.FORMAT), tripLocationTracker,
+                meterRegistry);
+    }
+
+    private static Trip trip(String id, Instant createdAt) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setUserId("rider1");
+        trip.setStatus(TripStatus.PENDING);
+        trip.setPickupLocation(new GeoJsonPoint(106.70, 10.77));
+        trip.setCreatedAt(createdAt);
+        return trip;
+    }
+
+    private double trips(String result) {
+        return meterRegistry.get("trip.expiry.trips").tag("result", result).counter().count();
+    }
+
+    @Test
+    void testDueTripsAreCancelledInBatchesWithAnEvent() throws Exception {
+        Instant overdue = Instant.now().minusMillis(TTL_MS + 1000);
+        for (String tripId : List.of("trip1", "trip2", "trip3")) {
+            Trip trip = trip(tripId, overdue);
+            openTripIndex.update(trip);
+            expirer.schedule(trip);
+        }
+        expirer.schedule(trip("fresh", Instant.now()));
+        Thread.sleep(5);
+
+        expirer.advance();
+
+        verify(tripRepository).cancelExpiredPending(eq(List.of("trip1", "trip2")), any(), any());
+        verify(tripRepository).cancelExpiredPending(eq(List.of("trip3")), any(), any());
+        assertEquals(3, trips("expired"));
+        assertEquals(1, expirer.scheduledCount());
+        assertEquals(0, openTripIndex.size());
+        verify(tripStatusNotifier, times(3)).publish(any(Trip.class));
+        verify(tripLocationTracker).close("trip3");
+
+        OutboxEvent outboxEvent = outboxEvents.get(0);
+        assertEquals("trip_cancelled", outboxEvent.getTopic());
+        assertEquals("trip1", outboxEvent.getKey());
+        assertEquals(BinaryTripEventCodec.FORMAT, outboxEvent.getFormat());
+        CancelTripEvent event = new BinaryTripEventCodec().decode(outboxEvent.getData(), outboxEvent.getVersion(), CancelTripEvent.class);
+        assertEquals("rider1", event.getUserId());
+        assertEquals(PendingTripExpirer.EXPIRED_REASON, event.getReason());
+    }
+
+    @Test
+    void testTripsAcceptedBeforeTheirDeadlineAreSkipped() throws Exception {
+        doReturn(List.of()).when(tripRepository).cancelExpiredPending(any(), any(), any());
+        expirer.schedule(trip("trip1", Instant.now().minusMillis(TTL_MS)));
+        Thread.sleep(5);
+
+        expirer.advance();
+
+        assertEquals(1, trips("skipped"));
+        verifyNoInteractions(tripStatusNotifier);
+    }
+
+    @Test
+    void testSweepPagesThroughExpiredTripsUntilAShortBatch() {
+        when(tripRepository.findExpiredPendingIds(any(), anyInt()))
+                .thenReturn(List.of("trip1", "trip2"))
+                .thenReturn(List.of("trip3"))
+                .thenReturn(List.of("trip4"));
+
+        expirer.sweep();
+
+        verify(tripRepository, times(2)).findExpiredPendingIds(any(), eq(2));
+        assertEquals(3, trips("expired"));
+    }
+
+    @Test
+    void testFullWheelDefersToTheSweepAndFailedBatchesAreCounted() throws Exception {
+        expirer = expirer(10, 1);
+        Instant overdue = Instant.now().minusMillis(TTL_MS);
+        expirer.schedule(trip("trip1", overdue));
+        expirer.schedule(trip("trip2", overdue));
+        assertEquals(1, trips("deferred"));
+
+        doThrow(new IllegalStateException("mongo down")).when(tripRepository).cancelExpiredPending(any(), any(), any());
+        Thread.sleep(5);
+        expirer.advance();
+
+        assertEquals(1, trips("failed"));
+        assertEquals(0, expirer.scheduledCount());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.trip_service.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+    private static final long T0 = 1_000_000L;
+
+    @Test
+    void testIdsComeDueOnTheirTickAcrossLevels() {
+        // 4 slots per level, 3 levels: level 0 spans 4 ticks, level 1 16 and level 2 64
+        TimingWheel wheel = new TimingWheel(10, 4, 3, T0);
+        wheel.schedule("soon", T0 + 25);
+        wheel.schedule("middle", T0 + 150);
+        wheel.schedule("late", T0 + 470);
+        assertEquals(3, wheel.size());
+
+        List<String> due = new ArrayList<>();
+        List<Long> dueAt = new ArrayList<>();
+        for (long now = T0; now <= T0 + 600; now += 10) {
+            int before = due.size();
+            wheel.advance(now, due);
+            for (int i = before; i < due.size(); i++) {
+                dueAt.add(now);
+            }
+        }
+
+        assertEquals(List.of("soon", "middle", "late"), due);
+        assertEquals(List.of(T0 + 30, T0 + 150, T0 + 470), dueAt);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testDeadlinesBeyondTheWheelAreRefused() {
+        TimingWheel wheel = new TimingWheel(10, 4, 2, T0);
+
+        assertTrue(wheel.schedule("inside", T0 + 150));
+        assertFalse(wheel.schedule("outside", T0 + 170));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void testPastDeadlinesComeDueOnTheNextTickAndLongPausesDrainEverything() {
+        TimingWheel wheel = new TimingWheel(10, 4, 3, T0);
+        wheel.schedule("overdue", T0 - 1000);
+        wheel.schedule("later", T0 + 400);
+
+        List<String> due = new ArrayList<>();
+        wheel.advance(T0 + 10, due);
+        assertEquals(List.of("overdue"), due);
+
+        wheel.advance(T0 + 10_000, due);
+        assertEquals(List.of("overdue", "later"), due);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.trip_service.idempotency;
+
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.exception.IdempotencyKeyInUseException;
+import com.example.trip_service.exception.IdempotencyKeyMismatchException;
+import com.example.trip_service.properties.TripIdempotencyProperties;
+import com.example.trip_service.request.TripRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TripIdempotencyStoreTest {
+    private StringRedisTemplate stringRedisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private SimpleMeterRegistry meterRegistry;
+    private TripIdempotencyStore store;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        meterRegistry = new SimpleMeterRegistry();
+        store = new TripIdempotencyStore(TripTestFixtures.properties(TripIdempotencyProperties.class), stringRedisTemplate, new ObjectMapper(), meterRegistry);
+    }
+
+    private static TripRequest request(String destination) {
+        TripRequest request = new TripRequest();
+        request.setUserId("user1");
+        request.setOrigin("Origin");
+        request.setDestination(destination);
+        request.setLatitude("10.0");
+        request.setLongitude("20.0");
+        return request;
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("trip.idempotency.requests").tag("outcome", outcome).counter().count();
+    }
+
+    /**
+     * Claims a key on an empty store and returns the value the claim wrote, as Redis would hold it.
+     */
+    private String pendingValue(TripRequest request) {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        store.claim("user1", request, "key-1");
+        ArgumentCaptor<String> value = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).setIfAbsent(anyString(), value.capture(), eq(Duration.ofSeconds(30)));
+        return value.getValue();
+    }
+
+    @Test
+    void testClaimWithoutKeyDoesNotTouchRedis() {
+        TripIdempotencyStore.Claim claim = store.claim("user1", request("Destination"), null);
+
+        assertNull(claim.replayedTripId());
+        claim.complete("trip-1");
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    void testFirstClaimIsCompletedWithTripIdForTheFullTtl() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        TripIdempotencyStore.Claim claim = store.claim("user1", request("Destination"), "key-1");
+        claim.complete("trip-1");
+
+        assertNull(claim.replayedTripId());
+        ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> value = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).set(key.capture(), value.capture(), eq(Duration.ofDays(1)));
+        assertTrue(key.getValue().startsWith("trip-idempotency:user1:"));
+        assertFalse(key.getValue().contains("key-1"));
+        assertTrue(value.getValue().endsWith("|trip-1"));
+        assertEquals(1, outcome("claimed"));
+    }
+
+    @Test
+    void testKeyIsScopedByThePrincipalNotTheUserIdInTheBody() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        TripRequest request = request("Destination");
+        request.setUserId("victim");
+
+        store.claim("attacker", request, "key-1");
+
+        verify(valueOperations).setIfAbsent(startsWith("trip-idempotency:attacker:"), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void testRetryOfCompletedRequestReplaysTripId() {
+        String pending = pendingValue(request("Destination"));
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(anyString())).thenReturn(pending + "trip-1");
+
+        TripIdempotencyStore.Claim claim = store.claim("user1", request("Destination"), "key-1");
+
+        assertEquals("trip-1", claim.replayedTripId());
+        assertEquals(1, outcome("replayed"));
+    }
+
+    @Test
+    void testRetryWhileFirstRequestIsRunningIsRefused() {
+        String pending = pendingValue(request("Destination"));
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(anyString())).thenReturn(pending);
+
+        assertThrows(IdempotencyKeyInUseException.class, () -> store.claim("user1", request("Destination"), "key-1"));
+        assertEquals(1, outcome("in_progress"));
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestIsRejected() {
+        String pending = pendingValue(request("Destination"));
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(anyString())).thenReturn(pending + "trip-1");
+
+        assertThrows(IdempotencyKeyMismatchException.class, () -> store.claim("user1", request("Elsewhere"), "key-1"));
+        assertEquals(1, outcome("mismatch"));
+    }
+
+    @Test
+    void testReleaseDeletesTheKeySoARetryCanCreateTheTrip() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        store.claim("user1", request("Destination"), "key-1").release();
+
+        verify(stringRedisTemplate).delete(startsWith("trip-idempotency:user1:"));
+    }
+
+    @Test
+    void testClaimFailsOpenWhenRedisIsUnavailable() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        TripIdempotencyStore.Claim claim = store.claim("user1", request("Destination"), "key-1");
+
+        assertNull(claim.replayedTripId());
+        claim.complete("trip-1");
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+        assertEquals(1, outcome("unavailable"));
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.trip_service.location;
+
+import com.example.trip_service.DTO.TripLocationUpdateDTO;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.cache.TripCache;
+import com.example.trip_service.event.DriverLocationEvent;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.model.TripLocationBucket;
+import com.example.trip_service.notification.TripMessageFanout;
+import com.example.trip_service.properties.TripLocationProperties;
+import com.example.trip_service.repository.TripLocationRepository;
+import com.example.trip_service.repository.TripRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TripLocationTrackerTest {
+    private static final long T0 = 1_700_000_400_000L;
+
+    private TripLocationRepository tripLocationRepository;
+    private TripRepository tripRepository;
+    private TripMessageFanout tripMessageFanout;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<TripLocationBucket> written = new ArrayList<>();
+    private TripCache tripCache;
+    private TripLocationTracker tracker;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        tripLocationRepository = mock(TripLocationRepository.class);
+        doAnswer(invocation -> written.addAll(invocation.getArgument(0, Collection.class)))
+                .when(tripLocationRepository).appendSegments(any());
+        tripRepository = mock(TripRepository.class);
+        when(tripRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(tripRepository.findById("trip1")).thenReturn(Optional.of(trip("trip1", TripStatus.IN_PROGRESS)));
+        when(tripRepository.findById("done")).thenReturn(Optional.of(trip("done", TripStatus.COMPLETED)));
+        tripMessageFanout = mock(TripMessageFanout.class);
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = tracker(60_000L);
+    }
+
+    private TripLocationTracker tracker(long idleTimeoutMs) {
+        TripLocationProperties properties = TripTestFixtures.properties(TripLocationProperties.class, Map.of(
+                "trip.location.max-pending-points", 100,
+                "trip.location.max-active-trips", 10,
+                "trip.location.idle-timeout-ms", idleTimeoutMs,
+                "trip.location.flush-batch-size", 100));
+        tripCache = TripTestFixtures.nearOnlyTripCache(meterRegistry);
+        return new TripLocationTracker(properties, tripLocationRepository, tripCache, tripRepository, tripMessageFanout, meterRegistry);
+    }
+
+    private static Trip trip(String id, TripStatus status) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setUserId("rider1");
+        trip.setDriverId("driver1");
+        trip.setStatus(status);
+        return trip;
+    }
+
+    private static DriverLocationEvent ping(String tripId, String driverId, long recordedAt, double latitude, double longitude) {
+        DriverLocationEvent ping = new DriverLocationEvent();
+        ping.setTripId(tripId);
+        ping.setDriverId(driverId);
+        ping.setRecordedAt(recordedAt);
+        ping.setLatitude(latitude);
+        ping.setLongitude(longitude);
+        return ping;
+    }
+
+    private double pings(String result) {
+        return meterRegistry.get("trip.location.pings").tag("result", result).counter().count();
+    }
+
+    @Test
+    void testPingsAreDownsampledByIntervalAndDistance() {
+        tracker.record(ping("trip1", "driver1", T0, 10.77000, 106.70000));
+        // 250 ms later: too soon
+        tracker.record(ping("trip1", "driver1", T0 + 250, 10.77010, 106.70000));
+        // 1 s later but only ~1 m away
+        tracker.record(ping("trip1", "driver1", T0 + 1000, 10.77001, 106.70000));
+        // 2 s later and ~22 m away
+        tracker.record(ping("trip1", "driver1", T0 + 2000, 10.77020, 106.70000));
+        // standing still, but 10 s since the last kept point
+        tracker.record(ping("trip1", "driver1", T0 + 12_000, 10.77020, 106.70000));
+
+        tracker.flush();
+
+        assertEquals(3, pings("kept"));
+        assertEquals(2, pings("downsampled"));
+        assertEquals(1, written.size());
+        TripLocationBucket bucket = written.get(0);
+        assertEquals("trip1:" + (T0 / 1000), bucket.getId());
+        assertEquals(Instant.ofEpochMilli(T0), bucket.getBucketStart());
+        assertEquals("driver1", bucket.getDriverId());
+        assertEquals(3, bucket.getPoints());
+        assertEquals(Instant.ofEpochMilli(T0 + 12_000), bucket.getLastRecordedAt());
+        TripLocationBucket.Segment segment = bucket.getSegments().get(0);
+        assertEquals(T0, segment.getStartedAt());
+        assertEquals(1_077_000, segment.getLatitudeE5());
+        assertEquals(10_670_000, segment.getLongitudeE5());
+        assertArrayEquals(new int[]{2000, 20, 0, 10_000, 0, 0}, segment.getDeltas());
+    }
+
+    @Test
+    void testFlushSplitsPointsAtBucketBoundaryAndWritesEachOnce() {
+        long boundary = T0 + 600_000;
+        tracker.record(ping("trip1", "driver1", boundary - 10_000, 10.77000, 106.70000));
+        tracker.record(ping("trip1", "driver1", boundary + 5_000, 10.77100, 106.70000));
+
+        tracker.flush();
+        tracker.flush();
+
+        verify(tripLocationRepository, times(1)).appendSegments(any());
+        assertEquals(List.of("trip1:" + (T0 / 1000), "trip1:" + (boundary / 1000)),
+                written.stream().map(TripLocationBucket::getId).toList());
+        assertEquals(0, written.get(1).getSegments().get(0).getDeltas().length);
+    }
+
+    @Test
+    void testPingsForTripsNotInProgressOrFromOtherDriversAreRejected() {
+        tracker.record(ping("done", "driver1", T0, 10.77, 106.70));
+        tracker.record(ping("unknown", "driver1", T0, 10.77, 106.70));
+        tracker.record(ping("trip1", "driver2", T0, 10.77, 106.70));
+        tracker.record(ping("trip1", "driver1", T0, 95.0, 106.70));
+
+        tracker.flush();
+
+        assertEquals(4, pings("rejected"));
+        verify(tripLocationRepository, never()).appendSegments(any());
+    }
+
+    @Test
+    void testLatestPositionIsPushedToRiderOnce() {
+        tracker.record(ping("trip1", "driver1", T0, 10.77000, 106.70000));
+        tracker.record(ping("trip1", "driver1", T0 + 200, 10.77005, 106.70000));
+
+        tracker.publishLatest();
+        tracker.publishLatest();
+
+        ArgumentCaptor<TripLocationUpdateDTO> update = ArgumentCaptor.forClass(TripLocationUpdateDTO.class);
+        verify(tripMessageFanout, times(1)).convertAndSendToUser(eq("rider1"), eq(TripLocationTracker.LOCATION_QUEUE), update.capture());
+        assertEquals(10.77005, update.getValue().getLatitude());
+        assertEquals(T0 + 200, update.getValue().getTimestamp());
+    }
+
+    @Test
+    void testIdleTracksAreDroppedAfterTheirPointsAreWritten() {
+        tracker = tracker(-1);
+        tracker.record(ping("trip1", "driver1", T0, 10.77, 106.70));
+
+        tracker.flush();
+
+        assertEquals(1, written.size());
+        assertEquals(0, meterRegistry.get("trip.location.active").gauge().value());
+    }
+
+    @Test
+    void testClosingATrackWritesItsPointsAndRejectsLaterPings() {
+        tracker.record(ping("trip1", "driver1", T0, 10.77000, 106.70000));
+        tripCache.put(trip("trip1", TripStatus.COMPLETED));
+
+        tracker.close("trip1");
+        tracker.record(ping("trip1", "driver1", T0 + 2000, 10.77020, 106.70000));
+        tracker.flush();
+        tracker.publishLatest();
+
+        assertEquals(1, written.size());
+        assertEquals(1, written.get(0).getPoints());
+        assertEquals(1, pings("rejected"));
+        assertEquals(0, meterRegistry.get("trip.location.active").gauge().value());
+        verifyNoInteractions(tripMessageFanout);
+    }
+
+    @Test
+    void testPingAfterTheCachedStatusChangedElsewhereEndsTheTrack() {
+        tracker.record(ping("trip1", "driver1", T0, 10.77000, 106.70000));
+        // another instance completed the trip; the cache now serves its new status
+        tripCache.put(trip("trip1", TripStatus.COMPLETED));
+
+        tracker.record(ping("trip1", "driver1", T0 + 2000, 10.77020, 106.70000));
+
+        assertEquals(1, pings("kept"));
+        assertEquals(1, pings("rejected"));
+        assertEquals(1, written.size());
+        assertEquals(0, meterRegistry.get("trip.location.active").gauge().value());
+    }
+
+    @Test
+    void testFailedWriteIsCountedAndNotRetried() {
+        doThrow(new IllegalStateException("mongo down")).when(tripLocationRepository).appendSegments(any());
+        tracker.record(ping("trip1", "driver1", T0, 10.77, 106.70));
+
+        tracker.flush();
+        tracker.flush();
+
+        verify(tripLocationRepository, times(1)).appendSegments(any());
+        assertEquals(1, meterRegistry.get("trip.location.points").tag("result", "failed").counter().count());
+    }
+}
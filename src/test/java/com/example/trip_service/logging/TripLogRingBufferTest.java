@@ -0,0 +1,72 @@
+package com.example.trip_service.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TripLogRingBufferTest {
+
+    @Test
+    void testCapacityRoundsUpToPowerOfTwo() {
+        assertEquals(8, new TripLogRingBuffer(5).capacity());
+        assertEquals(8192, new TripLogRingBuffer(8192).capacity());
+    }
+
+    @Test
+    void testOfferRejectsWhenFull() {
+        TripLogRingBuffer ringBuffer = new TripLogRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ringBuffer.offer(TripLogEvent.TRIP_STATUS_FETCHED, i, "trip" + i, "PENDING", null, null));
+        }
+        assertFalse(ringBuffer.offer(TripLogEvent.TRIP_STATUS_FETCHED, 4, "trip4", "PENDING", null, null));
+
+        assertEquals(1, ringBuffer.drain((event, timestamp, arg0, arg1, arg2, arg3) -> { }, 1));
+        assertTrue(ringBuffer.offer(TripLogEvent.TRIP_STATUS_FETCHED, 4, "trip4", "PENDING", null, null));
+    }
+
+    @Test
+    void testDrainPreservesOrderAndArguments() {
+        TripLogRingBuffer ringBuffer = new TripLogRingBuffer(8);
+        ringBuffer.offer(TripLogEvent.TRIP_PERSISTED, 1L, "trip1", "PENDING", null, null);
+        ringBuffer.offer(TripLogEvent.TRIP_DETAILS_FETCHED, 2L, "trip2", "user1", "driver1", "ACCEPTED");
+
+        List<String> drained = new ArrayList<>();
+        int count = ringBuffer.drain((event, timestamp, arg0, arg1, arg2, arg3) ->
+                drained.add(event + ":" + timestamp + ":" + arg0 + ":" + arg1 + ":" + arg2 + ":" + arg3), 10);
+
+        assertEquals(2, count);
+        assertEquals(List.of(
+                "TRIP_PERSISTED:1:trip1:PENDING:null:null",
+                "TRIP_DETAILS_FETCHED:2:trip2:user1:driver1:ACCEPTED"), drained);
+        assertEquals(0, ringBuffer.size());
+    }
+
+    @Test
+    void testConcurrentProducersLoseNothingWhileCapacityAllows() throws InterruptedException {
+        TripLogRingBuffer ringBuffer = new TripLogRingBuffer(1 << 16);
+        int producers = 4;
+        int perProducer = 10_000;
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    ringBuffer.offer(TripLogEvent.TRIP_STATUS_FETCHED, i, "trip", "PENDING", null, null);
+                }
+                done.countDown();
+            });
+            producer.start();
+        }
+        done.await();
+
+        AtomicInteger drained = new AtomicInteger();
+        while (ringBuffer.drain((event, timestamp, arg0, arg1, arg2, arg3) -> drained.incrementAndGet(), 1024) > 0) {
+            // keep draining
+        }
+        assertEquals(producers * perProducer, drained.get());
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.trip_service.matching;
+
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.properties.OpenTripIndexProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenTripIndexTest {
+    private OpenTripIndex index;
+    private final String[] tripIds = new String[10];
+    private final double[] distances = new double[10];
+
+    @BeforeEach
+    void setUp() {
+        OpenTripIndexProperties properties = TripTestFixtures.properties(OpenTripIndexProperties.class, Map.of("trip.matching.lock-stripes", 8));
+        index = new OpenTripIndex(properties, new SimpleMeterRegistry());
+    }
+
+    private static Trip trip(String id, TripStatus status, double latitude, double longitude) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setStatus(status);
+        trip.setPickupLocation(new GeoJsonPoint(longitude, latitude));
+        return trip;
+    }
+
+    @Test
+    void testNearestReturnsTripsWithinRadiusNearestFirst() {
+        index.update(trip("far", TripStatus.PENDING, 10.7800, 106.7000));
+        index.update(trip("near", TripStatus.PENDING, 10.7701, 106.7000));
+        index.update(trip("middle", TripStatus.PENDING, 10.7750, 106.7000));
+        index.update(trip("outside", TripStatus.PENDING, 10.8500, 106.7000));
+
+        int found = index.nearest(10.7700, 106.7000, 2000, tripIds, distances);
+
+        assertEquals(3, found);
+        assertArrayEquals(new String[]{"near", "middle", "far"}, Arrays.copyOf(tripIds, found));
+        assertEquals(11.1, distances[0], 0.5);
+        assertEquals(1113, distances[2], 5);
+    }
+
+    @Test
+    void testNearestKeepsOnlyTheClosestWhenOutputIsFull() {
+        for (int i = 0; i < 50; i++) {
+            index.put("trip" + i, 10.77 + i * 0.0001, 106.70);
+        }
+        String[] top = new String[3];
+        double[] topDistances = new double[3];
+
+        assertEquals(3, index.nearest(10.77, 106.70, 5000, top, topDistances));
+        assertArrayEquals(new String[]{"trip0", "trip1", "trip2"}, top);
+    }
+
+    @Test
+    void testNearestMatchesBruteForceOnDenseGrid() {
+        SplittableRandom random = new SplittableRandom(7);
+        double[][] points = new double[5000][];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new double[]{10.70 + random.nextDouble() * 0.1, 106.65 + random.nextDouble() * 0.1};
+            index.put("trip" + i, points[i][0], points[i][1]);
+        }
+
+        int found = index.nearest(10.75, 106.70, 3000, tripIds, distances);
+
+        double cosLatitude = Math.cos(Math.toRadians(10.75));
+        double[] expected = Arrays.stream(points)
+                .mapToDouble(p -> Math.hypot((p[0] - 10.75) * 111_320, (p[1] - 106.70) * cosLatitude * 111_320))
+                .filter(d -> d <= 3000)
+                .sorted()
+                .limit(tripIds.length)
+                .toArray();
+        assertEquals(expected.length, found);
+        assertArrayEquals(expected, Arrays.copyOf(distances, found), 1e-6);
+    }
+
+    @Test
+    void testUpdateDropsClosedTripsAndMovesRelocatedOnes() {
+        index.update(trip("trip1", TripStatus.PENDING, 10.77, 106.70));
+        index.update(trip("trip1", TripStatus.PENDING, 21.03, 105.85));
+        assertEquals(0, index.nearest(10.77, 106.70, 1000, tripIds, distances));
+        assertEquals(1, index.nearest(21.03, 105.85, 1000, tripIds, distances));
+
+        index.update(trip("trip1", TripStatus.ACCEPTED, 21.03, 105.85));
+        assertEquals(0, index.nearest(21.03, 105.85, 1000, tripIds, distances));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testSweepDropsEntriesMissingFromTheStoreButKeepsNewerWrites() {
+        index.put("closedElsewhere", 10.77, 106.70);
+        index.put("stillOpen", 10.77, 106.70);
+        long mark = index.syncMark();
+        index.put("createdDuringSync", 10.77, 106.70);
+
+        assertEquals(1, index.sweep(mark, Set.of("stillOpen")));
+        assertEquals(2, index.nearest(10.77, 106.70, 100, tripIds, distances));
+        assertEquals(Set.of("stillOpen", "createdDuringSync"), Set.of(tripIds[0], tripIds[1]));
+    }
+
+    @Test
+    void testNearestWrapsAroundTheAntimeridian() {
+        index.put("east", 0.0, 179.999);
+        assertEquals(1, index.nearest(0.0, -179.999, 1000, tripIds, distances));
+        assertEquals("east", tripIds[0]);
+    }
+}
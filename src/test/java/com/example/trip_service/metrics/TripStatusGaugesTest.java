@@ -0,0 +1,55 @@
+package com.example.trip_service.metrics;
+
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.repository.TripRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TripStatusGaugesTest {
+    private TripRepository tripRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private TripStatusGauges gauges;
+
+    @BeforeEach
+    void setUp() {
+        tripRepository = mock(TripRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        gauges = new TripStatusGauges(tripRepository, meterRegistry);
+    }
+
+    private double gauge(TripStatus status) {
+        return meterRegistry.get("trip.status.trips").tag("status", status.name()).gauge().value();
+    }
+
+    @Test
+    void testRefreshPublishesCountPerStatus() {
+        when(tripRepository.countByStatus(any())).thenReturn(0L);
+        when(tripRepository.countByStatus(TripStatus.PENDING)).thenReturn(7L);
+        when(tripRepository.countByStatus(TripStatus.COMPLETED)).thenReturn(42L);
+
+        gauges.refresh();
+
+        assertEquals(7, gauge(TripStatus.PENDING));
+        assertEquals(42, gauge(TripStatus.COMPLETED));
+        assertEquals(0, gauge(TripStatus.CANCELLED));
+    }
+
+    @Test
+    void testFailedRefreshKeepsPreviousCounts() {
+        when(tripRepository.countByStatus(any())).thenReturn(3L);
+        gauges.refresh();
+
+        when(tripRepository.countByStatus(TripStatus.COMPLETED)).thenThrow(new DataAccessResourceFailureException("down"));
+        when(tripRepository.countByStatus(TripStatus.PENDING)).thenReturn(9L);
+        gauges.refresh();
+
+        assertEquals(3, gauge(TripStatus.PENDING));
+        assertEquals(3, gauge(TripStatus.COMPLETED));
+    }
+}
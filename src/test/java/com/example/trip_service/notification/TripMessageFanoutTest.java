@@ -0,0 +1,199 @@
+package com.example.trip_service.notification;
+
+import com.example.trip_service.DTO.TripStatusUpdateDTO;
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.properties.TripFanoutProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TripMessageFanoutTest {
+    private static final Principal RIDER = () -> "rider1";
+
+    private SimpMessagingTemplate simpMessagingTemplate;
+    private StringRedisTemplate stringRedisTemplate;
+    private RedisOperations<String, String> pipeline;
+    private SimpleMeterRegistry meterRegistry;
+    private TripMessageFanout fanout;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        simpMessagingTemplate = mock(SimpMessagingTemplate.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        pipeline = mock(RedisOperations.class);
+        when(stringRedisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, SessionCallback.class).execute(pipeline);
+            return List.of();
+        });
+        meterRegistry = new SimpleMeterRegistry();
+        fanout = fanout("redis", simpMessagingTemplate);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        fanout.destroy();
+    }
+
+    private TripMessageFanout fanout(String mode, SimpMessagingTemplate messagingTemplate) {
+        TripFanoutProperties properties = TripTestFixtures.properties(TripFanoutProperties.class, Map.of(
+                "trip.fanout.mode", mode,
+                "trip.fanout.max-queued", 2));
+        return new TripMessageFanout(properties, messagingTemplate, stringRedisTemplate, mock(RedisConnectionFactory.class),
+                new ObjectMapper(), meterRegistry);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static TripStatusUpdateDTO update(String tripId) {
+        TripStatusUpdateDTO update = new TripStatusUpdateDTO();
+        update.setTripId(tripId);
+        update.setStatus("ACCEPTED");
+        return update;
+    }
+
+    private double messages(String result) {
+        return meterRegistry.get("trip.fanout.messages").tag("result", result).counter().count();
+    }
+
+    @Test
+    void testInstanceListensOnlyWhileItHasSubscribers() {
+        fanout.onSubscribe(new SessionSubscribeEvent(this, frame(StompCommand.SUBSCRIBE, "s1", "sub1", "/topic/trips/trip1"), RIDER));
+        fanout.onSubscribe(new SessionSubscribeEvent(this, frame(StompCommand.SUBSCRIBE, "s2", "sub1", "/topic/trips/trip1"), RIDER));
+        fanout.onSubscribe(new SessionSubscribeEvent(this, frame(StompCommand.SUBSCRIBE, "s1", "sub2", "/user/queue/trips"), RIDER));
+        assertEquals(2, fanout.channelCount());
+
+        fanout.onUnsubscribe(new SessionUnsubscribeEvent(this, frame(StompCommand.UNSUBSCRIBE, "s2", "sub1", null), RIDER));
+        assertEquals(2, fanout.channelCount());
+
+        fanout.onDisconnect(new SessionDisconnectEvent(this, frame(StompCommand.DISCONNECT, "s1", null, null), "s1", CloseStatus.NORMAL));
+        assertEquals(0, fanout.channelCount());
+    }
+
+    @Test
+    void testSubscriptionChangesDoNotWaitOnARedisSubscribeInFlight() throws Exception {
+        RedisMessageListenerContainer container = mock(RedisMessageListenerContainer.class);
+        ReflectionTestUtils.setField(fanout, "container", container);
+        ChannelTopic topic = new ChannelTopic("trip-fanout:/topic/trips/trip1");
+        CountDownLatch subscribing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            subscribing.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(container).addMessageListener(fanout, topic);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> first = executor.submit(() ->
+                    fanout.onSubscribe(new SessionSubscribeEvent(this, frame(StompCommand.SUBSCRIBE, "s1", "sub1", "/topic/trips/trip1"), RIDER)));
+            assertTrue(subscribing.await(5, TimeUnit.SECONDS));
+
+            // the last subscriber leaves while Redis is still subscribing for the first
+            assertEquals(1, fanout.channelCount());
+            fanout.onDisconnect(new SessionDisconnectEvent(this, frame(StompCommand.DISCONNECT, "s1", null, null), "s1", CloseStatus.NORMAL));
+            assertEquals(0, fanout.channelCount());
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        InOrder inOrder = inOrder(container);
+        inOrder.verify(container).addMessageListener(fanout, topic);
+        inOrder.verify(container).removeMessageListener(fanout, topic);
+    }
+
+    @Test
+    void testMessageIsDeliveredLocallyAndRelayedOnItsDestinationChannel() {
+        TripStatusUpdateDTO update = update("trip1");
+
+        fanout.convertAndSend("/topic/trips/trip1", update);
+        fanout.convertAndSendToUser("rider1", "/queue/trips", update);
+        fanout.relay();
+
+        verify(simpMessagingTemplate).convertAndSend("/topic/trips/trip1", update);
+        verify(simpMessagingTemplate).convertAndSendToUser("rider1", "/queue/trips", update);
+        verify(pipeline).convertAndSend(eq("trip-fanout:/topic/trips/trip1"), anyString());
+        verify(pipeline).convertAndSend(eq("trip-fanout:user:rider1"), anyString());
+        assertEquals(2, messages("relayed"));
+    }
+
+    @Test
+    void testRelayedMessageIsDeliveredByOtherInstancesOnly() throws Exception {
+        fanout.convertAndSendToUser("rider1", "/queue/trips", update("trip1"));
+        fanout.relay();
+        ArgumentCaptor<String> relayed = ArgumentCaptor.forClass(String.class);
+        verify(pipeline).convertAndSend(anyString(), relayed.capture());
+        DefaultMessage message = new DefaultMessage("trip-fanout:user:rider1".getBytes(StandardCharsets.UTF_8),
+                relayed.getValue().getBytes(StandardCharsets.UTF_8));
+
+        fanout.onMessage(message, null);
+        SimpMessagingTemplate otherTemplate = mock(SimpMessagingTemplate.class);
+        TripMessageFanout other = fanout("redis", otherTemplate);
+        other.onMessage(message, null);
+        other.destroy();
+
+        verify(simpMessagingTemplate, times(1)).convertAndSendToUser(anyString(), anyString(), any(Object.class));
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(otherTemplate).convertAndSendToUser(eq("rider1"), eq("/queue/trips"), payload.capture());
+        assertEquals("trip1", ((JsonNode) payload.getValue()).get("tripId").asText());
+    }
+
+    @Test
+    void testRelayQueueIsBoundedAndLocalModeDoesNotRelay() {
+        for (int i = 0; i < 3; i++) {
+            fanout.convertAndSend("/topic/trips/trip" + i, update("trip" + i));
+        }
+        assertEquals(1, messages("dropped"));
+
+        TripMessageFanout local = fanout("local", simpMessagingTemplate);
+        local.convertAndSend("/topic/trips/trip1", update("trip1"));
+        local.relay();
+        verify(simpMessagingTemplate, times(4)).convertAndSend(anyString(), any(Object.class));
+        verify(stringRedisTemplate, never()).executePipelined(any(SessionCallback.class));
+    }
+}
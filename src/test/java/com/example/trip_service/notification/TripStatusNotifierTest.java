@@ -0,0 +1,90 @@
+package com.example.trip_service.notification;
+
+import com.example.trip_service.DTO.TripStatusUpdateDTO;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.properties.TripNotifyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TripStatusNotifierTest {
+    private TripMessageFanout tripMessageFanout;
+    private SimpleMeterRegistry meterRegistry;
+    private TripStatusNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        tripMessageFanout = mock(TripMessageFanout.class);
+        meterRegistry = new SimpleMeterRegistry();
+        TripNotifyProperties properties = TripTestFixtures.properties(TripNotifyProperties.class, Map.of("trip.notify.max-pending", 1));
+        notifier = new TripStatusNotifier(tripMessageFanout, properties, meterRegistry);
+    }
+
+    private static Trip trip(String id, TripStatus status) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setUserId("rider-" + id);
+        trip.setStatus(status);
+        return trip;
+    }
+
+    @Test
+    void testFullQueueDropsOnlyNewPendingTrips() {
+        notifier.publish(trip("trip1", TripStatus.PENDING));
+        notifier.publish(trip("trip2", TripStatus.PENDING));
+        notifier.publish(trip("trip3", TripStatus.ACCEPTED));
+        notifier.publish(trip("trip4", TripStatus.CANCELLED));
+
+        notifier.flush();
+
+        ArgumentCaptor<TripStatusUpdateDTO> updates = ArgumentCaptor.forClass(TripStatusUpdateDTO.class);
+        verify(tripMessageFanout, times(3)).convertAndSend(anyString(), updates.capture());
+        assertEquals(List.of("trip1", "trip3", "trip4"), updates.getAllValues().stream().map(TripStatusUpdateDTO::getTripId).sorted().toList());
+        verify(tripMessageFanout, never()).convertAndSend(eq(TripStatusNotifier.TRIP_TOPIC_PREFIX + "trip2"), any(Object.class));
+        assertEquals(1, meterRegistry.get("trip.notify.updates").tag("result", "dropped").counter().count());
+    }
+
+    @Test
+    void testBurstOnOneTripIsDeliveredAsItsLatestStatus() {
+        notifier.publish(trip("trip1", TripStatus.ACCEPTED));
+        notifier.publish(trip("trip1", TripStatus.IN_PROGRESS));
+
+        notifier.flush();
+
+        ArgumentCaptor<TripStatusUpdateDTO> update = ArgumentCaptor.forClass(TripStatusUpdateDTO.class);
+        verify(tripMessageFanout).convertAndSend(eq(TripStatusNotifier.TRIP_TOPIC_PREFIX + "trip1"), update.capture());
+        assertEquals("IN_PROGRESS", update.getValue().getStatus());
+        verify(tripMessageFanout).convertAndSendToUser(eq("rider-trip1"), eq(TripStatusNotifier.USER_QUEUE), any(Object.class));
+    }
+
+    @Test
+    void testOlderUpdatePublishedLastDoesNotReplaceTheQueuedOne() {
+        Trip inProgress = trip("trip1", TripStatus.IN_PROGRESS);
+        inProgress.setUpdatedAt(Instant.ofEpochMilli(2_000L));
+        Trip accepted = trip("trip1", TripStatus.ACCEPTED);
+        accepted.setUpdatedAt(Instant.ofEpochMilli(1_000L));
+
+        notifier.publish(inProgress);
+        notifier.publish(accepted);
+        notifier.flush();
+
+        ArgumentCaptor<TripStatusUpdateDTO> update = ArgumentCaptor.forClass(TripStatusUpdateDTO.class);
+        verify(tripMessageFanout).convertAndSend(eq(TripStatusNotifier.TRIP_TOPIC_PREFIX + "trip1"), update.capture());
+        assertEquals("IN_PROGRESS", update.getValue().getStatus());
+        assertEquals(2_000L, update.getValue().getTimestamp());
+        assertEquals(1, meterRegistry.get("trip.notify.updates").tag("result", "coalesced").counter().count());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.trip_service.outbox;
+
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.codec.EncodedTripEvent;
+import com.example.trip_service.codec.TripEventCodecs;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.example.trip_service.model.OutboxEvent;
+import com.example.trip_service.properties.OutboxProperties;
+import com.example.trip_service.repository.OutboxEventRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.mock.MockProducerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+    private OutboxEventRepository outboxEventRepository;
+    private MongoTemplate mongoTemplate;
+    private ScriptedProducer producer;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), anyString())).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        producer = new ScriptedProducer();
+        OutboxProperties properties = TripTestFixtures.properties(OutboxProperties.class, Map.of(
+                "trip.outbox.batch-size", 2,
+                "trip.outbox.send-timeout-ms", 1000));
+        relay = new OutboxRelay(outboxEventRepository, mongoTemplate, mock(TripLogPipeline.class), properties,
+                new MockProducerFactory<>(() -> producer));
+    }
+
+    private static OutboxEvent outboxEvent(String id) {
+        OutboxEvent outboxEvent = OutboxEvent.of("trip_create_wait_driver", "key-" + id,
+                new EncodedTripEvent("json", 1, ("{\"tripId\":\"" + id + "\"}").getBytes(StandardCharsets.UTF_8)));
+        outboxEvent.setId(id);
+        return outboxEvent;
+    }
+
+    @Test
+    void testNothingIsRelayedWhileAnotherInstanceHoldsTheLease() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), anyString())).thenThrow(new DuplicateKeyException("lease held"));
+
+        relay.relay();
+
+        verifyNoInteractions(outboxEventRepository);
+        assertTrue(producer.history().isEmpty());
+    }
+
+    @Test
+    void testLeaseIsTakenOverOnlyOnceExpired() {
+        when(outboxEventRepository.findByOrderByIdAsc(any())).thenReturn(List.of());
+
+        relay.relay();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).upsert(query.capture(), any(Update.class), anyString());
+        Document criteria = query.getValue().getQueryObject();
+        assertEquals("trip-outbox-relay", criteria.get("_id"));
+        @SuppressWarnings("unchecked")
+        List<Document> holders = (List<Document>) criteria.get("$or");
+        assertTrue(holders.get(0).containsKey("owner"));
+        assertTrue(holders.get(1).get("expiresAt", Document.class).containsKey("$lt"));
+    }
+
+    @Test
+    void testOnlyAcknowledgedEventsAreDeletedAndTheDrainStopsOnAFailure() {
+        producer.failingKeys.add("key-2");
+        when(outboxEventRepository.findByOrderByIdAsc(any())).thenReturn(List.of(outboxEvent("1"), outboxEvent("2")));
+
+        relay.relay();
+
+        verify(outboxEventRepository).deleteAllById(List.of("1"));
+        verify(outboxEventRepository, times(1)).findByOrderByIdAsc(any());
+        ProducerRecord<String, byte[]> sent = producer.history().get(0);
+        assertEquals("json", new String(sent.headers().lastHeader(TripEventCodecs.FORMAT_HEADER).value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testLeaseIsRenewedBeforeEachBatchAndTheDrainStopsOnceItIsLost() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), anyString()))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null))
+                .thenThrow(new DuplicateKeyException("lease taken over"));
+        when(outboxEventRepository.findByOrderByIdAsc(any()))
+                .thenReturn(List.of(outboxEvent("1"), outboxEvent("2")))
+                .thenReturn(List.of(outboxEvent("3"), outboxEvent("4")))
+                .thenReturn(List.of(outboxEvent("5"), outboxEvent("6")));
+
+        relay.relay();
+
+        verify(mongoTemplate, times(3)).upsert(any(Query.class), any(Update.class), anyString());
+        verify(outboxEventRepository, times(2)).findByOrderByIdAsc(any());
+        verify(outboxEventRepository).deleteAllById(List.of("1", "2"));
+        verify(outboxEventRepository).deleteAllById(List.of("3", "4"));
+        assertEquals(4, producer.history().size());
+    }
+
+    /**
+     * Acknowledges every send except those with a key in {@link #failingKeys}, and survives the
+     * {@code close()} that {@code KafkaTemplate} issues after each non-transactional send.
+     */
+    private static final class ScriptedProducer extends MockProducer<String, byte[]> {
+        final Set<String> failingKeys = new HashSet<>();
+
+        ScriptedProducer() {
+            super(true, new StringSerializer(), new ByteArraySerializer());
+        }
+
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<String, byte[]> record, Callback callback) {
+            if (!failingKeys.contains(record.key())) {
+                return super.send(record, callback);
+            }
+            TimeoutException failure = new TimeoutException("not acknowledged");
+            callback.onCompletion(null, failure);
+            return CompletableFuture.failedFuture(failure);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.trip_service.repository;
+
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.model.OutboxEvent;
+import com.example.trip_service.model.Trip;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TripRepositoryCustomImplTest {
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulkOperations;
+    private BulkWriteResult bulkWriteResult;
+    private TripRepositoryCustomImpl tripRepository;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulkOperations = mock(BulkOperations.class);
+        bulkWriteResult = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Trip.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        tripRepository = new TripRepositoryCustomImpl(mongoTemplate);
+    }
+
+    private static Trip accepted(String tripId, String driverId) {
+        Trip trip = new Trip();
+        trip.setId(tripId);
+        trip.setDriverId(driverId);
+        trip.setStatus(TripStatus.ACCEPTED);
+        return trip;
+    }
+
+    @Test
+    void testAcceptPendingReturnsOnlyTripsThisBatchWon() {
+        when(bulkWriteResult.getModifiedCount()).thenReturn(1);
+        // trip2 was accepted by another driver before this batch
+        when(mongoTemplate.find(any(Query.class), eq(Trip.class)))
+                .thenReturn(List.of(accepted("trip1", "driver1"), accepted("trip2", "other-driver")));
+
+        List<Trip> won = tripRepository.acceptPending(Map.of("trip1", "driver1", "trip2", "driver2"));
+
+        assertEquals(List.of("trip1"), won.stream().map(Trip::getId).toList());
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), any(Update.class));
+    }
+
+    @Test
+    void testAcceptPendingSkipsTheReadWhenNothingWasAccepted() {
+        when(bulkWriteResult.getModifiedCount()).thenReturn(0);
+
+        assertTrue(tripRepository.acceptPending(Map.of("trip1", "driver1")).isEmpty());
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Trip.class));
+    }
+
+    @Test
+    void testCancelExpiredPendingReadsBackOnlyTheTripsItMarked() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Trip.class))).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        Trip cancelled = accepted("trip1", null);
+        cancelled.setStatus(TripStatus.CANCELLED);
+        cancelled.setUpdatedAt(Instant.now());
+        when(mongoTemplate.find(any(Query.class), eq(Trip.class))).thenReturn(List.of(cancelled));
+
+        List<Trip> trips = tripRepository.cancelExpiredPending(List.of("trip1", "trip2"), Instant.now(), trip -> null);
+
+        assertEquals(List.of(cancelled), trips);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(any(Query.class), update.capture(), eq(Trip.class));
+        Object batch = update.getValue().getUpdateObject().get("$set", Document.class).get("expiryBatch");
+        assertNotNull(batch);
+        ArgumentCaptor<Query> readBack = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(readBack.capture(), eq(Trip.class));
+        assertEquals(batch, readBack.getValue().getQueryObject().get("expiryBatch"));
+        assertFalse(readBack.getValue().getQueryObject().containsKey("updatedAt"));
+        verify(mongoTemplate).insert(anyList(), eq(OutboxEvent.class));
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.trip_service.service;
+
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.client.ReactiveUserNameResolver;
+import com.example.trip_service.client.UserClientGuard;
+import com.example.trip_service.codec.JsonTripEventCodec;
+import com.example.trip_service.exception.IllegalTripTransitionException;
+import com.example.trip_service.exception.TripBatchTooLargeException;
+import com.example.trip_service.expiry.PendingTripExpirer;
+import com.example.trip_service.idempotency.TripIdempotencyStore;
+import com.example.trip_service.location.TripLocationTracker;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.example.trip_service.matching.OpenTripIndex;
+import com.example.trip_service.model.OutboxEvent;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.notification.TripStatusNotifier;
+import com.example.trip_service.properties.TripExportProperties;
+import com.example.trip_service.properties.TripHistoryProperties;
+import com.example.trip_service.properties.TripNearbyProperties;
+import com.example.trip_service.properties.TripStatusBatchProperties;
+import com.example.trip_service.properties.UserClientProperties;
+import com.example.trip_service.properties.UserNameCacheProperties;
+import com.example.trip_service.repository.ReactiveTripRepository;
+import com.example.trip_service.request.TripExportRequest;
+import com.example.trip_service.request.TripRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.trip_service.service.TripServiceTestProperties.properties;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveTripServiceImplTest {
+    @Mock
+    private ReactiveTripRepository reactiveTripRepository;
+    @Mock
+    private TripStatusNotifier tripStatusNotifier;
+    @Mock
+    private TripLogPipeline tripLogPipeline;
+    @Mock
+    private TripIdempotencyStore tripIdempotencyStore;
+    @Mock
+    private TripIdempotencyStore.Claim claim;
+    @Mock
+    private PendingTripExpirer pendingTripExpirer;
+    @Mock
+    private TripLocationTracker tripLocationTracker;
+
+    private final List<ClientRequest> authServiceRequests = new ArrayList<>();
+    private ExchangeFunction authService;
+    private OpenTripIndex openTripIndex;
+    private ReactiveTripServiceImpl tripService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        openTripIndex = TripTestFixtures.openTripIndex(new SimpleMeterRegistry());
+        ExchangeFunction recording = request -> {
+            authServiceRequests.add(request);
+            return authService.exchange(request);
+        };
+        tripService = new ReactiveTripServiceImpl(reactiveTripRepository, new ObjectMapper(), TripTestFixtures.tripEventCodecs(JsonTripEventCodec.FORMAT),
+                userNameResolver(recording), TripTestFixtures.nearOnlyTripCache(new SimpleMeterRegistry()), tripStatusNotifier, tripLogPipeline,
+                properties(TripNearbyProperties.class), openTripIndex, properties(TripHistoryProperties.class), properties(TripStatusBatchProperties.class),
+                properties(TripExportProperties.class), tripIdempotencyStore, pendingTripExpirer, tripLocationTracker);
+        when(tripIdempotencyStore.claim(any(), any(), any())).thenReturn(claim);
+    }
+
+    private static ReactiveUserNameResolver userNameResolver(ExchangeFunction authService) {
+        UserClientProperties clientProperties = properties(UserClientProperties.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new ReactiveUserNameResolver(WebClient.builder().exchangeFunction(authService), new UserClientGuard(clientProperties, meterRegistry),
+                clientProperties, properties(UserNameCacheProperties.class), meterRegistry);
+    }
+
+    private static Trip trip(String id, TripStatus status) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setUserId("user1");
+        trip.setDriverId("driver1");
+        trip.setOrigin("Origin");
+        trip.setDestination("Destination");
+        trip.setStatus(status);
+        return trip;
+    }
+
+    private static Mono<ClientResponse> names(String body) {
+        return Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build());
+    }
+
+    @Test
+    void testCreateTripInsertsTripWithOutboxEvent() {
+        TripRequest request = new TripRequest();
+        request.setDestination("Destination");
+        request.setOrigin("Origin");
+        request.setUserId("user1");
+        request.setLatitude("10.0");
+        request.setLongitude("20.0");
+        when(reactiveTripRepository.insertWithOutbox(any(), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(tripService.createTrip(request, "user1", "key-1"))
+                .assertNext(response -> assertEquals("Waiting for driver to accept the trip", response.getMessage()))
+                .verifyComplete();
+
+        ArgumentCaptor<Trip> tripCaptor = ArgumentCaptor.forClass(Trip.class);
+        ArgumentCaptor<OutboxEvent> outboxCaptor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(reactiveTripRepository).insertWithOutbox(tripCaptor.capture(), outboxCaptor.capture());
+        assertEquals(TripStatus.PENDING, tripCaptor.getValue().getStatus());
+        verify(tripIdempotencyStore).claim("user1", request, "key-1");
+        verify(claim).complete(tripCaptor.getValue().getId());
+        assertEquals("trip_create_wait_driver", outboxCaptor.getValue().getTopic());
+        assertEquals(tripCaptor.getValue().getId(), outboxCaptor.getValue().getKey());
+        verify(tripStatusNotifier).publish(tripCaptor.getValue());
+        StepVerifier.create(tripService.findNearestOpenTrips(10.0, 20.0, 100.0, 10))
+                .assertNext(nearest -> assertEquals(1, nearest.size()))
+                .verifyComplete();
+    }
+
+    @Test
+    void testCreateTripReleasesKeyWhenInsertFails() {
+        TripRequest request = new TripRequest();
+        request.setUserId("user1");
+        request.setLatitude("10.0");
+        request.setLongitude("20.0");
+        when(reactiveTripRepository.insertWithOutbox(any(), any())).thenReturn(Mono.error(new IllegalStateException("mongo down")));
+
+        StepVerifier.create(tripService.createTrip(request, "user1", "key-1"))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(claim).release();
+        verify(claim, never()).complete(any());
+        verify(tripStatusNotifier, never()).publish(any());
+    }
+
+    @Test
+    void testGetTripStatusReadsMongoOnlyOnNearCacheMiss() {
+        when(reactiveTripRepository.findById("trip1")).thenReturn(Mono.just(trip("trip1", TripStatus.PENDING)));
+
+        StepVerifier.create(tripService.getTripStatus("trip1")).expectNext("PENDING").verifyComplete();
+        StepVerifier.create(tripService.getTripStatus("trip1")).expectNext("PENDING").verifyComplete();
+
+        verify(reactiveTripRepository, times(1)).findById("trip1");
+    }
+
+    @Test
+    void testGetTripStatusesRejectsBatchesOverTheCap() {
+        StepVerifier.create(tripService.getTripStatuses(List.of("a", "b", "c", "d")))
+                .expectError(TripBatchTooLargeException.class)
+                .verify();
+        verifyNoInteractions(reactiveTripRepository);
+    }
+
+    @Test
+    void testUpdateTripStatusRejectsIllegalTransition() {
+        when(reactiveTripRepository.transitionStatus("trip1", TripStatus.ACCEPTED)).thenReturn(Mono.empty());
+        when(reactiveTripRepository.findById("trip1")).thenReturn(Mono.just(trip("trip1", TripStatus.COMPLETED)));
+
+        StepVerifier.create(tripService.updateTripStatus("trip1", TripStatus.ACCEPTED))
+                .expectError(IllegalTripTransitionException.class)
+                .verify();
+        verifyNoInteractions(tripStatusNotifier);
+    }
+
+    @Test
+    void testGetTripDetailsForwardsTokenAndCachesNames() {
+        when(reactiveTripRepository.findById("trip1")).thenReturn(Mono.just(trip("trip1", TripStatus.ACCEPTED)));
+        authService = request -> names("{\"userName\":\"UserName\",\"driverName\":\"DriverName\"}");
+        UsernamePasswordAuthenticationToken caller = UsernamePasswordAuthenticationToken.authenticated("user1", "jwt", List.of());
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(tripService.getTripDetails("trip1").contextWrite(ReactiveSecurityContextHolder.withAuthentication(caller)))
+                    .assertNext(response -> {
+                        assertEquals("UserName", response.getUserName());
+                        assertEquals("DriverName", response.getDriverName());
+                    })
+                    .verifyComplete();
+        }
+
+        assertEquals(1, authServiceRequests.size());
+        assertEquals("/api/users/user1/driver1", authServiceRequests.get(0).url().getPath());
+        assertEquals("Bearer jwt", authServiceRequests.get(0).headers().getFirst(HttpHeaders.AUTHORIZATION));
+    }
+
+    @Test
+    void testGetTripDetailsOfAPendingTripLooksUpTheRiderOnThePairEndpoint() {
+        Trip pending = trip("trip1", TripStatus.PENDING);
+        pending.setDriverId(null);
+        when(reactiveTripRepository.findById("trip1")).thenReturn(Mono.just(pending));
+        authService = request -> names("{\"userName\":\"UserName\",\"driverName\":null}");
+
+        StepVerifier.create(tripService.getTripDetails("trip1"))
+                .assertNext(response -> {
+                    assertEquals("UserName", response.getUserName());
+                    assertNull(response.getDriverName());
+                })
+                .verifyComplete();
+
+        assertEquals(1, authServiceRequests.size());
+        assertEquals(HttpMethod.GET, authServiceRequests.get(0).method());
+        assertTrue(authServiceRequests.get(0).url().getPath().startsWith("/api/users/user1/"));
+    }
+
+    @Test
+    void testGetTripDetailsWithoutNamesWhenAuthServiceFails() {
+        when(reactiveTripRepository.findById("trip1")).thenReturn(Mono.just(trip("trip1", TripStatus.ACCEPTED)));
+        authService = request -> Mono.error(new ConnectException("auth-service down"));
+
+        StepVerifier.create(tripService.getTripDetails("trip1"))
+                .assertNext(response -> {
+                    assertEquals("ACCEPTED", response.getStatus());
+                    assertNull(response.getUserName());
+                    assertNull(response.getDriverName());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testExportTripsEmitsOneNdjsonChunkPerBatch() {
+        when(reactiveTripRepository.findForExport(null, null, null, null, 2))
+                .thenReturn(Flux.just(trip("trip1", TripStatus.PENDING), trip("trip2", TripStatus.PENDING), trip("trip3", TripStatus.COMPLETED)));
+
+        List<String> chunks = tripService.exportTrips(new TripExportRequest())
+                .map(String::new)
+                .collectList()
+                .block();
+
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(0).split("\n").length);
+        assertTrue(chunks.get(1).startsWith("{\"id\":\"trip3\""));
+        assertTrue(chunks.get(1).endsWith("\n"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.trip_service.service;
+
+import com.example.trip_service.ENUM.TripStatus;
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.logging.TripLogEvent;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.example.trip_service.model.Trip;
+import com.example.trip_service.properties.TripExportProperties;
+import com.example.trip_service.repository.TripRepository;
+import com.example.trip_service.request.TripExportRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TripExportServiceTest {
+    @Mock
+    private TripRepository tripRepository;
+    @Mock
+    private TripLogPipeline tripLogPipeline;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private TripExportService tripExportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TripExportProperties properties = TripTestFixtures.properties(TripExportProperties.class, Map.of("trip.export.batch-size", 2));
+        tripExportService = new TripExportService(tripRepository, objectMapper, properties, tripLogPipeline);
+    }
+
+    private static Trip trip(String id) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setStatus(TripStatus.COMPLETED);
+        trip.setPickupLocation(new GeoJsonPoint(106.7, 10.77));
+        trip.setCreatedAt(Instant.parse("2025-01-01T10:00:00Z"));
+        return trip;
+    }
+
+    @Test
+    void testExportWritesOneJsonDocumentPerLineAndClosesTheCursor() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        Instant from = Instant.parse("2025-01-01T00:00:00Z");
+        when(tripRepository.streamForExport(TripStatus.COMPLETED, from, null, "trip0", 2))
+                .thenReturn(Stream.of(trip("trip1"), trip("trip2"), trip("trip3")).onClose(() -> closed.set(true)));
+        TripExportRequest request = new TripExportRequest();
+        request.setStatus(TripStatus.COMPLETED);
+        request.setFrom(from);
+        request.setAfterId("trip0");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        tripExportService.export(request, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("trip1", first.get("id").asText());
+        assertEquals("COMPLETED", first.get("status").asText());
+        assertEquals("Point", first.get("pickupLocation").get("type").asText());
+        assertEquals(106.7, first.get("pickupLocation").get("coordinates").get(0).asDouble());
+        assertEquals("2025-01-01T10:00:00Z", first.get("createdAt").asText());
+        assertEquals("trip3", objectMapper.readTree(lines[2]).get("id").asText());
+        assertTrue(closed.get());
+        verify(tripLogPipeline).log(TripLogEvent.TRIPS_EXPORTED, 3L, "trip3");
+    }
+
+    @Test
+    void testExportClosesTheCursorWhenTheClientGoesAway() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(tripRepository.streamForExport(any(), any(), any(), any(), anyInt()))
+                .thenReturn(Stream.of(trip("trip1")).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream broken = new ByteArrayOutputStream() {
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                throw new UncheckedBrokenPipe();
+            }
+        };
+
+        assertThrows(UncheckedBrokenPipe.class, () -> tripExportService.export(new TripExportRequest(), broken));
+        assertTrue(closed.get());
+    }
+
+    private static final class UncheckedBrokenPipe extends RuntimeException {
+    }
+}
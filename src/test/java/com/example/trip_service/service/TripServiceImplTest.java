@@ -1,24 +1,61 @@
 package com.example.trip_service.service;
 
+import com.example.trip_service.TripTestFixtures;
+import com.example.trip_service.DTO.TripHistoryCursor;
 import com.example.trip_service.DTO.UserDriverNameDTO;
+import com.example.trip_service.ENUM.TripParticipant;
 import com.example.trip_service.ENUM.TripStatus;
 import com.example.trip_service.client.UserClient;
+import com.example.trip_service.client.UserClientGuard;
+import com.example.trip_service.client.UserNameResolver;
+import com.example.trip_service.codec.JsonTripEventCodec;
 import com.example.trip_service.event.CreateTripEvent;
+import com.example.trip_service.exception.IllegalTripTransitionException;
+import com.example.trip_service.exception.InvalidCursorException;
+import com.example.trip_service.exception.InvalidPickupLocationException;
+import com.example.trip_service.exception.TripBatchTooLargeException;
+import com.example.trip_service.expiry.PendingTripExpirer;
+import com.example.trip_service.idempotency.TripIdempotencyStore;
+import com.example.trip_service.location.TripLocationTracker;
+import com.example.trip_service.logging.TripLogPipeline;
+import com.example.trip_service.matching.OpenTripIndex;
+import com.example.trip_service.model.OutboxEvent;
 import com.example.trip_service.model.Trip;
+import com.example.trip_service.notification.TripStatusNotifier;
+import com.example.trip_service.properties.TripHistoryProperties;
+import com.example.trip_service.properties.TripNearbyProperties;
+import com.example.trip_service.properties.TripStatusBatchProperties;
+import com.example.trip_service.properties.UserClientProperties;
+import com.example.trip_service.properties.UserNameCacheProperties;
 import com.example.trip_service.repository.TripRepository;
+import com.example.trip_service.request.TripHistoryRequest;
 import com.example.trip_service.request.TripRequest;
+import com.example.trip_service.response.CreateTripResponse;
+import com.example.trip_service.response.NearbyTripResponse;
+import com.example.trip_service.response.TripHistoryResponse;
+import com.example.trip_service.response.TripSummaryResponse;
 import com.example.trip_service.response.TripResponse;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import static com.example.trip_service.service.TripServiceTestProperties.properties;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -26,20 +63,42 @@ class TripServiceImplTest {
     @Mock
     private TripRepository tripRepository;
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
-    @Mock
     private UserClient userClient;
+    @Mock
+    private TripStatusNotifier tripStatusNotifier;
+    @Mock
+    private TripLogPipeline tripLogPipeline;
+    @Mock
+    private TripIdempotencyStore tripIdempotencyStore;
+    @Mock
+    private TripIdempotencyStore.Claim claim;
+    @Mock
+    private PendingTripExpirer pendingTripExpirer;
+    @Mock
+    private TripLocationTracker tripLocationTracker;
 
-    @InjectMocks
+    private OpenTripIndex openTripIndex;
     private TripServiceImpl tripService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        openTripIndex = TripTestFixtures.openTripIndex(new SimpleMeterRegistry());
+        tripService = new TripServiceImpl(tripRepository, TripTestFixtures.tripEventCodecs(JsonTripEventCodec.FORMAT), userNameResolver(),
+                TripTestFixtures.nearOnlyTripCache(new SimpleMeterRegistry()), tripStatusNotifier, tripLogPipeline, properties(TripNearbyProperties.class),
+                openTripIndex, properties(TripHistoryProperties.class), properties(TripStatusBatchProperties.class), tripIdempotencyStore,
+                pendingTripExpirer, tripLocationTracker);
+        when(tripIdempotencyStore.claim(any(), any(), any())).thenReturn(claim);
+    }
+
+    private UserNameResolver userNameResolver() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new UserNameResolver(userClient, new UserClientGuard(properties(UserClientProperties.class), meterRegistry),
+                properties(UserNameCacheProperties.class), meterRegistry);
     }
 
     @Test
-    void testCreateTrip() throws JsonProcessingException {
+    void testCreateTrip() throws Exception {
         TripRequest request = new TripRequest();
         request.setDestination("Destination");
         request.setOrigin("Origin");
@@ -47,13 +106,135 @@ class TripServiceImplTest {
         request.setLatitude(String.valueOf(10.0));
         request.setLongitude(String.valueOf(20.0));
 
+        when(tripRepository.insertWithOutbox(any(Trip.class), any(OutboxEvent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CreateTripResponse result = tripService.createTrip(request, "user1", "key-1");
+        assertEquals("Waiting for driver to accept the trip", result.getMessage());
+
+        ArgumentCaptor<Trip> tripCaptor = ArgumentCaptor.forClass(Trip.class);
+        ArgumentCaptor<OutboxEvent> outboxCaptor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(tripRepository, times(1)).insertWithOutbox(tripCaptor.capture(), outboxCaptor.capture());
+        Trip trip = tripCaptor.getValue();
+        OutboxEvent outboxEvent = outboxCaptor.getValue();
+        assertNotNull(trip.getId());
+        assertEquals(trip.getId(), result.getTripId());
+        verify(tripIdempotencyStore).claim("user1", request, "key-1");
+        verify(claim).complete(trip.getId());
+        verify(pendingTripExpirer).schedule(trip);
+        assertNotNull(trip.getCreatedAt());
+        assertEquals(TripStatus.PENDING, trip.getStatus());
+        assertEquals(new GeoJsonPoint(20.0, 10.0), trip.getPickupLocation());
+        assertEquals("trip_create_wait_driver", outboxEvent.getTopic());
+        assertEquals(trip.getId(), outboxEvent.getKey());
+
+        assertEquals(JsonTripEventCodec.FORMAT, outboxEvent.getFormat());
+        CreateTripEvent event = new ObjectMapper().readValue(outboxEvent.getData(), CreateTripEvent.class);
+        assertEquals(trip.getId(), event.getTripId());
+        assertEquals("user1", event.getUserId());
+        assertEquals("10.0", event.getLatitude());
+        assertEquals(1, tripService.findNearestOpenTrips(10.0, 20.0, 100.0, 10).size());
+    }
+
+    @Test
+    void testCreateTripRejectsInvalidPickupLocation() {
+        TripRequest request = new TripRequest();
+        request.setUserId("user1");
+        request.setLatitude("95.0");
+        request.setLongitude("abc");
+
+        assertThrows(InvalidPickupLocationException.class, () -> tripService.createTrip(request, "user1", "key-1"));
+        verify(tripRepository, never()).insertWithOutbox(any(), any());
+        verifyNoInteractions(tripIdempotencyStore);
+    }
+
+    @Test
+    void testCreateTripReplaysTripOfEarlierRequestWithSameKey() {
+        TripRequest request = new TripRequest();
+        request.setUserId("user1");
+        request.setLatitude("10.0");
+        request.setLongitude("20.0");
+        when(claim.replayedTripId()).thenReturn("trip-1");
+
+        CreateTripResponse result = tripService.createTrip(request, "user1", "key-1");
+
+        assertEquals("trip-1", result.getTripId());
+        assertEquals("Waiting for driver to accept the trip", result.getMessage());
+        verify(tripRepository, never()).insertWithOutbox(any(), any());
+        verify(tripStatusNotifier, never()).publish(any());
+    }
+
+    @Test
+    void testCreateTripReleasesKeyWhenInsertFails() {
+        TripRequest request = new TripRequest();
+        request.setUserId("user1");
+        request.setLatitude("10.0");
+        request.setLongitude("20.0");
+        when(tripRepository.insertWithOutbox(any(Trip.class), any(OutboxEvent.class))).thenThrow(new IllegalStateException("mongo down"));
+
+        assertThrows(IllegalStateException.class, () -> tripService.createTrip(request, "user1", "key-1"));
+
+        verify(claim).release();
+        verify(claim, never()).complete(any());
+    }
+
+    @Test
+    void testFindNearbyPendingTripsClampsRadiusAndPageSize() {
         Trip trip = new Trip();
-        when(tripRepository.save(any(Trip.class))).thenReturn(trip);
+        trip.setId("trip1");
+        trip.setPickupLocation(new GeoJsonPoint(106.70, 10.77));
+        GeoResults<Trip> results = new GeoResults<>(List.of(new GeoResult<>(trip, new Distance(1.25, Metrics.KILOMETERS))));
+        when(tripRepository.findPendingNear(any(), anyDouble(), any())).thenReturn(results);
 
-        String result = tripService.createTrip(request);
-        assertEquals("Waiting for driver to accept the trip", result);
-        verify(tripRepository, times(1)).save(any(Trip.class));
-        verify(kafkaTemplate, times(1)).send(eq("trip_create_wait_driver"), anyString());
+        List<NearbyTripResponse> nearby = tripService.findNearbyPendingTrips(10.78, 106.69, 100_000.0, 0, 500);
+
+        verify(tripRepository).findPendingNear(new GeoJsonPoint(106.69, 10.78), 20000.0, PageRequest.of(0, 50));
+        assertEquals(1, nearby.size());
+        assertEquals("trip1", nearby.get(0).getId());
+        assertEquals(10.77, nearby.get(0).getLatitude());
+        assertEquals(1250, nearby.get(0).getDistanceMeters());
+    }
+
+    private static TripSummaryResponse summary(String id, Instant createdAt) {
+        TripSummaryResponse summary = new TripSummaryResponse();
+        summary.setId(id);
+        summary.setCreatedAt(createdAt);
+        return summary;
+    }
+
+    @Test
+    void testGetTripHistoryReturnsCursorOfLastTripWhenMoreExist() {
+        Instant createdAt = Instant.parse("2025-01-01T10:00:00Z");
+        when(tripRepository.findHistory(eq(TripParticipant.USER), eq("user1"), isNull(), isNull(), isNull(), isNull(), eq(3)))
+                .thenReturn(List.of(summary("trip3", createdAt.plusSeconds(2)), summary("trip2", createdAt.plusSeconds(1)), summary("trip1", createdAt)));
+
+        TripHistoryResponse page = tripService.getTripHistory(TripParticipant.USER, "user1", new TripHistoryRequest());
+
+        assertEquals(List.of("trip3", "trip2"), page.getTrips().stream().map(TripSummaryResponse::getId).toList());
+        assertEquals(new TripHistoryCursor(createdAt.plusSeconds(1), "trip2"), TripHistoryCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void testGetTripHistoryPassesCursorAndClampsLimit() {
+        TripHistoryCursor cursor = new TripHistoryCursor(Instant.parse("2025-01-01T10:00:00Z"), "trip2");
+        TripHistoryRequest request = new TripHistoryRequest();
+        request.setStatus(TripStatus.COMPLETED);
+        request.setLimit(500);
+        request.setCursor(cursor.encode());
+        when(tripRepository.findHistory(any(), any(), any(), any(), any(), any(), anyInt())).thenReturn(List.of(summary("trip1", null)));
+
+        TripHistoryResponse page = tripService.getTripHistory(TripParticipant.DRIVER, "driver1", request);
+
+        verify(tripRepository).findHistory(TripParticipant.DRIVER, "driver1", TripStatus.COMPLETED, null, null, cursor, 4);
+        assertEquals(1, page.getTrips().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetTripHistoryRejectsMalformedCursor() {
+        TripHistoryRequest request = new TripHistoryRequest();
+        request.setCursor("not a cursor");
+
+        assertThrows(InvalidCursorException.class, () -> tripService.getTripHistory(TripParticipant.USER, "user1", request));
     }
 
     @Test
@@ -66,6 +247,42 @@ class TripServiceImplTest {
         assertEquals("PENDING", status);
     }
 
+    @Test
+    void testGetTripStatusServedFromCache() {
+        Trip trip = new Trip();
+        trip.setId("trip1");
+        trip.setStatus(TripStatus.PENDING);
+        when(tripRepository.findById("trip1")).thenReturn(Optional.of(trip));
+
+        tripService.getTripStatus("trip1");
+        tripService.getTripStatus("trip1");
+        verify(tripRepository, times(1)).findById("trip1");
+    }
+
+    @Test
+    void testGetTripStatusesLoadsOnlyCacheMissesInOneQuery() {
+        Trip cached = new Trip();
+        cached.setId("trip1");
+        cached.setStatus(TripStatus.ACCEPTED);
+        when(tripRepository.findById("trip1")).thenReturn(Optional.of(cached));
+        tripService.getTripStatus("trip1");
+        Trip stored = new Trip();
+        stored.setId("trip2");
+        stored.setStatus(TripStatus.PENDING);
+        when(tripRepository.findAllById(List.of("trip2", "missing"))).thenReturn(List.of(stored));
+
+        Map<String, String> statuses = tripService.getTripStatuses(List.of("trip1", "trip2", "missing", "trip1"));
+
+        assertEquals(Map.of("trip1", "ACCEPTED", "trip2", "PENDING"), statuses);
+        verify(tripRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void testGetTripStatusesRejectsBatchesOverTheCap() {
+        assertThrows(TripBatchTooLargeException.class, () -> tripService.getTripStatuses(List.of("a", "b", "c", "d")));
+        verifyNoInteractions(tripRepository);
+    }
+
     @Test
     void testGetTripStatusNotFound() {
         when(tripRepository.findById("trip2")).thenReturn(Optional.empty());
@@ -97,6 +314,85 @@ class TripServiceImplTest {
         assertEquals("DriverName", response.getDriverName());
     }
 
+    @Test
+    void testGetTripDetailsCachesNames() {
+        Trip trip = new Trip();
+        trip.setId("trip1");
+        trip.setStatus(TripStatus.ACCEPTED);
+        trip.setUserId("user1");
+        trip.setDriverId("driver1");
+        when(tripRepository.findById("trip1")).thenReturn(Optional.of(trip));
+        UserDriverNameDTO dto = new UserDriverNameDTO();
+        dto.setUserName("UserName");
+        dto.setDriverName("DriverName");
+        when(userClient.getUserDriverName("user1", "driver1")).thenReturn(dto);
+
+        tripService.getTripDetails("trip1");
+        TripResponse response = tripService.getTripDetails("trip1");
+        assertEquals("UserName", response.getUserName());
+        assertEquals("DriverName", response.getDriverName());
+        verify(userClient, times(1)).getUserDriverName("user1", "driver1");
+    }
+
+    @Test
+    void testGetTripDetailsWithoutNamesWhenUserServiceFails() {
+        Trip trip = new Trip();
+        trip.setId("trip1");
+        trip.setOrigin("Origin");
+        trip.setStatus(TripStatus.ACCEPTED);
+        trip.setUserId("user1");
+        trip.setDriverId("driver1");
+        when(tripRepository.findById("trip1")).thenReturn(Optional.of(trip));
+        when(userClient.getUserDriverName("user1", "driver1")).thenThrow(new RuntimeException("auth-service down"));
+
+        TripResponse response = tripService.getTripDetails("trip1");
+        assertEquals("trip1", response.getId());
+        assertEquals("Origin", response.getOrigin());
+        assertEquals("ACCEPTED", response.getStatus());
+        assertNull(response.getUserName());
+        assertNull(response.getDriverName());
+    }
+
+    @Test
+    void testGetTripDetailsKeepsCachedNamesWhenUserServiceFails() {
+        Trip pending = new Trip();
+        pending.setId("trip1");
+        pending.setStatus(TripStatus.PENDING);
+        pending.setUserId("user1");
+        Trip accepted = new Trip();
+        accepted.setId("trip2");
+        accepted.setStatus(TripStatus.ACCEPTED);
+        accepted.setUserId("user1");
+        accepted.setDriverId("driver1");
+        when(tripRepository.findById("trip1")).thenReturn(Optional.of(pending));
+        when(tripRepository.findById("trip2")).thenReturn(Optional.of(accepted));
+        UserDriverNameDTO dto = new UserDriverNameDTO();
+        dto.setUserName("UserName");
+        when(userClient.getUserDriverName("user1", null)).thenReturn(dto);
+        when(userClient.getUserDriverName("user1", "driver1")).thenThrow(new RuntimeException("auth-service down"));
+        tripService.getTripDetails("trip1");
+
+        TripResponse response = tripService.getTripDetails("trip2");
+        assertEquals("UserName", response.getUserName());
+        assertNull(response.getDriverName());
+    }
+
+    @Test
+    void testOpenCircuitStopsCallingUserService() {
+        Trip trip = new Trip();
+        trip.setId("trip1");
+        trip.setStatus(TripStatus.ACCEPTED);
+        trip.setUserId("user1");
+        trip.setDriverId("driver1");
+        when(tripRepository.findById("trip1")).thenReturn(Optional.of(trip));
+        when(userClient.getUserDriverName("user1", "driver1")).thenThrow(new RuntimeException("auth-service down"));
+
+        for (int i = 0; i < 5; i++) {
+            assertNull(tripService.getTripDetails("trip1").getUserName());
+        }
+        verify(userClient, times(2)).getUserDriverName("user1", "driver1");
+    }
+
     @Test
     void testGetTripDetailsNotFound() {
         when(tripRepository.findById("trip2")).thenReturn(Optional.empty());
@@ -107,14 +403,82 @@ class TripServiceImplTest {
     @Test
     void testUpdateTripStatus() {
         Trip trip = new Trip();
-        trip.setStatus(TripStatus.PENDING);
-        when(tripRepository.findById("trip1")).thenReturn(Optional.of(trip));
-        when(tripRepository.save(any(Trip.class))).thenReturn(trip);
+        trip.setId("trip1");
+        trip.setStatus(TripStatus.COMPLETED);
+        when(tripRepository.transitionStatus("trip1", TripStatus.COMPLETED)).thenReturn(Optional.of(trip));
 
         String result = tripService.updateTripStatus("trip1", TripStatus.COMPLETED);
         assertEquals("Trip status updated to COMPLETED", result);
-        assertEquals(TripStatus.COMPLETED, trip.getStatus());
-        verify(tripRepository, times(1)).save(trip);
+        verify(tripRepository, times(1)).transitionStatus("trip1", TripStatus.COMPLETED);
+        verify(tripRepository, never()).save(any(Trip.class));
+        verify(tripStatusNotifier, times(1)).publish(trip);
+        verify(tripLocationTracker).close("trip1");
+    }
+
+    @Test
+    void testUpdateTripStatusRefreshesCache() {
+        Trip pending = new Trip();
+        pending.setId("trip1");
+        pending.setStatus(TripStatus.PENDING);
+        Trip cancelled = new Trip();
+        cancelled.setId("trip1");
+        cancelled.setStatus(TripStatus.CANCELLED);
+        when(tripRepository.findById("trip1")).thenReturn(Optional.of(pending));
+        when(tripRepository.transitionStatus("trip1", TripStatus.CANCELLED)).thenReturn(Optional.of(cancelled));
+
+        assertEquals("PENDING", tripService.getTripStatus("trip1"));
+        tripService.updateTripStatus("trip1", TripStatus.CANCELLED);
+        assertEquals("CANCELLED", tripService.getTripStatus("trip1"));
+    }
+
+    @Test
+    void testUpdateTripStatusDropsTripFromOpenTripIndex() {
+        openTripIndex.put("trip1", 10.0, 20.0);
+        Trip accepted = new Trip();
+        accepted.setId("trip1");
+        accepted.setStatus(TripStatus.ACCEPTED);
+        accepted.setPickupLocation(new GeoJsonPoint(20.0, 10.0));
+        when(tripRepository.transitionStatus("trip1", TripStatus.ACCEPTED)).thenReturn(Optional.of(accepted));
+
+        tripService.updateTripStatus("trip1", TripStatus.ACCEPTED);
+
+        assertTrue(tripService.findNearestOpenTrips(10.0, 20.0, 100.0, 10).isEmpty());
+    }
+
+    @Test
+    void testStartingATripLeavesItsLocationTrackOpen() {
+        Trip inProgress = new Trip();
+        inProgress.setId("trip1");
+        inProgress.setStatus(TripStatus.IN_PROGRESS);
+        when(tripRepository.transitionStatus("trip1", TripStatus.IN_PROGRESS)).thenReturn(Optional.of(inProgress));
+
+        tripService.updateTripStatus("trip1", TripStatus.IN_PROGRESS);
+
+        verifyNoInteractions(tripLocationTracker);
+    }
+
+    @Test
+    void testUpdateTripStatusRejectsIllegalTransition() {
+        Trip trip = new Trip();
+        trip.setId("trip1");
+        trip.setStatus(TripStatus.COMPLETED);
+        when(tripRepository.findById("trip1")).thenReturn(Optional.of(trip));
+
+        IllegalTripTransitionException ex = assertThrows(IllegalTripTransitionException.class,
+                () -> tripService.updateTripStatus("trip1", TripStatus.ACCEPTED));
+        assertTrue(ex.getMessage().contains("COMPLETED to ACCEPTED"));
+        verify(tripStatusNotifier, never()).publish(any());
+    }
+
+    @Test
+    void testTripStatusTransitions() {
+        assertTrue(TripStatus.PENDING.canTransitionTo(TripStatus.ACCEPTED));
+        assertTrue(TripStatus.ACCEPTED.canTransitionTo(TripStatus.IN_PROGRESS));
+        assertTrue(TripStatus.IN_PROGRESS.canTransitionTo(TripStatus.COMPLETED));
+        assertFalse(TripStatus.PENDING.canTransitionTo(TripStatus.COMPLETED));
+        assertFalse(TripStatus.CANCELLED.canTransitionTo(TripStatus.PENDING));
+        assertTrue(TripStatus.PENDING.allowedPredecessors().isEmpty());
+        assertEquals(Set.of(TripStatus.PENDING, TripStatus.ACCEPTED, TripStatus.IN_PROGRESS), TripStatus.CANCELLED.allowedPredecessors());
     }
 
     @Test
@@ -0,0 +1,27 @@
+package com.example.trip_service.service;
+
+import com.example.trip_service.TripTestFixtures;
+
+import java.util.Map;
+
+/**
+ * Properties for {@link TripServiceImplTest} and {@link ReactiveTripServiceImplTest}: the deployed
+ * settings with pages and batches small enough to exercise their limits with a handful of trips,
+ * and a user-service circuit breaker that opens after two failed calls.
+ */
+final class TripServiceTestProperties {
+    static final Map<String, Object> SETTINGS = Map.of(
+            "trip.history.default-page-size", 2,
+            "trip.history.max-page-size", 3,
+            "trip.status-batch.max-ids", 3,
+            "trip.export.batch-size", 2,
+            "user.client.circuit-breaker.sliding-window-size", 2,
+            "user.client.circuit-breaker.minimum-calls", 2);
+
+    private TripServiceTestProperties() {
+    }
+
+    static <T> T properties(Class<T> type) {
+        return TripTestFixtures.properties(type, SETTINGS);
+    }
+}